@@ -0,0 +1,56 @@
+// Load test of the recipe API, to compare the platform thread and the virtual thread request execution.
+//
+//   k6 run -e BASE_URL=http://localhost:8080 -e VUS=400 load-test/recipes.js
+//
+// Every virtual user reads a recipe by id, filters the recipes and merge patches a recipe in a loop, so most of the time
+// of a request is spent waiting on MongoDB. Compare http_reqs (throughput) and the p(99) of http_req_duration.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const RECIPES = parseInt(__ENV.RECIPES || '1000');
+
+export const options = {
+  scenarios: {
+    recipes: {
+      executor: 'ramping-vus',
+      stages: [
+        { duration: '30s', target: parseInt(__ENV.VUS || '400') },
+        { duration: __ENV.DURATION || '2m', target: parseInt(__ENV.VUS || '400') },
+      ],
+    },
+  },
+  summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+export function setup() {
+  http.del(`${BASE_URL}/recipes`);
+  const ids = [];
+  for (let i = 0; i < RECIPES; i++) {
+    const response = http.post(`${BASE_URL}/recipes`, JSON.stringify({
+      title: `Recipe ${i}`,
+      servings: 1 + (i % 8),
+      ingredients: ['egg', `ingredient ${i % 50}`],
+      instructions: 'mix and bake',
+      category: i % 2 === 0 ? 'VEGETARIAN' : 'NON_VEGETARIAN',
+    }), { headers: { 'Content-Type': 'application/json' } });
+    ids.push(response.json('id'));
+  }
+  return { ids };
+}
+
+export default function (data) {
+  const id = data.ids[Math.floor(Math.random() * data.ids.length)];
+
+  check(http.get(`${BASE_URL}/recipes/${id}`, { tags: { name: 'GET /recipes/{id}' } }), {
+    'get is 200': (r) => r.status === 200,
+  });
+  check(http.get(`${BASE_URL}/recipes?servings=${1 + Math.floor(Math.random() * 8)}&size=20`,
+    { tags: { name: 'GET /recipes?servings' } }), {
+    'filter is 200': (r) => r.status === 200 || r.status === 204,
+  });
+  check(http.patch(`${BASE_URL}/recipes/${id}`, JSON.stringify({ servings: 1 + Math.floor(Math.random() * 8) }),
+    { headers: { 'Content-Type': 'application/merge-patch+json' }, tags: { name: 'PATCH /recipes/{id}' } }), {
+    'patch is 204': (r) => r.status === 204,
+  });
+}
@@ -0,0 +1,77 @@
+package com.abn.recipes.benchmark;
+
+import com.abn.recipes.config.JacksonConfig;
+import com.abn.recipes.domain.Recipe;
+import com.abn.recipes.utils.PatchHelper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import javax.json.Json;
+import javax.json.JsonMergePatch;
+import javax.json.JsonPatch;
+import javax.validation.Validation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link PatchHelper} applying the kind of patches the PATCH endpoints receive.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PatchHelperBenchmark {
+
+  private PatchHelper patchHelper;
+  private Recipe recipe;
+  private JsonPatch patch;
+  private JsonPatch genericPatch;
+  private JsonMergePatch mergePatch;
+
+  @Setup
+  public void setUp() {
+    patchHelper = new PatchHelper(new JacksonConfig().objectMapper(),
+      Validation.buildDefaultValidatorFactory().getValidator(), new SimpleMeterRegistry());
+    recipe = RecipeFixtures.recipe(1);
+    patch = Json.createPatchBuilder()
+      .replace("/servings", 4)
+      .replace("/title", "Kadai paneer with peas")
+      .add("/ingredients/-", "peas")
+      .build();
+    genericPatch = Json.createPatchBuilder()
+      .replace("/servings", 4)
+      .copy("/title", "/instructions")
+      .build();
+    mergePatch = Json.createMergePatch(Json.createObjectBuilder()
+      .add("servings", 4)
+      .add("title", "Kadai paneer with peas")
+      .build());
+  }
+
+  @Benchmark
+  public Recipe patch() {
+    return patchHelper.patch(patch, recipe, Recipe.class);
+  }
+
+  /**
+   * A patch with an operation the field by field path does not support, measuring the JSON tree fallback.
+   */
+  @Benchmark
+  public Recipe genericPatch() {
+    return patchHelper.patch(genericPatch, recipe, Recipe.class);
+  }
+
+  @Benchmark
+  public Recipe mergePatch() {
+    return patchHelper.mergePatch(mergePatch, recipe, Recipe.class);
+  }
+}
@@ -0,0 +1,82 @@
+package com.abn.recipes.benchmark;
+
+import com.abn.recipes.config.JacksonConfig;
+import com.abn.recipes.domain.Recipe;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks writing and reading the {@code GET /recipes} response in JSON, CBOR and Smile with the {@link JacksonConfig}
+ * mappers. The encoded size is reported with the {@code encode} results as the {@code encodedBytes} counter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecipeEncodingBenchmark {
+
+  @Param({"json", "cbor", "smile"})
+  private String format;
+
+  @Param({"1", "100"})
+  private int size;
+
+  private ObjectMapper objectMapper;
+  private List<Recipe> recipes;
+  private byte[] encoded;
+
+  @Setup
+  public void setUp() throws IOException {
+    JacksonConfig jacksonConfig = new JacksonConfig();
+    switch (format) {
+      case "cbor":
+        objectMapper = jacksonConfig.cborObjectMapper();
+        break;
+      case "smile":
+        objectMapper = jacksonConfig.smileObjectMapper();
+        break;
+      default:
+        objectMapper = jacksonConfig.objectMapper();
+    }
+    recipes = RecipeFixtures.recipes(size);
+    encoded = objectMapper.writeValueAsBytes(recipes);
+  }
+
+  @Benchmark
+  public byte[] encode(EncodedSize encodedSize) throws IOException {
+    byte[] bytes = objectMapper.writeValueAsBytes(recipes);
+    encodedSize.encodedBytes = bytes.length;
+    return bytes;
+  }
+
+  @Benchmark
+  public Recipe[] decode() throws IOException {
+    return objectMapper.readValue(encoded, Recipe[].class);
+  }
+
+  /**
+   * The size of the encoded recipes, reported as is by every iteration.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class EncodedSize {
+
+    public long encodedBytes;
+  }
+}
@@ -0,0 +1,75 @@
+package com.abn.recipes.benchmark;
+
+import com.abn.recipes.domain.Category;
+import com.abn.recipes.domain.Recipe;
+import com.abn.recipes.domain.RecipeDTO;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Realistically sized recipes shared by the benchmarks.
+ */
+final class RecipeFixtures {
+
+  private static final List<String> INGREDIENTS = Arrays.asList("potato", "tomato", "onion", "garlic", "ginger",
+    "green chilli", "bell pepper", "paneer", "butter", "cream", "kasuri methi", "garam masala", "turmeric", "salt",
+    "coriander");
+
+  private static final String INSTRUCTIONS = "Firstly, in a large kadai heat 1 tbsp butter and saute 1 bay leaf, "
+    + "1 green chilli and 1 tsp kasuri methi till they turn aromatic. Add the onions and cook until golden brown, "
+    + "then add the ginger garlic paste and saute well. Add the tomatoes with turmeric, chilli powder and salt and "
+    + "cook until the tomatoes turn soft and mushy. Blend to a smooth paste, return to the kadai with the cream and "
+    + "the paneer cubes and simmer for 5 minutes. Garnish with coriander and serve hot with naan or rice.";
+
+  private RecipeFixtures() {
+  }
+
+  static Recipe recipe(int index) {
+    return new Recipe(String.format("62f151e322515f7318d%05d", index), "Kadai paneer " + index, 2 + index % 6,
+      ingredients(index), INSTRUCTIONS, index % 3 == 0 ? Category.NON_VEGETARIAN : Category.VEGETARIAN);
+  }
+
+  static RecipeDTO recipeDTO(int index) {
+    Recipe recipe = recipe(index);
+    return new RecipeDTO(recipe.getId(), recipe.getTitle(), recipe.getServings(), recipe.getIngredients(),
+      recipe.getInstructions(), recipe.getCategory());
+  }
+
+  static List<Recipe> recipes(int count) {
+    return IntStream.range(0, count).mapToObj(RecipeFixtures::recipe).collect(Collectors.toCollection(ArrayList::new));
+  }
+
+  static List<RecipeDTO> recipeDTOs(int count) {
+    return IntStream.range(0, count).mapToObj(RecipeFixtures::recipeDTO).collect(Collectors.toCollection(ArrayList::new));
+  }
+
+  /**
+   * The recipes as read with the {@code fields=title,category} projection of the list views.
+   */
+  static List<RecipeDTO> recipeSummaryDTOs(int count) {
+    return IntStream.range(0, count)
+      .mapToObj(RecipeFixtures::recipe)
+      .map(recipe -> RecipeDTO.builder().id(recipe.getId()).title(recipe.getTitle()).category(recipe.getCategory()).build())
+      .collect(Collectors.toCollection(ArrayList::new));
+  }
+
+  static List<Recipe> recipeSummaries(int count) {
+    return IntStream.range(0, count)
+      .mapToObj(RecipeFixtures::recipe)
+      .map(recipe -> Recipe.builder().id(recipe.getId()).title(recipe.getTitle()).category(recipe.getCategory()).build())
+      .collect(Collectors.toCollection(ArrayList::new));
+  }
+
+  private static Set<String> ingredients(int index) {
+    Set<String> ingredients = new LinkedHashSet<>();
+    for (int i = 0; i < 10; i++) {
+      ingredients.add(INGREDIENTS.get((index + i) % INGREDIENTS.size()));
+    }
+    return ingredients;
+  }
+}
@@ -0,0 +1,77 @@
+package com.abn.recipes.benchmark;
+
+import com.abn.recipes.domain.Recipe;
+import com.abn.recipes.domain.RecipeDTO;
+import com.abn.recipes.utils.RecipeMapper;
+import com.abn.recipes.utils.RecipeMapperImpl;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the MapStruct {@link RecipeMapper} conversions used on every read and write.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecipeMapperBenchmark {
+
+  @Param({"1", "100", "1000"})
+  private int size;
+
+  private RecipeMapper mapper;
+  private Recipe recipe;
+  private RecipeDTO recipeDTO;
+  private List<RecipeDTO> recipeDTOs;
+  private List<RecipeDTO> recipeSummaryDTOs;
+
+  @Setup
+  public void setUp() {
+    mapper = new RecipeMapperImpl();
+    recipe = RecipeFixtures.recipe(1);
+    recipeDTO = RecipeFixtures.recipeDTO(1);
+    recipeDTOs = RecipeFixtures.recipeDTOs(size);
+    recipeSummaryDTOs = RecipeFixtures.recipeSummaryDTOs(size);
+  }
+
+  @Benchmark
+  public RecipeDTO asRecipeDTO() {
+    return mapper.asRecipeDTO(recipe);
+  }
+
+  @Benchmark
+  public Recipe asRecipe() {
+    return mapper.asRecipe(recipeDTO);
+  }
+
+  /**
+   * Reads every recipe of the view, as serializing the list does.
+   */
+  @Benchmark
+  public void map(Blackhole blackhole) {
+    for (Recipe mapped : mapper.map(recipeDTOs)) {
+      blackhole.consume(mapped);
+    }
+  }
+
+  @Benchmark
+  public void mapSummaries(Blackhole blackhole) {
+    for (Recipe mapped : mapper.map(recipeSummaryDTOs)) {
+      blackhole.consume(mapped);
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package com.abn.recipes.benchmark;
+
+import com.abn.recipes.config.JacksonConfig;
+import com.abn.recipes.domain.Recipe;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks serializing the {@code GET /recipes} response with the {@link JacksonConfig} {@link ObjectMapper}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecipeSerializationBenchmark {
+
+  @Param({"10", "100", "1000"})
+  private int size;
+
+  private ObjectMapper objectMapper;
+  private List<Recipe> recipes;
+  private List<Recipe> recipeSummaries;
+
+  @Setup
+  public void setUp() {
+    objectMapper = new JacksonConfig().objectMapper();
+    recipes = RecipeFixtures.recipes(size);
+    recipeSummaries = RecipeFixtures.recipeSummaries(size);
+  }
+
+  @Benchmark
+  public byte[] writeRecipes() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(recipes);
+  }
+
+  @Benchmark
+  public byte[] writeRecipeSummaries() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(recipeSummaries);
+  }
+}
@@ -0,0 +1,56 @@
+package com.abn.recipes.benchmark;
+
+import com.abn.recipes.utils.SearchCriteriaBuilder;
+import com.querydsl.core.types.Predicate;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+/**
+ * Benchmarks building the Querydsl predicate of {@code GET /recipes} from many filters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchCriteriaBuilderBenchmark {
+
+  /**
+   * The number of values of each repeatable filter.
+   */
+  @Param({"1", "10", "50"})
+  private int filters;
+
+  private MultiValueMap<String, String> searchMap;
+
+  @Setup
+  public void setUp() {
+    searchMap = new LinkedMultiValueMap<>();
+    searchMap.add("servings", "4");
+    searchMap.add("category", "VEGETARIAN");
+    for (int i = 0; i < filters; i++) {
+      searchMap.add("includes", "ingredient " + i);
+      searchMap.add("excludes", "excluded " + i);
+      searchMap.add("instructions", "step " + i);
+      searchMap.add("title", "title " + i);
+    }
+  }
+
+  @Benchmark
+  public Predicate addCondition() {
+    return SearchCriteriaBuilder.addCondition(searchMap);
+  }
+}
@@ -0,0 +1,92 @@
+package com.abn.recipes.cache;
+
+import com.abn.recipes.domain.Recipe;
+import com.abn.recipes.events.RecipeChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded read-through cache of mapped {@link Recipe}s by id.
+ * <p>
+ * Entries are evicted by size and by time since written, and are refreshed or invalidated on every
+ * {@link RecipeChangedEvent}. Callers always get their own copy, so mutating a returned recipe never
+ * changes the cached one.
+ */
+@Component
+public class RecipeCache {
+
+  private final Cache<String, Recipe> cache;
+
+  public RecipeCache(
+    @Value("${recipes.cache.maximum-size:10000}") long maximumSize,
+    @Value("${recipes.cache.expire-after-write:10m}") Duration expireAfterWrite
+  ) {
+    this.cache = Caffeine.newBuilder()
+      .maximumSize(maximumSize)
+      .expireAfterWrite(expireAfterWrite)
+      .recordStats()
+      .build();
+  }
+
+  /**
+   * Gets the {@link Recipe} for the given id, loading and caching it on a miss.
+   *
+   * @param recipeId the id of the {@link Recipe}
+   * @param loader loads the {@link Recipe} on a miss, returns {@code null} when it does not exist
+   * @return a copy of the {@link Recipe}, {@code null} when it does not exist
+   */
+  public Recipe get(String recipeId, Function<String, Recipe> loader) {
+    return copy(cache.get(recipeId, loader));
+  }
+
+  /**
+   * Keeps the cache in line with the database. A saved recipe only refreshes the cached one, so a bulk import does not
+   * fill the cache with recipes nobody reads. A saved recipe without a version, as written by a bulk replace, is
+   * evicted instead since its stored version is unknown.
+   */
+  @EventListener
+  public void onRecipeChanged(RecipeChangedEvent event) {
+    switch (event.getType()) {
+      case SAVED:
+        if (event.getRecipe().getVersion() == null) {
+          cache.invalidate(event.getRecipeId());
+        } else {
+          cache.asMap().computeIfPresent(event.getRecipeId(), (id, cached) -> copy(event.getRecipe()));
+        }
+        break;
+      case DELETED:
+        cache.invalidate(event.getRecipeId());
+        break;
+      case CLEARED:
+      case STALE:
+        cache.invalidateAll();
+        break;
+      default:
+    }
+  }
+
+  /**
+   * @return the hit, miss and eviction counters of the cache
+   */
+  public RecipeCacheStatistics statistics() {
+    CacheStats stats = cache.stats();
+    return new RecipeCacheStatistics(cache.estimatedSize(), stats.hitCount(), stats.missCount(), stats.evictionCount(),
+      stats.hitRate());
+  }
+
+  private static Recipe copy(Recipe recipe) {
+    if (recipe == null) {
+      return null;
+    }
+    return recipe.toBuilder()
+      .ingredients(recipe.getIngredients() == null ? null : new HashSet<>(recipe.getIngredients()))
+      .build();
+  }
+}
@@ -0,0 +1,21 @@
+package com.abn.recipes.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The JSON of a recipe as written in responses, and its gzip encoding when it was worth compressing.
+ */
+@Getter
+@AllArgsConstructor
+public class SerializedRecipe {
+
+  private final Long version;
+
+  private final byte[] json;
+
+  /**
+   * The gzip encoded {@link #json}, {@code null} when it is too small to be compressed.
+   */
+  private final byte[] gzip;
+}
@@ -0,0 +1,119 @@
+package com.abn.recipes.cache;
+
+import com.abn.recipes.domain.Recipe;
+import com.abn.recipes.events.RecipeChangedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded cache of the response bytes of the most read recipes, so that reading a recipe by id writes ready made JSON,
+ * or gzip, instead of serializing and compressing the recipe on every request.
+ * <p>
+ * Enabled with {@code recipes.cache.serialized.enabled}. The cache admits the recipes by how often they are read, and
+ * an entry is serialized again only when its recipe is saved, which every write path announces with a
+ * {@link RecipeChangedEvent}.
+ */
+@Component
+public class SerializedRecipeCache {
+
+  private final ObjectWriter writer;
+
+  private final boolean enabled;
+
+  private final int gzipMinSize;
+
+  private final Cache<String, SerializedRecipe> cache;
+
+  public SerializedRecipeCache(
+    ObjectMapper objectMapper,
+    @Value("${recipes.cache.serialized.enabled:false}") boolean enabled,
+    @Value("${recipes.cache.serialized.maximum-size:1000}") long maximumSize,
+    @Value("${recipes.cache.serialized.gzip-min-size:1024}") int gzipMinSize,
+    @Value("${recipes.cache.expire-after-write:10m}") Duration expireAfterWrite
+  ) {
+    this.writer = objectMapper.writerFor(Recipe.class);
+    this.enabled = enabled;
+    this.gzipMinSize = gzipMinSize;
+    this.cache = Caffeine.newBuilder()
+      .maximumSize(maximumSize)
+      .expireAfterWrite(expireAfterWrite)
+      .build();
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Gets the {@link SerializedRecipe} for the given id, loading and serializing the recipe on a miss.
+   *
+   * @param recipeId the id of the {@link Recipe}
+   * @param loader loads the {@link Recipe} on a miss, returns {@code null} when it does not exist
+   * @return the {@link SerializedRecipe}, {@code null} when it does not exist
+   */
+  public SerializedRecipe get(String recipeId, Function<String, Recipe> loader) {
+    return cache.get(recipeId, id -> {
+      Recipe recipe = loader.apply(id);
+      return recipe == null ? null : serialize(recipe);
+    });
+  }
+
+  /**
+   * Serializes a cached recipe again when it is saved. Like in the {@link RecipeCache}, a saved recipe without a version
+   * is evicted instead.
+   */
+  @EventListener
+  public void onRecipeChanged(RecipeChangedEvent event) {
+    if (!enabled) {
+      return;
+    }
+    switch (event.getType()) {
+      case SAVED:
+        if (event.getRecipe().getVersion() == null) {
+          cache.invalidate(event.getRecipeId());
+        } else {
+          cache.asMap().computeIfPresent(event.getRecipeId(), (id, serialized) -> serialize(event.getRecipe()));
+        }
+        break;
+      case DELETED:
+        cache.invalidate(event.getRecipeId());
+        break;
+      case CLEARED:
+      case STALE:
+        cache.invalidateAll();
+        break;
+      default:
+    }
+  }
+
+  private SerializedRecipe serialize(Recipe recipe) {
+    try {
+      byte[] json = writer.writeValueAsBytes(recipe);
+      return new SerializedRecipe(recipe.getVersion(), json, json.length < gzipMinSize ? null : gzip(json));
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static byte[] gzip(byte[] json) {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 2);
+    try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+      gzip.write(json);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return compressed.toByteArray();
+  }
+}
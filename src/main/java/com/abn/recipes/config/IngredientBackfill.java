@@ -0,0 +1,84 @@
+package com.abn.recipes.config;
+
+import com.abn.recipes.domain.RecipeDTO;
+import com.abn.recipes.index.IngredientDictionary;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonType;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rewrites the ingredients of the recipes stored before ingredients were stored by their canonical name at startup,
+ * since the {@code includes} and {@code excludes} filters only match canonical names. A rewritten recipe gets a new
+ * version, its ingredients are returned differently. A recipe updated since it was read is left to its update, which
+ * stores canonical names.
+ */
+@Slf4j
+@Component
+public class IngredientBackfill {
+
+  private static final String INGREDIENTS = "ingredients";
+
+  private final MongoTemplate mongoTemplate;
+
+  private final IngredientDictionary dictionary;
+
+  private final int batchSize;
+
+  public IngredientBackfill(MongoTemplate mongoTemplate, IngredientDictionary dictionary,
+    @Value("${recipes.bulk.batch-size:1000}") int batchSize) {
+    this.mongoTemplate = mongoTemplate;
+    this.dictionary = dictionary;
+    this.batchSize = batchSize;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void backfillIngredients() {
+    MongoCollection<Document> recipes = mongoTemplate.getCollection(mongoTemplate.getCollectionName(RecipeDTO.class));
+    List<WriteModel<Document>> updates = new ArrayList<>();
+    long rewritten = 0;
+    try (MongoCursor<Document> cursor = recipes.find(Filters.type(INGREDIENTS, BsonType.ARRAY))
+      .projection(Projections.include(INGREDIENTS)).cursor()) {
+      while (cursor.hasNext()) {
+        Document recipe = cursor.next();
+        List<String> stored = recipe.getList(INGREDIENTS, String.class);
+        List<String> canonical = new ArrayList<>(dictionary.canonical(stored));
+        if (canonical.equals(stored)) {
+          continue;
+        }
+        updates.add(new UpdateOneModel<>(
+          Filters.and(Filters.eq("_id", recipe.get("_id")), Filters.eq(INGREDIENTS, stored)),
+          Updates.combine(Updates.set(INGREDIENTS, canonical), Updates.inc("version", 1L))));
+        if (updates.size() == batchSize) {
+          rewritten += write(recipes, updates);
+        }
+      }
+    }
+    if (!updates.isEmpty()) {
+      rewritten += write(recipes, updates);
+    }
+    if (rewritten > 0) {
+      log.info("Stored the canonical ingredients of {} recipes", rewritten);
+    }
+  }
+
+  private static long write(MongoCollection<Document> recipes, List<WriteModel<Document>> updates) {
+    long modified = recipes.bulkWrite(updates, new BulkWriteOptions().ordered(false)).getModifiedCount();
+    updates.clear();
+    return modified;
+  }
+}
@@ -1,17 +1,66 @@
 package com.abn.recipes.config;
 
+import com.abn.recipes.utils.BinaryMediaType;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.boot.web.codec.CodecCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 
+/**
+ * The Jackson settings of the application, shared by the JSON {@link ObjectMapper} and the CBOR and Smile ones used for
+ * the binary encodings of the recipes.
+ */
 @Configuration
 public class JacksonConfig {
 
   @Bean
   public ObjectMapper objectMapper() {
-    return new ObjectMapper()
+    return configure(new ObjectMapper());
+  }
+
+  public ObjectMapper cborObjectMapper() {
+    return configure(new ObjectMapper(new CBORFactory()));
+  }
+
+  public ObjectMapper smileObjectMapper() {
+    return configure(new ObjectMapper(new SmileFactory()));
+  }
+
+  @Bean
+  public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter() {
+    return new MappingJackson2CborHttpMessageConverter(cborObjectMapper());
+  }
+
+  @Bean
+  public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter() {
+    return new MappingJackson2SmileHttpMessageConverter(smileObjectMapper());
+  }
+
+  /**
+   * Configures the Smile codecs of the reactive mode. The reactive mode has no CBOR codec since the CBOR encoder of
+   * WebFlux cannot write response bodies.
+   */
+  @Bean
+  public CodecCustomizer smileCodecCustomizer() {
+    ObjectMapper smileObjectMapper = smileObjectMapper();
+    return configurer -> {
+      configurer.defaultCodecs()
+        .jackson2SmileEncoder(new Jackson2SmileEncoder(smileObjectMapper, BinaryMediaType.APPLICATION_SMILE));
+      configurer.defaultCodecs()
+        .jackson2SmileDecoder(new Jackson2SmileDecoder(smileObjectMapper, BinaryMediaType.APPLICATION_SMILE));
+    };
+  }
+
+  private static ObjectMapper configure(ObjectMapper objectMapper) {
+    return objectMapper
       .setDefaultPropertyInclusion(Include.NON_NULL)
       .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
       .findAndRegisterModules();
@@ -0,0 +1,53 @@
+package com.abn.recipes.config;
+
+import com.abn.recipes.metrics.RecipeMetrics;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.boot.actuate.metrics.web.reactive.server.WebFluxTagsContributor;
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTagsContributor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Tags the {@code http.server.requests} metrics with the kind of filters of the request, in both deployment modes, so
+ * that the latency of a search can be told apart by the filters it used.
+ */
+@Configuration
+public class MetricsConfig {
+
+  @Configuration
+  @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+  static class ServletMetricsConfig {
+
+    @Bean
+    public WebMvcTagsContributor filtersTagsContributor() {
+      return new WebMvcTagsContributor() {
+
+        @Override
+        public Iterable<Tag> getTags(HttpServletRequest request, HttpServletResponse response, Object handler,
+          Throwable exception) {
+          return Tags.of(RecipeMetrics.FILTERS_TAG, RecipeMetrics.filters(request.getParameterMap().keySet()));
+        }
+
+        @Override
+        public Iterable<Tag> getLongRequestTags(HttpServletRequest request, Object handler) {
+          return Tags.of(RecipeMetrics.FILTERS_TAG, RecipeMetrics.filters(request.getParameterMap().keySet()));
+        }
+      };
+    }
+  }
+
+  @Configuration
+  @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+  static class ReactiveMetricsConfig {
+
+    @Bean
+    public WebFluxTagsContributor filtersTagsContributor() {
+      return (exchange, exception) -> Tags.of(RecipeMetrics.FILTERS_TAG,
+        RecipeMetrics.filters(exchange.getRequest().getQueryParams().keySet()));
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package com.abn.recipes.config;
+
+import com.abn.recipes.domain.RecipeDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+/**
+ * Creates the indexes declared on {@link RecipeDTO} at startup, since automatic index creation is off by default.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class MongoIndexConfig {
+
+  private final MongoTemplate mongoTemplate;
+
+  private final MongoMappingContext mappingContext;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void ensureIndexes() {
+    IndexOperations indexOperations = mongoTemplate.indexOps(RecipeDTO.class);
+    new MongoPersistentEntityIndexResolver(mappingContext)
+      .resolveIndexFor(RecipeDTO.class)
+      .forEach(indexOperations::ensureIndex);
+  }
+}
@@ -0,0 +1,26 @@
+package com.abn.recipes.config;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Sizes the connection pool of the Mongo clients. The driver defaults to 100 connections and a two minute wait for one,
+ * which is only right while the request threads bound the number of concurrent database calls.
+ */
+@Configuration
+public class MongoPoolConfig {
+
+  @Bean
+  public MongoClientSettingsBuilderCustomizer connectionPoolCustomizer(
+    @Value("${recipes.mongo.pool.max-size:100}") int maxSize,
+    @Value("${recipes.mongo.pool.max-wait:2m}") Duration maxWait
+  ) {
+    return settings -> settings.applyToConnectionPoolSettings(pool -> pool
+      .maxSize(maxSize)
+      .maxWaitTime(maxWait.toMillis(), TimeUnit.MILLISECONDS));
+  }
+}
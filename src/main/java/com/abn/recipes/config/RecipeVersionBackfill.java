@@ -0,0 +1,34 @@
+package com.abn.recipes.config;
+
+import com.abn.recipes.domain.RecipeDTO;
+import com.mongodb.client.result.UpdateResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sets version 0 on the recipes stored before recipes were versioned at startup, since saving a recipe without a
+ * version inserts it as a new document instead of updating it.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RecipeVersionBackfill {
+
+  private final MongoTemplate mongoTemplate;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void backfillVersions() {
+    UpdateResult result = mongoTemplate.updateMulti(Query.query(Criteria.where("version").exists(false)),
+      new Update().set("version", 0L), RecipeDTO.class);
+    if (result.getModifiedCount() > 0) {
+      log.info("Set the initial version of {} recipes", result.getModifiedCount());
+    }
+  }
+}
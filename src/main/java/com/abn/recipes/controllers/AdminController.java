@@ -0,0 +1,58 @@
+package com.abn.recipes.controllers;
+
+import com.abn.recipes.cache.RecipeCache;
+import com.abn.recipes.cache.RecipeCacheStatistics;
+import com.abn.recipes.index.QueryShapeRecorder;
+import com.abn.recipes.index.QueryShapeReport;
+import com.abn.recipes.index.SlowQuery;
+import com.abn.recipes.index.SlowQueryLog;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+
+  @Autowired
+  private RecipeCache recipeCache;
+
+  @Autowired
+  private QueryShapeRecorder queryShapeRecorder;
+
+  @Autowired
+  private SlowQueryLog slowQueryLog;
+
+  /**
+   * Gets the statistics of the recipe cache.
+   *
+   * @return the {@link RecipeCacheStatistics}
+   */
+  @GetMapping("/cache")
+  public ResponseEntity<RecipeCacheStatistics> getCacheStatistics() {
+    return ResponseEntity.ok(recipeCache.statistics());
+  }
+
+  /**
+   * Gets the shapes of the recipe queries received since startup, with the index supporting each of them.
+   *
+   * @return the {@link QueryShapeReport}s, most frequent first
+   */
+  @GetMapping("/query-shapes")
+  public ResponseEntity<List<QueryShapeReport>> getQueryShapes() {
+    return ResponseEntity.ok(queryShapeRecorder.report());
+  }
+
+  /**
+   * Gets the recent recipe searches slower than the slow query threshold, with the plan the database ran them with.
+   *
+   * @return the {@link SlowQuery}s, most recent first
+   */
+  @GetMapping("/slow-queries")
+  public ResponseEntity<List<SlowQuery>> getSlowQueries() {
+    return ResponseEntity.ok(slowQueryLog.recent());
+  }
+}
@@ -0,0 +1,236 @@
+package com.abn.recipes.controllers;
+
+import static com.abn.recipes.controllers.RecipeETags.ifMatchVersion;
+import static com.abn.recipes.controllers.RecipeETags.withETag;
+
+import com.abn.recipes.domain.Recipe;
+import com.abn.recipes.domain.RecipeCount;
+import com.abn.recipes.domain.RecipeFacets;
+import com.abn.recipes.services.ReactiveRecipeService;
+import com.abn.recipes.utils.PatchMediaType;
+import com.abn.recipes.utils.RecipeProjection;
+import com.abn.recipes.utils.SearchCriteriaBuilder;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.JsonMergePatch;
+import javax.json.JsonPatch;
+import javax.json.JsonReader;
+import javax.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The {@link RecipeController} of the reactive deployment mode, active when the application runs as a reactive web
+ * application.
+ */
+@RestController
+@RequestMapping("/recipes")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveRecipeController {
+
+  @Autowired
+  private ReactiveRecipeService recipeService;
+
+  /**
+   * Gets the recipes for given id, with its version as ETag. Answers 304 when the ETag matches {@code If-None-Match}.
+   *
+   * @param recipeId the recipeId
+   * @param params the request params, {@code fields} to only return some fields of the recipe
+   * @return the {@link Recipe}
+   */
+  @GetMapping("/{id}")
+  public Mono<ResponseEntity<Recipe>> getRecipesById(@PathVariable(value = "id") String recipeId,
+    @RequestParam MultiValueMap<String, String> params) {
+    Set<String> fields = SearchCriteriaBuilder.fields(params);
+    return recipeService.findRecipeById(recipeId)
+      .map(recipe -> withETag(ResponseEntity.ok(), recipe).body(RecipeProjection.project(recipe, fields)));
+  }
+
+  /**
+   * Gets all the recipes including filters.
+   *
+   * @param filters the params map to filter
+   * @return the list of {@link Recipe}
+   */
+  @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+  public Mono<ResponseEntity<List<Recipe>>> getRecipes(@RequestParam MultiValueMap<String, String> filters) {
+    return recipeService.getFilteredRecipes(filters)
+      .collectList()
+      .map(recipes -> recipes.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(recipes));
+  }
+
+  /**
+   * Checks whether any recipe matches the filters without reading the recipes, answering 200 when one does and 204
+   * otherwise. With {@code total=true} the recipes are counted and the number is sent in the
+   * {@value RecipeController#TOTAL_COUNT_HEADER} header.
+   *
+   * @param filters the params map to filter
+   * @param total whether to count the matching recipes
+   * @return the response without a body
+   */
+  @RequestMapping(method = RequestMethod.HEAD)
+  public Mono<ResponseEntity<Void>> headRecipes(@RequestParam MultiValueMap<String, String> filters,
+    @RequestParam(defaultValue = "false") boolean total) {
+    if (!total) {
+      return recipeService.existsRecipes(filters)
+        .map(exists -> exists ? ResponseEntity.ok().<Void>build() : ResponseEntity.noContent().<Void>build());
+    }
+    return recipeService.countRecipes(filters)
+      .map(count -> (count > 0 ? ResponseEntity.ok() : ResponseEntity.noContent())
+        .header(RecipeController.TOTAL_COUNT_HEADER, String.valueOf(count))
+        .<Void>build());
+  }
+
+  /**
+   * Counts the recipes including filters without reading them.
+   *
+   * @param filters the params map to filter
+   * @return the {@link RecipeCount}, whose number is also sent in the {@value RecipeController#TOTAL_COUNT_HEADER}
+   *   header
+   */
+  @GetMapping("/_count")
+  public Mono<ResponseEntity<RecipeCount>> countRecipes(@RequestParam MultiValueMap<String, String> filters) {
+    return recipeService.countRecipes(filters)
+      .map(count -> ResponseEntity.ok()
+        .header(RecipeController.TOTAL_COUNT_HEADER, String.valueOf(count))
+        .body(new RecipeCount(count)));
+  }
+
+  /**
+   * Streams all the recipes including filters as newline delimited JSON, one recipe per line. Recipes are read from the
+   * database cursor only as fast as the client consumes them.
+   *
+   * @param filters the params map to filter
+   * @return the streamed {@link Recipe}s
+   */
+  @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public Flux<Recipe> streamRecipes(@RequestParam MultiValueMap<String, String> filters) {
+    return recipeService.getFilteredRecipes(filters);
+  }
+
+  /**
+   * Counts the recipes including filters per category, servings bucket and ingredient.
+   *
+   * @param filters the params map to filter
+   * @return the {@link RecipeFacets}
+   */
+  @GetMapping("/_facets")
+  public Mono<RecipeFacets> getFacets(@RequestParam MultiValueMap<String, String> filters) {
+    return recipeService.getFacets(filters);
+  }
+
+  /**
+   * Creates the new recipe.
+   *
+   * @param recipe {@link Recipe}
+   * @return created {@link Recipe}
+   */
+  @PostMapping
+  public Mono<ResponseEntity<Recipe>> createRecipe(@RequestBody Recipe recipe) {
+    return recipeService.save(recipe)
+      .map(savedRecipe -> withETag(ResponseEntity.status(HttpStatus.CREATED), savedRecipe).body(savedRecipe));
+  }
+
+  /**
+   * Updates the {@link Recipe}.
+   *
+   * @param recipeId the {@link Recipe} id
+   * @param recipeDetails the {@link Recipe} details
+   * @param ifMatch the ETag of the version the update is based on
+   * @return the success response with updated {@link Recipe}
+   */
+  @PutMapping("/{id}")
+  public Mono<ResponseEntity<Recipe>> updateRecipe(@PathVariable(value = "id") String recipeId,
+    @Valid @RequestBody Recipe recipeDetails, @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    return recipeService.updateRecipe(recipeId, recipeDetails, ifMatchVersion(ifMatch))
+      .map(recipe -> withETag(ResponseEntity.ok(), recipe).body(recipe));
+  }
+
+  /**
+   * Updates the {@link Recipe} using patch.
+   *
+   * @param recipeId the {@link Recipe} id
+   * @param body the JSON Patch document
+   * @param ifMatch the ETag of the version the patch is based on
+   * @return the success response.
+   */
+  @PatchMapping(path = "/{id}", consumes = PatchMediaType.APPLICATION_JSON_PATCH_VALUE)
+  public Mono<ResponseEntity<Void>> updateRecipe(@PathVariable(value = "id") String recipeId, @RequestBody Mono<String> body,
+    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    return body
+      .map(document -> read(document, reader -> Json.createPatch(reader.readArray())))
+      .flatMap(recipePatch -> recipeService.saveJsonPatch(recipeId, recipePatch, ifMatchVersion(ifMatch)))
+      .map(recipe -> withETag(ResponseEntity.status(HttpStatus.NO_CONTENT), recipe).build());
+  }
+
+  /**
+   * Updates the {@link Recipe} using merge patch.
+   *
+   * @param recipeId the {@link Recipe} id
+   * @param body the JSON Merge Patch document
+   * @param ifMatch the ETag of the version the patch is based on
+   * @return the success response.
+   */
+  @PatchMapping(path = "/{id}", consumes = PatchMediaType.APPLICATION_MERGE_PATCH_VALUE)
+  public Mono<ResponseEntity<Void>> updateContact(@PathVariable(value = "id") String recipeId, @RequestBody Mono<String> body,
+    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    return body
+      .map(document -> read(document, reader -> Json.createMergePatch(reader.readValue())))
+      .flatMap(recipePatch -> recipeService.saveMergePatch(recipeId, recipePatch, ifMatchVersion(ifMatch)))
+      .map(recipe -> withETag(ResponseEntity.status(HttpStatus.NO_CONTENT), recipe).build());
+  }
+
+  /**
+   * Deletes the {@link Recipe} for given recipe id.
+   *
+   * @param recipeId  the recipeId to delete
+   */
+  @DeleteMapping("/{id}")
+  public Mono<ResponseEntity<Void>> deleteRecipe(@PathVariable(value = "id") String recipeId) {
+    return recipeService.deleteRecipeById(recipeId).thenReturn(ResponseEntity.noContent().build());
+  }
+
+  /**
+   * Deletes the all the {@link Recipe}.
+   */
+  @DeleteMapping
+  public Mono<ResponseEntity<Void>> deleteAllRecipes() {
+    return recipeService.deleteAllRecipes().thenReturn(ResponseEntity.noContent().build());
+  }
+
+  /**
+   * Reads a {@link JsonPatch} or {@link JsonMergePatch} from the request body, which the reactive stack has no decoder
+   * for. The body is already buffered, so reading it does not block.
+   */
+  private static <T> T read(String document, Function<JsonReader, T> read) {
+    try (JsonReader reader = Json.createReader(new StringReader(document))) {
+      return read.apply(reader);
+    } catch (JsonException | IllegalStateException e) {
+      throw new ServerWebInputException(e.getMessage());
+    }
+  }
+}
@@ -1,17 +1,44 @@
 package com.abn.recipes.controllers;
 
+import static com.abn.recipes.controllers.RecipeETags.ifMatchVersion;
+import static com.abn.recipes.controllers.RecipeETags.withETag;
+import static com.abn.recipes.controllers.RecipeETags.withGzipETag;
+
+import com.abn.recipes.cache.SerializedRecipe;
+import com.abn.recipes.cache.SerializedRecipeCache;
+import com.abn.recipes.domain.BulkResult;
 import com.abn.recipes.domain.Recipe;
+import com.abn.recipes.domain.RecipeCount;
+import com.abn.recipes.domain.RecipeFacets;
+import com.abn.recipes.domain.RecipePage;
 import com.abn.recipes.exception.ResourceNotFoundException;
 import com.abn.recipes.services.RecipeService;
+import com.abn.recipes.utils.BinaryMediaType;
 import com.abn.recipes.utils.PatchMediaType;
-import java.util.ArrayList;
+import com.abn.recipes.utils.RecipeProjection;
+import com.abn.recipes.utils.SearchCriteriaBuilder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.stream.Stream;
 import javax.json.JsonMergePatch;
 import javax.json.JsonPatch;
 import javax.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -20,43 +47,171 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/recipes")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class RecipeController {
 
+  static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+  static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
   @Autowired
   private RecipeService recipeService;
 
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private MappingJackson2CborHttpMessageConverter cborConverter;
+
+  @Autowired
+  private MappingJackson2SmileHttpMessageConverter smileConverter;
+
+  @Autowired
+  private SerializedRecipeCache serializedRecipeCache;
+
+  @Value("${recipes.page.default-size:50}")
+  private int defaultPageSize;
+
+  @Value("${recipes.page.max-size:1000}")
+  private int maxPageSize;
+
   /**
-   * Gets the recipes for given id.
+   * Gets the recipes for given id, with its version as ETag. Answers 304 when the ETag matches {@code If-None-Match}.
+   * <p>
+   * When the {@link SerializedRecipeCache} is enabled and the client prefers JSON, the whole recipe is written from its
+   * cached JSON, gzip encoded when the client accepts it and the recipe was large enough to be compressed. The gzip
+   * encoded recipe has its own ETag, its version with a {@value RecipeETags#GZIP_SUFFIX} suffix.
    *
    * @param recipeId the recipeId
+   * @param params the request params, {@code fields} to only return some fields of the recipe
+   * @param accept the {@code Accept} header
+   * @param acceptEncoding the {@code Accept-Encoding} header
    * @return the {@link Recipe}
    * @throws ResourceNotFoundException
    */
   @GetMapping("/{id}")
-  public ResponseEntity<Recipe> getRecipesById(@PathVariable(value = "id") String recipeId)
+  public ResponseEntity<?> getRecipesById(@PathVariable(value = "id") String recipeId,
+    @RequestParam MultiValueMap<String, String> params,
+    @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+    @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding)
     throws ResourceNotFoundException {
-    return ResponseEntity.ok(recipeService.findRecipeById(recipeId));
+    if (serializedRecipeCache.isEnabled() && !params.containsKey("fields") && prefersJson(accept)) {
+      return getSerializedRecipe(recipeId, acceptsGzip(acceptEncoding));
+    }
+    Recipe recipe = recipeService.findRecipeById(recipeId);
+    return withETag(ResponseEntity.ok(), recipe).body(RecipeProjection.project(recipe, SearchCriteriaBuilder.fields(params)));
   }
 
   /**
    * Gets all the recipes including filters.
+   * <p>
+   * When {@code size} or {@code after} is given only one page ordered by id is returned and the
+   * id to continue from is sent in the {@value #NEXT_CURSOR_HEADER} header. With {@code total=true} the number of
+   * recipes matching the filters on all the pages is counted and sent in the {@value #TOTAL_COUNT_HEADER} header.
    *
    * @param filters the params map to filter
+   * @param size the page size
+   * @param after the id of the last recipe of the previous page
+   * @param total whether to count the recipes of all the pages
    * @return the list of {@link Recipe}
    */
   @GetMapping
-  public ResponseEntity<List<Recipe>> getRecipes(@RequestParam MultiValueMap<String, String> filters) {
-    List<Recipe> recipes = new ArrayList<>();
-    recipes.addAll(filters.isEmpty() ? recipeService.getAllRecipes() : recipeService.getFilteredRecipe(filters));
+  public ResponseEntity<List<Recipe>> getRecipes(@RequestParam MultiValueMap<String, String> filters,
+    @RequestParam(required = false) Integer size, @RequestParam(required = false) String after,
+    @RequestParam(defaultValue = "false") boolean total) {
+    if (size != null || after != null) {
+      RecipePage page = recipeService.getRecipePage(filters, after, pageSize(size));
+      if (page.getRecipes().isEmpty()) {
+        return withTotal(ResponseEntity.status(HttpStatus.NO_CONTENT), filters, total).build();
+      }
+      ResponseEntity.BodyBuilder response = withTotal(ResponseEntity.ok(), filters, total);
+      if (page.getNext() != null) {
+        response.header(NEXT_CURSOR_HEADER, page.getNext());
+      }
+      return response.body(page.getRecipes());
+    }
+    List<Recipe> recipes = filters.isEmpty() ? recipeService.getAllRecipes() : recipeService.getFilteredRecipe(filters);
     return recipes.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(recipes);
   }
 
+  /**
+   * Checks whether any recipe matches the filters without reading the recipes, answering 200 when one does and 204
+   * otherwise, like {@code GET}. With {@code total=true} the recipes are counted instead and the number is sent in the
+   * {@value #TOTAL_COUNT_HEADER} header.
+   *
+   * @param filters the params map to filter
+   * @param total whether to count the matching recipes
+   * @return the response without a body
+   */
+  @RequestMapping(method = RequestMethod.HEAD)
+  public ResponseEntity<Void> headRecipes(@RequestParam MultiValueMap<String, String> filters,
+    @RequestParam(defaultValue = "false") boolean total) {
+    if (!total) {
+      return recipeService.existsRecipes(filters) ? ResponseEntity.ok().build() : ResponseEntity.noContent().build();
+    }
+    long count = recipeService.countRecipes(filters);
+    return (count > 0 ? ResponseEntity.ok() : ResponseEntity.noContent())
+      .header(TOTAL_COUNT_HEADER, String.valueOf(count))
+      .build();
+  }
+
+  /**
+   * Counts the recipes including filters without reading them. The number is also sent in the
+   * {@value #TOTAL_COUNT_HEADER} header.
+   *
+   * @param filters the params map to filter
+   * @return the {@link RecipeCount}
+   */
+  @GetMapping("/_count")
+  public ResponseEntity<RecipeCount> countRecipes(@RequestParam MultiValueMap<String, String> filters) {
+    long count = recipeService.countRecipes(filters);
+    return ResponseEntity.ok().header(TOTAL_COUNT_HEADER, String.valueOf(count)).body(new RecipeCount(count));
+  }
+
+  /**
+   * Streams all the recipes including filters as newline delimited JSON, one recipe per line,
+   * straight from the database cursor.
+   *
+   * @param filters the params map to filter
+   * @return the streamed {@link Recipe}s
+   */
+  @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> streamRecipes(@RequestParam MultiValueMap<String, String> filters) {
+    StreamingResponseBody body = outputStream -> {
+      ObjectWriter writer = objectMapper.writerFor(Recipe.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+      try (Stream<Recipe> recipes = recipeService.streamRecipes(filters);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        for (Recipe recipe : (Iterable<Recipe>) recipes::iterator) {
+          writer.writeValue(generator, recipe);
+          generator.writeRaw('\n');
+        }
+      }
+    };
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+  }
+
+  /**
+   * Counts the recipes including filters per category, servings bucket and ingredient.
+   *
+   * @param filters the params map to filter
+   * @return the {@link RecipeFacets}
+   */
+  @GetMapping("/_facets")
+  public ResponseEntity<RecipeFacets> getFacets(@RequestParam MultiValueMap<String, String> filters) {
+    return ResponseEntity.ok(recipeService.getFacets(filters));
+  }
+
   /**
    * Creates the new recipe.
    *
@@ -65,7 +220,32 @@ public class RecipeController {
    */
   @PostMapping
   public ResponseEntity<Recipe> createRecipe(@RequestBody Recipe recipe) {
-    return new ResponseEntity<>(recipeService.save(recipe), HttpStatus.CREATED);
+    Recipe savedRecipe = recipeService.save(recipe);
+    return withETag(ResponseEntity.status(HttpStatus.CREATED), savedRecipe).body(savedRecipe);
+  }
+
+  /**
+   * Creates or replaces many {@link Recipe}s from a JSON array or NDJSON body, or from a CBOR or Smile array or sequence
+   * of recipes, read one recipe at a time.
+   *
+   * @param body the request body
+   * @param contentType the media type of the body
+   * @return the {@link BulkResult} with the outcome of every recipe
+   * @throws IOException when the body cannot be read
+   */
+  @PostMapping(path = "/_bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+    BinaryMediaType.APPLICATION_CBOR_VALUE, BinaryMediaType.APPLICATION_SMILE_VALUE })
+  public ResponseEntity<BulkResult> bulkSaveRecipes(InputStream body,
+    @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType) throws IOException {
+    ObjectMapper mapper = objectMapper;
+    if (BinaryMediaType.APPLICATION_CBOR.isCompatibleWith(contentType)) {
+      mapper = cborConverter.getObjectMapper();
+    } else if (BinaryMediaType.APPLICATION_SMILE.isCompatibleWith(contentType)) {
+      mapper = smileConverter.getObjectMapper();
+    }
+    try (MappingIterator<Recipe> recipes = mapper.readerFor(Recipe.class).readValues(body)) {
+      return ResponseEntity.ok(recipeService.saveAll(recipes));
+    }
   }
 
   /**
@@ -73,13 +253,15 @@ public class RecipeController {
    *
    * @param recipeId the {@link Recipe} id
    * @param recipeDetails the {@link Recipe} details
+   * @param ifMatch the ETag of the version the update is based on
    * @return the success response with updated {@link Recipe}
    * @throws ResourceNotFoundException
    */
   @PutMapping("/{id}")
-  public ResponseEntity<Recipe> updateRecipe(@PathVariable(value = "id") String recipeId, @Valid @RequestBody Recipe recipeDetails)
-    throws ResourceNotFoundException {
-    return ResponseEntity.ok(recipeService.updateRecipe(recipeId, recipeDetails));
+  public ResponseEntity<Recipe> updateRecipe(@PathVariable(value = "id") String recipeId, @Valid @RequestBody Recipe recipeDetails,
+    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) throws ResourceNotFoundException {
+    Recipe recipe = recipeService.updateRecipe(recipeId, recipeDetails, ifMatchVersion(ifMatch));
+    return withETag(ResponseEntity.ok(), recipe).body(recipe);
   }
 
   /**
@@ -87,14 +269,15 @@ public class RecipeController {
    *
    * @param recipeId the {@link Recipe} id
    * @param recipeDetails the recipePatch to update
+   * @param ifMatch the ETag of the version the patch is based on
    * @return the success response.
    * @throws ResourceNotFoundException
    */
   @PatchMapping(path = "/{id}", consumes = PatchMediaType.APPLICATION_JSON_PATCH_VALUE)
-  public ResponseEntity<Void> updateRecipe(@PathVariable(value = "id") String recipeId, @RequestBody JsonPatch recipePatch)
-    throws ResourceNotFoundException {
-    recipeService.saveJsonPatch(recipeId, recipePatch);
-    return ResponseEntity.noContent().build();
+  public ResponseEntity<Void> updateRecipe(@PathVariable(value = "id") String recipeId, @RequestBody JsonPatch recipePatch,
+    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) throws ResourceNotFoundException {
+    Recipe recipe = recipeService.saveJsonPatch(recipeId, recipePatch, ifMatchVersion(ifMatch));
+    return withETag(ResponseEntity.status(HttpStatus.NO_CONTENT), recipe).build();
   }
 
   /**
@@ -102,14 +285,15 @@ public class RecipeController {
    *
    * @param recipeId the {@link Recipe} id
    * @param recipeDetails the recipePatch to merge
+   * @param ifMatch the ETag of the version the patch is based on
    * @return the success response.
    * @throws ResourceNotFoundException
    */
   @PatchMapping(path = "/{id}", consumes = PatchMediaType.APPLICATION_MERGE_PATCH_VALUE)
-  public ResponseEntity<Void> updateContact(@PathVariable(value = "id") String recipeId, @RequestBody JsonMergePatch recipePatch)
-    throws ResourceNotFoundException {
-    recipeService.saveMergePatch(recipeId, recipePatch);
-    return ResponseEntity.noContent().build();
+  public ResponseEntity<Void> updateContact(@PathVariable(value = "id") String recipeId, @RequestBody JsonMergePatch recipePatch,
+    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) throws ResourceNotFoundException {
+    Recipe recipe = recipeService.saveMergePatch(recipeId, recipePatch, ifMatchVersion(ifMatch));
+    return withETag(ResponseEntity.status(HttpStatus.NO_CONTENT), recipe).build();
   }
 
   /**
@@ -131,4 +315,77 @@ public class RecipeController {
     recipeService.deleteAllRecipes();
     return ResponseEntity.noContent().build();
   }
+
+  /**
+   * Counts the recipes matching the filters into the {@value #TOTAL_COUNT_HEADER} header, only when asked to.
+   */
+  private ResponseEntity.BodyBuilder withTotal(ResponseEntity.BodyBuilder response,
+    MultiValueMap<String, String> filters, boolean total) {
+    return total ? response.header(TOTAL_COUNT_HEADER, String.valueOf(recipeService.countRecipes(filters))) : response;
+  }
+
+  private int pageSize(Integer size) {
+    if (size == null) {
+      return defaultPageSize;
+    }
+    return Math.max(1, Math.min(size, maxPageSize));
+  }
+
+  private ResponseEntity<byte[]> getSerializedRecipe(String recipeId, boolean gzip) throws ResourceNotFoundException {
+    SerializedRecipe serialized = serializedRecipeCache.get(recipeId, id -> {
+      try {
+        return recipeService.findRecipeById(id);
+      } catch (ResourceNotFoundException e) {
+        return null;
+      }
+    });
+    if (serialized == null) {
+      throw new ResourceNotFoundException("Recipe not found for this id :: " + recipeId);
+    }
+    if (gzip && serialized.getGzip() != null) {
+      return withGzipETag(ResponseEntity.ok(), serialized.getVersion())
+        .contentType(MediaType.APPLICATION_JSON)
+        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+        .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+        .body(serialized.getGzip());
+    }
+    return withETag(ResponseEntity.ok(), serialized.getVersion())
+      .contentType(MediaType.APPLICATION_JSON)
+      .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+      .body(serialized.getJson());
+  }
+
+  /**
+   * @return whether JSON is the preferred media type of the {@code Accept} header
+   */
+  private static boolean prefersJson(String accept) {
+    if (accept == null) {
+      return true;
+    }
+    try {
+      List<MediaType> mediaTypes = MediaType.parseMediaTypes(accept);
+      MediaType.sortBySpecificityAndQuality(mediaTypes);
+      return mediaTypes.isEmpty() || mediaTypes.get(0).isCompatibleWith(MediaType.APPLICATION_JSON);
+    } catch (InvalidMediaTypeException e) {
+      return false;
+    }
+  }
+
+  /**
+   * @return whether the {@code Accept-Encoding} header lists gzip, or any encoding, without a zero quality
+   */
+  private static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parameters = coding.split(";");
+      String name = parameters[0].trim();
+      if (("gzip".equalsIgnoreCase(name) || "*".equals(name))
+        && (parameters.length < 2 || !parameters[1].trim().matches("q=0(\\.0*)?"))) {
+        return true;
+      }
+    }
+    return false;
+  }
 }
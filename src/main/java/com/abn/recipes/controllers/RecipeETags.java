@@ -0,0 +1,55 @@
+package com.abn.recipes.controllers;
+
+import com.abn.recipes.domain.Recipe;
+import com.abn.recipes.exception.PreconditionFailedException;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Maps the version of a {@link Recipe} to and from the ETag of the recipe controllers.
+ */
+final class RecipeETags {
+
+  /**
+   * Suffix of the ETag of the gzip encoded representation, which must not share the strong ETag of the identity one.
+   */
+  static final String GZIP_SUFFIX = "-gzip";
+
+  private RecipeETags() {
+  }
+
+  static ResponseEntity.BodyBuilder withETag(ResponseEntity.BodyBuilder builder, Recipe recipe) {
+    return recipe == null ? builder : withETag(builder, recipe.getVersion());
+  }
+
+  static ResponseEntity.BodyBuilder withETag(ResponseEntity.BodyBuilder builder, Long version) {
+    return version == null ? builder : builder.eTag(String.valueOf(version));
+  }
+
+  static ResponseEntity.BodyBuilder withGzipETag(ResponseEntity.BodyBuilder builder, Long version) {
+    return version == null ? builder : builder.eTag(version + GZIP_SUFFIX);
+  }
+
+  /**
+   * @return the version in the {@code If-Match} ETag, of either representation, {@code null} when the header is absent
+   * or {@code *}
+   * @throws PreconditionFailedException when the ETag cannot be a version of a recipe
+   */
+  static Long ifMatchVersion(String ifMatch) {
+    if (ifMatch == null || "*".equals(ifMatch.trim())) {
+      return null;
+    }
+    String etag = ifMatch.trim();
+    try {
+      if (etag.length() < 2 || etag.charAt(0) != '"' || etag.charAt(etag.length() - 1) != '"') {
+        throw new NumberFormatException(etag);
+      }
+      String version = etag.substring(1, etag.length() - 1);
+      if (version.endsWith(GZIP_SUFFIX)) {
+        version = version.substring(0, version.length() - GZIP_SUFFIX.length());
+      }
+      return Long.valueOf(version);
+    } catch (NumberFormatException e) {
+      throw new PreconditionFailedException("Recipe does not match :: " + ifMatch);
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package com.abn.recipes.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The outcome of one item of a bulk request.
+ */
+@Getter
+@AllArgsConstructor
+@JsonInclude(Include.NON_NULL)
+public class BulkItemResult {
+
+  public enum Status {
+    CREATED,
+    UPDATED,
+    FAILED,
+  }
+
+  /**
+   * The position of the item in the request, starting at 0.
+   */
+  private int index;
+  private String id;
+  private Status status;
+  private String error;
+
+  public static BulkItemResult failed(int index, String id, String error) {
+    return new BulkItemResult(index, id, Status.FAILED, error);
+  }
+}
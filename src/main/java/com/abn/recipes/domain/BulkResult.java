@@ -0,0 +1,33 @@
+package com.abn.recipes.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+
+/**
+ * The outcome of a bulk request, with the counts per status and the result of every item.
+ */
+@Getter
+public class BulkResult {
+
+  private int created;
+  private int updated;
+  private int failed;
+  private final List<BulkItemResult> items = new ArrayList<>();
+
+  public void add(BulkItemResult item) {
+    switch (item.getStatus()) {
+      case CREATED:
+        created++;
+        break;
+      case UPDATED:
+        updated++;
+        break;
+      case FAILED:
+        failed++;
+        break;
+      default:
+    }
+    items.add(item);
+  }
+}
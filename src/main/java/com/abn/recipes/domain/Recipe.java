@@ -1,5 +1,7 @@
 package com.abn.recipes.domain;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonProperty.Access;
 import java.util.Set;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -8,7 +10,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
 
-@Builder
+@Builder(toBuilder = true)
 @Setter
 @Getter
 @NoArgsConstructor
@@ -23,4 +25,14 @@ public class Recipe {
   private Set<String> ingredients;
   private String instructions;
   private Category category;
+
+  /**
+   * The version of the stored recipe, also sent as its ETag. Set by the database, so ignored in request bodies.
+   */
+  @JsonProperty(access = Access.READ_ONLY)
+  private Long version;
+
+  public Recipe(String id, String title, Integer servings, Set<String> ingredients, String instructions, Category category) {
+    this(id, title, servings, ingredients, instructions, category, null);
+  }
 }
@@ -0,0 +1,14 @@
+package com.abn.recipes.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class RecipeCount {
+
+  /**
+   * The number of recipes matching the filters.
+   */
+  private long total;
+}
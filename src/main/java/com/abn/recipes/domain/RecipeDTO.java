@@ -7,6 +7,10 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Builder
@@ -15,14 +19,31 @@ import org.springframework.data.mongodb.core.mapping.Document;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "Recipes")
+@CompoundIndexes({
+  // One index per chain of the servings, category and ingredients equality filters, so every combination of them is
+  // the prefix of an index: ingredients < ingredients+category < all three, category < category+servings,
+  // servings < servings+ingredients
+  @CompoundIndex(name = "ingredients_category_servings", def = "{'ingredients': 1, 'category': 1, 'servings': 1}"),
+  @CompoundIndex(name = "category_servings", def = "{'category': 1, 'servings': 1}"),
+  @CompoundIndex(name = "servings_ingredients", def = "{'servings': 1, 'ingredients': 1}")
+})
 public class RecipeDTO {
 
   @Id
   private String id;
 
+  @TextIndexed(weight = 2)
   private String title;
   private Integer servings;
   private Set<String> ingredients;
+  @TextIndexed
   private String instructions;
   private Category category;
+
+  @Version
+  private Long version;
+
+  public RecipeDTO(String id, String title, Integer servings, Set<String> ingredients, String instructions, Category category) {
+    this(id, title, servings, ingredients, instructions, category, null);
+  }
 }
@@ -0,0 +1,96 @@
+package com.abn.recipes.domain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The number of recipes per category, per servings bucket and for the most used ingredients.
+ */
+@Getter
+@AllArgsConstructor
+public class RecipeFacets {
+
+  /**
+   * The lower bounds of the servings buckets, the last bucket is open ended.
+   */
+  public static final List<Integer> SERVINGS_BOUNDARIES = List.of(1, 3, 5, 7);
+
+  /**
+   * The bucket of the recipes without servings or with less than the first boundary.
+   */
+  public static final String OTHER_SERVINGS = "other";
+
+  /**
+   * The labels of the servings buckets in order, eg {@code 1-2} or {@code 7+}, then {@value #OTHER_SERVINGS}.
+   */
+  public static final List<String> SERVINGS_BUCKETS = servingsBuckets();
+
+  private long total;
+
+  /**
+   * The counts per category, most used first. Recipes without a category are not counted.
+   */
+  private Map<Category, Long> categories;
+
+  /**
+   * The counts per servings bucket in the order of {@link #SERVINGS_BUCKETS}, empty buckets are left out.
+   */
+  private Map<String, Long> servings;
+
+  /**
+   * The counts of the most used ingredients, most used first.
+   */
+  private Map<String, Long> ingredients;
+
+  public static RecipeFacets empty() {
+    return new RecipeFacets(0, Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap());
+  }
+
+  /**
+   * @param servings the servings of a recipe, may be {@code null}
+   * @return the label of the bucket the servings fall in
+   */
+  public static String servingsBucket(Integer servings) {
+    if (servings == null) {
+      return OTHER_SERVINGS;
+    }
+    for (int index = SERVINGS_BOUNDARIES.size() - 1; index >= 0; index--) {
+      if (servings >= SERVINGS_BOUNDARIES.get(index)) {
+        return SERVINGS_BUCKETS.get(index);
+      }
+    }
+    return OTHER_SERVINGS;
+  }
+
+  /**
+   * @param counts the counts per servings bucket label
+   * @return the non-zero counts in the order of {@link #SERVINGS_BUCKETS}
+   */
+  public static Map<String, Long> orderServings(Map<String, Long> counts) {
+    Map<String, Long> ordered = new LinkedHashMap<>();
+    for (String bucket : SERVINGS_BUCKETS) {
+      Long count = counts.get(bucket);
+      if (count != null && count > 0) {
+        ordered.put(bucket, count);
+      }
+    }
+    return ordered;
+  }
+
+  private static List<String> servingsBuckets() {
+    List<String> buckets = new ArrayList<>();
+    for (int index = 0; index < SERVINGS_BOUNDARIES.size(); index++) {
+      int lower = SERVINGS_BOUNDARIES.get(index);
+      buckets.add(index + 1 < SERVINGS_BOUNDARIES.size()
+        ? lower + "-" + (SERVINGS_BOUNDARIES.get(index + 1) - 1)
+        : lower + "+");
+    }
+    buckets.add(OTHER_SERVINGS);
+    return Collections.unmodifiableList(buckets);
+  }
+}
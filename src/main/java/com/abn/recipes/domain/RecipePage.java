@@ -0,0 +1,17 @@
+package com.abn.recipes.domain;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class RecipePage {
+
+  private List<Recipe> recipes;
+
+  /**
+   * The id to pass as {@code after} to fetch the next page, {@code null} on the last page.
+   */
+  private String next;
+}
@@ -0,0 +1,292 @@
+package com.abn.recipes.events;
+
+import com.abn.recipes.domain.RecipeDTO;
+import com.abn.recipes.utils.RecipeMapper;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Follows the change stream of the recipes collection and republishes every insert, update, replace and delete as a
+ * {@link RecipeChangedEvent}, so the caches and indexes of this instance also follow the writes of the other instances.
+ * <p>
+ * The stream is only enabled with {@code recipes.change-stream.enabled}, since it needs a replica set. It is read by a
+ * dedicated thread, which saves the resume token of the last change it applied under the
+ * {@code recipes.change-stream.node-id} of the instance and resumes after it on restart. The token is saved every
+ * {@code recipes.change-stream.token-every} changes or {@code recipes.change-stream.token-interval}, whichever comes
+ * first, and on shutdown, so a write is not followed by a token write on every instance; a restart after a crash
+ * applies the few changes after the saved token again, which is harmless. When the token is no longer in
+ * the oplog the stream starts over and a {@link RecipeChangedEvent#stale()} event makes every listener rebuild its
+ * state from the database.
+ * <p>
+ * The writes of this instance come back through the stream after their local event. Applying them again is harmless,
+ * and as the stream is ordered every listener ends on the last version of every recipe.
+ */
+@Slf4j
+@Component
+public class RecipeChangeStream {
+
+  static final String TOKEN_COLLECTION = "RecipeChangeStreamTokens";
+
+  private static final String TOKEN = "token";
+
+  /**
+   * The errors of a change stream which cannot resume after its token: ChangeStreamFatalError, ChangeStreamHistoryLost
+   * and the resume token not found of older servers.
+   */
+  private static final Set<Integer> CANNOT_RESUME = Set.of(280, 286, 40585);
+
+  private static final List<String> OPERATION_TYPES =
+    List.of("insert", "update", "replace", "delete", "drop", "dropDatabase", "rename", "invalidate");
+
+  private final MongoTemplate mongoTemplate;
+
+  private final RecipeMapper mapper;
+
+  private final ApplicationEventPublisher eventPublisher;
+
+  private final boolean enabled;
+
+  private final String nodeId;
+
+  private final Duration retryDelay;
+
+  private final int tokenEvery;
+
+  private final long tokenIntervalNanos;
+
+  private volatile boolean running;
+
+  private volatile MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor;
+
+  private Thread reader;
+
+  /**
+   * The token of the last applied change when it is not saved yet, only used by the reader thread.
+   */
+  private BsonDocument unsavedToken;
+
+  private int unsavedChanges;
+
+  private long tokenSavedAt = System.nanoTime();
+
+  public RecipeChangeStream(MongoTemplate mongoTemplate, RecipeMapper mapper, ApplicationEventPublisher eventPublisher,
+    @Value("${recipes.change-stream.enabled:false}") boolean enabled,
+    @Value("${recipes.change-stream.node-id:${HOSTNAME:recipes}}") String nodeId,
+    @Value("${recipes.change-stream.retry-delay:5s}") Duration retryDelay,
+    @Value("${recipes.change-stream.token-every:100}") int tokenEvery,
+    @Value("${recipes.change-stream.token-interval:5s}") Duration tokenInterval) {
+    this.mongoTemplate = mongoTemplate;
+    this.mapper = mapper;
+    this.eventPublisher = eventPublisher;
+    this.enabled = enabled;
+    this.nodeId = nodeId;
+    this.retryDelay = retryDelay;
+    this.tokenEvery = tokenEvery;
+    this.tokenIntervalNanos = tokenInterval.toNanos();
+  }
+
+  /**
+   * Opens the stream before the indexes load on startup, so no write falls between their load and the stream.
+   */
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    if (!enabled) {
+      return;
+    }
+    running = true;
+    try {
+      cursor = open();
+    } catch (MongoException e) {
+      log.warn("Recipe change stream could not be opened, retrying in {}", retryDelay, e);
+    }
+    reader = new Thread(this::read, "recipe-change-stream");
+    reader.setDaemon(true);
+    reader.start();
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    if (!running) {
+      return;
+    }
+    running = false;
+    reader.interrupt();
+    reader.join(TimeUnit.SECONDS.toMillis(5));
+  }
+
+  /**
+   * @param change a change of the recipes collection
+   * @return the event to publish for the change, empty for the changes the listeners do not care about
+   */
+  Optional<RecipeChangedEvent> event(ChangeStreamDocument<Document> change) {
+    switch (change.getOperationType()) {
+      case INSERT:
+      case UPDATE:
+      case REPLACE:
+        Document fullDocument = change.getFullDocument();
+        if (fullDocument == null) {
+          return Optional.of(RecipeChangedEvent.deleted(recipeId(change.getDocumentKey())));
+        }
+        RecipeDTO recipe = mongoTemplate.getConverter().read(RecipeDTO.class, fullDocument);
+        return Optional.of(RecipeChangedEvent.saved(mapper.asRecipe(recipe)));
+      case DELETE:
+        return Optional.of(RecipeChangedEvent.deleted(recipeId(change.getDocumentKey())));
+      case DROP:
+      case DROP_DATABASE:
+      case RENAME:
+        return Optional.of(RecipeChangedEvent.cleared());
+      default:
+        return Optional.empty();
+    }
+  }
+
+  private void read() {
+    while (running) {
+      try {
+        if (cursor == null) {
+          cursor = open();
+        }
+        ChangeStreamDocument<Document> change = cursor.tryNext();
+        if (change != null) {
+          apply(change);
+        } else if (System.nanoTime() - tokenSavedAt >= tokenIntervalNanos) {
+          saveToken();
+        }
+      } catch (MongoCommandException e) {
+        if (!CANNOT_RESUME.contains(e.getErrorCode())) {
+          retry(e);
+          continue;
+        }
+        log.warn("Recipe change stream cannot resume, rebuilding the caches and indexes from the database", e);
+        deleteToken();
+        close();
+        eventPublisher.publishEvent(RecipeChangedEvent.stale());
+      } catch (MongoException e) {
+        retry(e);
+      }
+    }
+    try {
+      saveToken();
+    } catch (MongoException e) {
+      log.warn("Recipe change stream token could not be saved on shutdown", e);
+    }
+    close();
+  }
+
+  void apply(ChangeStreamDocument<Document> change) {
+    event(change).ifPresent(eventPublisher::publishEvent);
+    if (change.getOperationType() == OperationType.INVALIDATE) {
+      deleteToken();
+      close();
+      return;
+    }
+    unsavedToken = change.getResumeToken();
+    unsavedChanges++;
+    if (unsavedChanges >= tokenEvery || System.nanoTime() - tokenSavedAt >= tokenIntervalNanos) {
+      saveToken();
+    }
+  }
+
+  private MongoChangeStreamCursor<ChangeStreamDocument<Document>> open() {
+    MongoCollection<Document> collection = mongoTemplate.getCollection(mongoTemplate.getCollectionName(RecipeDTO.class));
+    ChangeStreamIterable<Document> changes = collection
+      .watch(Collections.singletonList(Aggregates.match(Filters.in("operationType", OPERATION_TYPES))))
+      .fullDocument(FullDocument.UPDATE_LOOKUP)
+      .maxAwaitTime(1, TimeUnit.SECONDS);
+    BsonDocument token = loadToken();
+    if (token != null) {
+      log.info("Resuming the recipe change stream of {}", nodeId);
+      changes.resumeAfter(token);
+    }
+    return changes.cursor();
+  }
+
+  private void retry(MongoException e) {
+    close();
+    if (!running) {
+      return;
+    }
+    log.warn("Recipe change stream failed, retrying in {}", retryDelay, e);
+    try {
+      Thread.sleep(retryDelay.toMillis());
+    } catch (InterruptedException interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void close() {
+    MongoChangeStreamCursor<ChangeStreamDocument<Document>> current = cursor;
+    cursor = null;
+    if (current != null) {
+      try {
+        current.close();
+      } catch (MongoException e) {
+        log.debug("Recipe change stream cursor could not be closed", e);
+      }
+    }
+  }
+
+  private BsonDocument loadToken() {
+    BsonDocument stored = tokens().find(Filters.eq("_id", nodeId)).first();
+    return stored == null ? null : stored.getDocument(TOKEN, null);
+  }
+
+  private void saveToken() {
+    if (unsavedToken != null) {
+      tokens().replaceOne(Filters.eq("_id", nodeId),
+        new BsonDocument("_id", new BsonString(nodeId)).append(TOKEN, unsavedToken),
+        new ReplaceOptions().upsert(true));
+    }
+    unsavedToken = null;
+    unsavedChanges = 0;
+    tokenSavedAt = System.nanoTime();
+  }
+
+  private void deleteToken() {
+    unsavedToken = null;
+    unsavedChanges = 0;
+    tokens().deleteOne(Filters.eq("_id", nodeId));
+  }
+
+  private MongoCollection<BsonDocument> tokens() {
+    return mongoTemplate.getDb().getCollection(TOKEN_COLLECTION, BsonDocument.class);
+  }
+
+  private static String recipeId(BsonDocument documentKey) {
+    BsonValue id = documentKey.get("_id");
+    if (id.isObjectId()) {
+      return id.asObjectId().getValue().toHexString();
+    }
+    return id.isString() ? id.asString().getValue() : id.toString();
+  }
+}
@@ -0,0 +1,49 @@
+package com.abn.recipes.events;
+
+import com.abn.recipes.domain.Recipe;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published whenever recipes are written, so that caches and other derived state can be kept up to date.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class RecipeChangedEvent {
+
+  public enum Type {
+    SAVED,
+    DELETED,
+    CLEARED,
+    /**
+     * Changes may have been missed, e.g. when the change stream could not resume, so everything derived from the
+     * recipes must be dropped or reloaded from the database.
+     */
+    STALE,
+  }
+
+  private final Type type;
+  private final String recipeId;
+
+  /**
+   * The saved {@link Recipe}, only present for {@link Type#SAVED}.
+   */
+  private final Recipe recipe;
+
+  public static RecipeChangedEvent saved(Recipe recipe) {
+    return new RecipeChangedEvent(Type.SAVED, recipe.getId(), recipe);
+  }
+
+  public static RecipeChangedEvent deleted(String recipeId) {
+    return new RecipeChangedEvent(Type.DELETED, recipeId, null);
+  }
+
+  public static RecipeChangedEvent cleared() {
+    return new RecipeChangedEvent(Type.CLEARED, null, null);
+  }
+
+  public static RecipeChangedEvent stale() {
+    return new RecipeChangedEvent(Type.STALE, null, null);
+  }
+}
@@ -1,6 +1,13 @@
 package com.abn.recipes.exception;
 
+import com.abn.recipes.metrics.RecipeMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.util.Date;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -9,11 +16,16 @@ import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
 /**
- * Class to provide centralized exception handling across all @RequestMapping methods through @ExceptionHandler methods
+ * Class to provide centralized exception handling across all @RequestMapping methods through @ExceptionHandler methods.
+ * Every handled exception is counted in {@value RecipeMetrics#ERROR_COUNTER} by exception and status.
  */
 @ControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
 
+  @Autowired
+  private MeterRegistry meterRegistry;
+
   /**
    * This method returns a ResponseEntity for writing to the response with a message converter
    * @param ex {@link ResourceNotFoundException}
@@ -23,7 +35,43 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
   @ExceptionHandler(ResourceNotFoundException.class)
   public ResponseEntity<?> resourceNotFoundException(ResourceNotFoundException ex, WebRequest request) {
     ErrorDetails errorDetails = new ErrorDetails(new Date(), ex.getMessage(), request.getDescription(false));
-    return new ResponseEntity<>(errorDetails, HttpStatus.NOT_FOUND);
+    return counted(ex, new ResponseEntity<>(errorDetails, HttpStatus.NOT_FOUND));
+  }
+
+  /**
+   * Returns 400 when a filter, sort or projection of a recipe search cannot be parsed.
+   * @param ex {@link InvalidFilterException}
+   * @param request {@link WebRequest}
+   * @return {@link ResponseEntity} with a custom error details
+   */
+  @ExceptionHandler(InvalidFilterException.class)
+  public ResponseEntity<?> invalidFilterException(InvalidFilterException ex, WebRequest request) {
+    ErrorDetails errorDetails = new ErrorDetails(new Date(), ex.getMessage(), request.getDescription(false));
+    return counted(ex, new ResponseEntity<>(errorDetails, HttpStatus.BAD_REQUEST));
+  }
+
+  /**
+   * Returns 412 when the recipe changed since the version given in {@code If-Match}, or since it was read for an update.
+   * @param ex the {@link PreconditionFailedException} or {@link OptimisticLockingFailureException}
+   * @param request {@link WebRequest}
+   * @return {@link ResponseEntity} with a custom error details
+   */
+  @ExceptionHandler({ PreconditionFailedException.class, OptimisticLockingFailureException.class })
+  public ResponseEntity<?> preconditionFailedException(RuntimeException ex, WebRequest request) {
+    ErrorDetails errorDetails = new ErrorDetails(new Date(), ex.getMessage(), request.getDescription(false));
+    return counted(ex, new ResponseEntity<>(errorDetails, HttpStatus.PRECONDITION_FAILED));
+  }
+
+  /**
+   * Returns 409 when a recipe is created with the id of an existing recipe.
+   * @param ex {@link DuplicateKeyException}
+   * @param request {@link WebRequest}
+   * @return {@link ResponseEntity} with a custom error details
+   */
+  @ExceptionHandler(DuplicateKeyException.class)
+  public ResponseEntity<?> duplicateKeyException(DuplicateKeyException ex, WebRequest request) {
+    ErrorDetails errorDetails = new ErrorDetails(new Date(), "Recipe already exists", request.getDescription(false));
+    return counted(ex, new ResponseEntity<>(errorDetails, HttpStatus.CONFLICT));
   }
 
   /**
@@ -35,6 +83,22 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
   @ExceptionHandler(Exception.class)
   public ResponseEntity<?> globleExcpetionHandler(Exception ex, WebRequest request) {
     ErrorDetails errorDetails = new ErrorDetails(new Date(), ex.getMessage(), request.getDescription(false));
-    return new ResponseEntity<>(errorDetails, HttpStatus.INTERNAL_SERVER_ERROR);
+    return counted(ex, new ResponseEntity<>(errorDetails, HttpStatus.INTERNAL_SERVER_ERROR));
+  }
+
+  /**
+   * Counts the standard Spring MVC exceptions, such as unreadable bodies or unsupported media types.
+   */
+  @Override
+  protected ResponseEntity<Object> handleExceptionInternal(Exception ex, Object body, HttpHeaders headers,
+    HttpStatus status, WebRequest request) {
+    return counted(ex, super.handleExceptionInternal(ex, body, headers, status, request));
+  }
+
+  private <T> ResponseEntity<T> counted(Exception ex, ResponseEntity<T> response) {
+    meterRegistry.counter(RecipeMetrics.ERROR_COUNTER,
+      RecipeMetrics.EXCEPTION_TAG, ex.getClass().getSimpleName(),
+      RecipeMetrics.STATUS_TAG, String.valueOf(response.getStatusCodeValue())).increment();
+    return response;
   }
 }
@@ -0,0 +1,12 @@
+package com.abn.recipes.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.BAD_REQUEST)
+public class InvalidFilterException extends RuntimeException {
+
+  public InvalidFilterException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,81 @@
+package com.abn.recipes.exception;
+
+import com.abn.recipes.metrics.RecipeMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Date;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * The {@link GlobalExceptionHandler} of the reactive deployment mode. Other errors are answered by the default WebFlux
+ * handling, which honours the {@code @ResponseStatus} of the exception. The handled exceptions are counted in
+ * {@value RecipeMetrics#ERROR_COUNTER} like in the servlet mode.
+ */
+@RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveExceptionHandler {
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  /**
+   * @param ex {@link ResourceNotFoundException}
+   * @param exchange the {@link ServerWebExchange}
+   * @return {@link ResponseEntity} with a custom error details
+   */
+  @ExceptionHandler(ResourceNotFoundException.class)
+  public ResponseEntity<ErrorDetails> resourceNotFoundException(ResourceNotFoundException ex, ServerWebExchange exchange) {
+    return counted(ex, new ResponseEntity<>(errorDetails(ex.getMessage(), exchange), HttpStatus.NOT_FOUND));
+  }
+
+  /**
+   * Returns 400 when a filter, sort or projection of a recipe search cannot be parsed.
+   * @param ex {@link InvalidFilterException}
+   * @param exchange the {@link ServerWebExchange}
+   * @return {@link ResponseEntity} with a custom error details
+   */
+  @ExceptionHandler(InvalidFilterException.class)
+  public ResponseEntity<ErrorDetails> invalidFilterException(InvalidFilterException ex, ServerWebExchange exchange) {
+    return counted(ex, new ResponseEntity<>(errorDetails(ex.getMessage(), exchange), HttpStatus.BAD_REQUEST));
+  }
+
+  /**
+   * Returns 412 when the recipe changed since the version given in {@code If-Match}, or since it was read for an update.
+   * @param ex the {@link PreconditionFailedException} or {@link OptimisticLockingFailureException}
+   * @param exchange the {@link ServerWebExchange}
+   * @return {@link ResponseEntity} with a custom error details
+   */
+  @ExceptionHandler({ PreconditionFailedException.class, OptimisticLockingFailureException.class })
+  public ResponseEntity<ErrorDetails> preconditionFailedException(RuntimeException ex, ServerWebExchange exchange) {
+    return counted(ex, new ResponseEntity<>(errorDetails(ex.getMessage(), exchange), HttpStatus.PRECONDITION_FAILED));
+  }
+
+  /**
+   * Returns 409 when a recipe is created with the id of an existing recipe.
+   * @param ex {@link DuplicateKeyException}
+   * @param exchange the {@link ServerWebExchange}
+   * @return {@link ResponseEntity} with a custom error details
+   */
+  @ExceptionHandler(DuplicateKeyException.class)
+  public ResponseEntity<ErrorDetails> duplicateKeyException(DuplicateKeyException ex, ServerWebExchange exchange) {
+    return counted(ex, new ResponseEntity<>(errorDetails("Recipe already exists", exchange), HttpStatus.CONFLICT));
+  }
+
+  private <T> ResponseEntity<T> counted(Exception ex, ResponseEntity<T> response) {
+    meterRegistry.counter(RecipeMetrics.ERROR_COUNTER,
+      RecipeMetrics.EXCEPTION_TAG, ex.getClass().getSimpleName(),
+      RecipeMetrics.STATUS_TAG, String.valueOf(response.getStatusCodeValue())).increment();
+    return response;
+  }
+
+  private static ErrorDetails errorDetails(String message, ServerWebExchange exchange) {
+    return new ErrorDetails(new Date(), message, "uri=" + exchange.getRequest().getPath());
+  }
+}
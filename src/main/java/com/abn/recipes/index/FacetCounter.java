@@ -0,0 +1,242 @@
+package com.abn.recipes.index;
+
+import com.abn.recipes.domain.Category;
+import com.abn.recipes.domain.Recipe;
+import com.abn.recipes.domain.RecipeDTO;
+import com.abn.recipes.domain.RecipeFacets;
+import com.abn.recipes.events.RecipeChangedEvent;
+import com.abn.recipes.repositories.RecipeRepository;
+import com.abn.recipes.repositories.RecipeSearch;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory counts of all the recipes per category, servings bucket and ingredient, the unfiltered {@link RecipeFacets}.
+ * <p>
+ * The counts are loaded on startup when {@code recipes.facets.counters.enabled} is set and kept current from
+ * {@link RecipeChangedEvent}s. The facets of every recipe are kept so that an update or a delete can take back what the
+ * previous version of the recipe counted. The {@link RecipeFacets} are computed once after every change and shared by
+ * all the reads until the next one. A reload reads the collection into new counts while the writes and reads go on.
+ */
+@Slf4j
+@Component
+public class FacetCounter {
+
+  private final RecipeRepository recipeRepository;
+
+  private final boolean enabled;
+
+  private final int topIngredients;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private Counts counts = new Counts();
+
+  /**
+   * The changes made while the counts are loaded, {@code null} when they are not.
+   */
+  private List<RecipeChangedEvent> pending;
+
+  private volatile RecipeFacets facets;
+
+  private volatile boolean ready;
+
+  public FacetCounter(RecipeRepository recipeRepository,
+    @Value("${recipes.facets.counters.enabled:false}") boolean enabled,
+    @Value("${recipes.facets.top-ingredients:10}") int topIngredients) {
+    this.recipeRepository = recipeRepository;
+    this.enabled = enabled;
+    this.topIngredients = topIngredients;
+  }
+
+  /**
+   * Loads the counts from the database once the application has started, and again when they are stale. The collection
+   * is read without holding the lock, the changes made meanwhile are applied to the new counts before they replace the
+   * current ones.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void load() {
+    if (!enabled) {
+      return;
+    }
+    lock.writeLock().lock();
+    try {
+      pending = new ArrayList<>();
+    } finally {
+      lock.writeLock().unlock();
+    }
+    Counts loaded = new Counts();
+    try (Stream<RecipeDTO> recipes = recipeRepository.streamAll(RecipeSearch.of(null))) {
+      recipes.forEach(recipe -> loaded.add(recipe.getId(),
+        new Counted(recipe.getCategory(), RecipeFacets.servingsBucket(recipe.getServings()), recipe.getIngredients())));
+    } catch (RuntimeException e) {
+      lock.writeLock().lock();
+      try {
+        pending = null;
+      } finally {
+        lock.writeLock().unlock();
+      }
+      throw e;
+    }
+    lock.writeLock().lock();
+    try {
+      pending.forEach(loaded::apply);
+      pending = null;
+      counts = loaded;
+      facets = null;
+      ready = true;
+      log.info("Facet counters loaded with {} recipes and {} ingredients", loaded.countedByRecipe.size(),
+        loaded.ingredients.size());
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @EventListener
+  public void onRecipeChanged(RecipeChangedEvent event) {
+    if (!enabled) {
+      return;
+    }
+    if (event.getType() == RecipeChangedEvent.Type.STALE) {
+      load();
+      return;
+    }
+    lock.writeLock().lock();
+    try {
+      counts.apply(event);
+      if (pending != null) {
+        pending.add(event);
+      }
+      facets = null;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * @return the facets of all the recipes, empty when the counters are not loaded
+   */
+  public Optional<RecipeFacets> facets() {
+    if (!ready) {
+      return Optional.empty();
+    }
+    RecipeFacets current = facets;
+    if (current != null) {
+      return Optional.of(current);
+    }
+    lock.readLock().lock();
+    try {
+      current = new RecipeFacets(counts.countedByRecipe.size(), mostUsed(counts.categories, counts.categories.size()),
+        RecipeFacets.orderServings(counts.servings), mostUsed(counts.ingredients, topIngredients));
+      facets = current;
+      return Optional.of(current);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private static <K> void increment(Map<K, Long> counts, K key, long delta) {
+    counts.merge(key, delta, (count, added) -> count + added == 0 ? null : count + added);
+  }
+
+  /**
+   * @return the {@code limit} highest counts, most used first and then by name, in the order of the aggregation
+   */
+  private static <K> Map<K, Long> mostUsed(Map<K, Long> counts, int limit) {
+    Map<K, Long> mostUsed = new LinkedHashMap<>();
+    counts.entrySet().stream()
+      .sorted(Map.Entry.<K, Long>comparingByValue(Comparator.reverseOrder())
+        .thenComparing(count -> count.getKey().toString()))
+      .limit(limit)
+      .forEach(count -> mostUsed.put(count.getKey(), count.getValue()));
+    return mostUsed;
+  }
+
+  /**
+   * The counts and what every recipe counted, replaced as a whole when they are loaded.
+   */
+  private static final class Counts {
+
+    private final Map<String, Counted> countedByRecipe = new HashMap<>();
+
+    private final Map<Category, Long> categories = new EnumMap<>(Category.class);
+
+    private final Map<String, Long> servings = new HashMap<>();
+
+    private final Map<String, Long> ingredients = new HashMap<>();
+
+    private void apply(RecipeChangedEvent event) {
+      switch (event.getType()) {
+        case SAVED:
+          Recipe recipe = event.getRecipe();
+          remove(event.getRecipeId());
+          add(event.getRecipeId(), new Counted(recipe.getCategory(), RecipeFacets.servingsBucket(recipe.getServings()),
+            recipe.getIngredients()));
+          break;
+        case DELETED:
+          remove(event.getRecipeId());
+          break;
+        case CLEARED:
+          countedByRecipe.clear();
+          categories.clear();
+          servings.clear();
+          ingredients.clear();
+          break;
+        default:
+      }
+    }
+
+    private void add(String recipeId, Counted counted) {
+      countedByRecipe.put(recipeId, counted);
+      count(counted, 1);
+    }
+
+    private void remove(String recipeId) {
+      Counted counted = countedByRecipe.remove(recipeId);
+      if (counted != null) {
+        count(counted, -1);
+      }
+    }
+
+    private void count(Counted counted, long delta) {
+      if (counted.category != null) {
+        increment(categories, counted.category, delta);
+      }
+      increment(servings, counted.servingsBucket, delta);
+      counted.ingredients.forEach(ingredient -> increment(ingredients, ingredient, delta));
+    }
+  }
+
+  /**
+   * What one recipe counts in the facets.
+   */
+  private static final class Counted {
+
+    private final Category category;
+    private final String servingsBucket;
+    private final Set<String> ingredients;
+
+    private Counted(Category category, String servingsBucket, Set<String> ingredients) {
+      this.category = category;
+      this.servingsBucket = servingsBucket;
+      this.ingredients = ingredients == null ? Collections.emptySet() : new HashSet<>(ingredients);
+    }
+  }
+}
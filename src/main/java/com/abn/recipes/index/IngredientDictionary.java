@@ -0,0 +1,170 @@
+package com.abn.recipes.index;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import org.springframework.stereotype.Component;
+
+/**
+ * The canonical names of the ingredients, each interned to a dense integer id.
+ * <p>
+ * An ingredient name is normalized by trimming it, collapsing its whitespace, lower casing it and reducing the plural
+ * of its last word to the singular, so {@code " Cherry  Tomatoes"} and {@code "cherry tomato"} are the same ingredient.
+ * Every recipe then refers to the one shared {@link String} of each of its ingredients instead of its own copy, and the
+ * indexes can refer to an ingredient by its id. Ids are never reused, the dictionary only grows with the vocabulary of
+ * the ingredients, which is small next to the number of recipes.
+ */
+@Component
+public class IngredientDictionary {
+
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  /**
+   * The plurals the suffix rules get wrong, and the words ending in s which are not plurals.
+   */
+  private static final Map<String, String> IRREGULAR = Map.of(
+    "leaves", "leaf",
+    "halves", "half",
+    "loaves", "loaf",
+    "cookies", "cookie",
+    "molasses", "molasses",
+    "grits", "grits");
+
+  private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+  private volatile String[] names = new String[256];
+
+  private int size;
+
+  /**
+   * @param ingredient an ingredient name as entered
+   * @return the canonical name of the ingredient, empty for a blank name
+   */
+  public static String normalize(String ingredient) {
+    String name = WHITESPACE.matcher(ingredient.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    int lastWord = name.lastIndexOf(' ') + 1;
+    return name.substring(0, lastWord) + singular(name.substring(lastWord));
+  }
+
+  /**
+   * @param ingredient an ingredient name as entered
+   * @return the id of the ingredient, added to the dictionary when it is not in it yet
+   */
+  public int id(String ingredient) {
+    String name = normalize(ingredient);
+    Integer id = ids.get(name);
+    return id != null ? id : add(name);
+  }
+
+  /**
+   * @param ingredient an ingredient name as entered
+   * @return the id of the ingredient, empty when it is not in the dictionary
+   */
+  public OptionalInt find(String ingredient) {
+    Integer id = ids.get(normalize(ingredient));
+    return id == null ? OptionalInt.empty() : OptionalInt.of(id);
+  }
+
+  /**
+   * @param id the id of an ingredient
+   * @return the shared canonical name of the ingredient
+   */
+  public String name(int id) {
+    return names[id];
+  }
+
+  /**
+   * @param ingredients ingredient names as entered, may be {@code null}
+   * @return the shared canonical names of the ingredients in their order, without the blank ones, {@code null} for
+   *   {@code null}
+   */
+  public Set<String> canonical(Collection<String> ingredients) {
+    if (ingredients == null) {
+      return null;
+    }
+    Set<String> canonical = new LinkedHashSet<>(ingredients.size() * 2);
+    for (String ingredient : ingredients) {
+      if (ingredient != null && !ingredient.isBlank()) {
+        canonical.add(name(id(ingredient)));
+      }
+    }
+    return canonical;
+  }
+
+  /**
+   * The {@link #canonical} names of stored ingredients, which are already canonical: a name found in the dictionary is
+   * replaced by its shared instance as is, only the others are normalized.
+   *
+   * @param ingredients ingredient names as stored, may be {@code null}
+   * @return the shared canonical names of the ingredients in their order, without the blank ones, {@code null} for
+   *   {@code null}
+   */
+  public Set<String> canonicalStored(Collection<String> ingredients) {
+    if (ingredients == null) {
+      return null;
+    }
+    Set<String> canonical = new LinkedHashSet<>(ingredients.size() * 2);
+    for (String ingredient : ingredients) {
+      if (ingredient == null) {
+        continue;
+      }
+      Integer id = ids.get(ingredient);
+      if (id != null) {
+        canonical.add(names[id]);
+      } else if (!ingredient.isBlank()) {
+        canonical.add(name(id(ingredient)));
+      }
+    }
+    return canonical;
+  }
+
+  /**
+   * @return the number of ingredients in the dictionary
+   */
+  public int size() {
+    return ids.size();
+  }
+
+  /**
+   * Stores the name before publishing its id, so {@link #name} finds the name of every id read from {@link #ids}.
+   */
+  private synchronized int add(String name) {
+    Integer id = ids.get(name);
+    if (id != null) {
+      return id;
+    }
+    String[] current = names;
+    if (size == current.length) {
+      current = Arrays.copyOf(current, size * 2);
+    }
+    current[size] = name;
+    names = current;
+    ids.put(name, size);
+    return size++;
+  }
+
+  private static String singular(String word) {
+    String irregular = IRREGULAR.get(word);
+    if (irregular != null) {
+      return irregular;
+    }
+    int length = word.length();
+    if (length <= 3 || !word.endsWith("s") || word.endsWith("ss") || word.endsWith("us") || word.endsWith("is")) {
+      return word;
+    }
+    if (word.endsWith("ies") && length > 4) {
+      return word.substring(0, length - 3) + "y";
+    }
+    if (word.endsWith("oes") || word.endsWith("ches") || word.endsWith("shes") || word.endsWith("sses")
+      || word.endsWith("xes")) {
+      return word.substring(0, length - 2);
+    }
+    return word.substring(0, length - 1);
+  }
+}
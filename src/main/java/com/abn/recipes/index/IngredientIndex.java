@@ -0,0 +1,268 @@
+package com.abn.recipes.index;
+
+import com.abn.recipes.domain.RecipeDTO;
+import com.abn.recipes.events.RecipeChangedEvent;
+import com.abn.recipes.repositories.RecipeRepository;
+import com.abn.recipes.repositories.RecipeSearch;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory inverted index from ingredient to the compressed bitmap of recipes containing it.
+ * <p>
+ * Every recipe id gets a dense ordinal, and {@code includes}/{@code excludes} filters are answered
+ * with bitmap AND/ANDNOT instead of scanning the collection. Ingredients are kept as their
+ * {@link IngredientDictionary} ids, so a filter matches the ingredient whatever its case or plural.
+ * The index is loaded on startup when {@code recipes.index.ingredients.enabled} is set and kept
+ * current from {@link RecipeChangedEvent}s.
+ * <p>
+ * A match is only answered when it has at most {@code recipes.index.ingredients.max-ids} recipes: their ids are sent
+ * to the database in one query, and a broad match, such as excluding a rare ingredient, is cheaper to filter with the
+ * indexed ingredients there. The ordinals of deleted recipes are reused by the next ones, and a reload builds a new
+ * index beside the current one, which keeps answering until the new one replaces it.
+ */
+@Slf4j
+@Component
+public class IngredientIndex {
+
+  private final RecipeRepository recipeRepository;
+
+  private final IngredientDictionary dictionary;
+
+  private final boolean enabled;
+
+  private final int maxIds;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private Postings postings = new Postings();
+
+  /**
+   * The changes made while a reload reads the collection, applied to the new index before it replaces the current one.
+   */
+  private List<RecipeChangedEvent> pending;
+
+  private volatile boolean ready;
+
+  public IngredientIndex(RecipeRepository recipeRepository, IngredientDictionary dictionary,
+    @Value("${recipes.index.ingredients.enabled:false}") boolean enabled,
+    @Value("${recipes.index.ingredients.max-ids:10000}") int maxIds) {
+    this.recipeRepository = recipeRepository;
+    this.dictionary = dictionary;
+    this.enabled = enabled;
+    this.maxIds = maxIds;
+  }
+
+  /**
+   * Loads the index from the database once the application has started. The collection is read without holding the
+   * lock, the changes made meanwhile are applied to the new index before it replaces the current one.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void load() {
+    if (!enabled) {
+      return;
+    }
+    lock.writeLock().lock();
+    try {
+      pending = new ArrayList<>();
+    } finally {
+      lock.writeLock().unlock();
+    }
+    Postings loaded = new Postings();
+    try (Stream<RecipeDTO> recipes = recipeRepository.streamAll(RecipeSearch.of(null))) {
+      recipes.forEach(recipe -> loaded.add(recipe.getId(), recipe.getIngredients()));
+    } catch (RuntimeException e) {
+      lock.writeLock().lock();
+      try {
+        pending = null;
+      } finally {
+        lock.writeLock().unlock();
+      }
+      throw e;
+    }
+    lock.writeLock().lock();
+    try {
+      pending.forEach(loaded::apply);
+      pending = null;
+      postings = loaded;
+      ready = true;
+      log.info("Ingredient index loaded with {} recipes and {} ingredients", loaded.live.getCardinality(),
+        loaded.byIngredient.size());
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @EventListener
+  public void onRecipeChanged(RecipeChangedEvent event) {
+    if (!enabled) {
+      return;
+    }
+    if (event.getType() == RecipeChangedEvent.Type.STALE) {
+      load();
+      return;
+    }
+    lock.writeLock().lock();
+    try {
+      postings.apply(event);
+      if (pending != null) {
+        pending.add(event);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Finds the ids of the recipes containing all the included and none of the excluded ingredients.
+   *
+   * @param includes the ingredients the recipes must contain
+   * @param excludes the ingredients the recipes must not contain
+   * @return the matching recipe ids, empty when the index is not loaded or more than
+   *   {@code recipes.index.ingredients.max-ids} recipes match
+   */
+  public Optional<List<String>> match(Collection<String> includes, Collection<String> excludes) {
+    if (!ready) {
+      return Optional.empty();
+    }
+    lock.readLock().lock();
+    try {
+      RoaringBitmap result = postings.live.clone();
+      for (String ingredient : includes) {
+        result.and(postings.recipes(dictionary.find(ingredient)));
+      }
+      for (String ingredient : excludes) {
+        result.andNot(postings.recipes(dictionary.find(ingredient)));
+      }
+      if (result.getCardinality() > maxIds) {
+        return Optional.empty();
+      }
+      List<String> ids = new ArrayList<>(result.getCardinality());
+      result.forEach((int ordinal) -> ids.add(postings.recipeIds.get(ordinal)));
+      return Optional.of(ids);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @return the number of ordinals given to recipes, the deleted ones waiting to be reused included
+   */
+  int ordinals() {
+    lock.readLock().lock();
+    try {
+      return postings.recipeIds.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * The index itself, guarded by the lock once it is the current one.
+   */
+  private final class Postings {
+
+    private final Map<String, Integer> ordinals = new HashMap<>();
+
+    private final List<String> recipeIds = new ArrayList<>();
+
+    private final Map<Integer, int[]> ingredientsByOrdinal = new HashMap<>();
+
+    private final Map<Integer, RoaringBitmap> byIngredient = new HashMap<>();
+
+    private final RoaringBitmap live = new RoaringBitmap();
+
+    private final RoaringBitmap free = new RoaringBitmap();
+
+    private void apply(RecipeChangedEvent event) {
+      switch (event.getType()) {
+        case SAVED:
+          remove(event.getRecipeId());
+          add(event.getRecipeId(), event.getRecipe().getIngredients());
+          break;
+        case DELETED:
+          remove(event.getRecipeId());
+          break;
+        case CLEARED:
+          clear();
+          break;
+        default:
+      }
+    }
+
+    private void add(String recipeId, Set<String> ingredients) {
+      int ordinal = ordinals.computeIfAbsent(recipeId, this::ordinal);
+      int[] indexed = ingredients == null
+        ? new int[0]
+        : ingredients.stream().mapToInt(dictionary::id).distinct().toArray();
+      for (int ingredient : indexed) {
+        byIngredient.computeIfAbsent(ingredient, key -> new RoaringBitmap()).add(ordinal);
+      }
+      ingredientsByOrdinal.put(ordinal, indexed);
+      live.add(ordinal);
+    }
+
+    /**
+     * @return the ordinal of a deleted recipe when there is one, otherwise a new one
+     */
+    private int ordinal(String recipeId) {
+      if (free.isEmpty()) {
+        recipeIds.add(recipeId);
+        return recipeIds.size() - 1;
+      }
+      int ordinal = free.first();
+      free.remove(ordinal);
+      recipeIds.set(ordinal, recipeId);
+      return ordinal;
+    }
+
+    private void remove(String recipeId) {
+      Integer ordinal = ordinals.remove(recipeId);
+      if (ordinal == null) {
+        return;
+      }
+      for (int ingredient : ingredientsByOrdinal.remove(ordinal)) {
+        RoaringBitmap containing = byIngredient.get(ingredient);
+        containing.remove(ordinal);
+        if (containing.isEmpty()) {
+          byIngredient.remove(ingredient);
+        }
+      }
+      live.remove(ordinal);
+      recipeIds.set(ordinal, null);
+      free.add(ordinal);
+    }
+
+    /**
+     * @return the recipes containing the ingredient, none for an ingredient which is not in the dictionary
+     */
+    private RoaringBitmap recipes(OptionalInt ingredient) {
+      RoaringBitmap containing = ingredient.isPresent() ? byIngredient.get(ingredient.getAsInt()) : null;
+      return containing == null ? new RoaringBitmap() : containing;
+    }
+
+    private void clear() {
+      ordinals.clear();
+      recipeIds.clear();
+      ingredientsByOrdinal.clear();
+      byIngredient.clear();
+      live.clear();
+      free.clear();
+    }
+  }
+}
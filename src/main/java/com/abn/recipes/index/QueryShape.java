@@ -0,0 +1,96 @@
+package com.abn.recipes.index;
+
+import java.util.Collections;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import lombok.Value;
+import org.springframework.util.MultiValueMap;
+
+/**
+ * The shape of a recipe query: which fields it matches by equality or by range, which it only filters on, and whether
+ * it is a full text search. Queries with the same shape and different values need the same index.
+ */
+@Value
+public class QueryShape {
+
+  /**
+   * The fields matched by equality, which an index can seek on.
+   */
+  SortedSet<String> equalityFields;
+
+  /**
+   * The fields matched by a range, which an index can scan after the equality fields.
+   */
+  SortedSet<String> rangeFields;
+
+  /**
+   * The fields filtered by a case insensitive substring or a negation, which no index can seek on.
+   */
+  SortedSet<String> filterFields;
+
+  boolean text;
+
+  /**
+   * @param filters the filtered query from URI, as given to {@link com.abn.recipes.utils.SearchCriteriaBuilder}
+   * @param ingredientsResolved whether the {@code includes} and {@code excludes} filters were resolved to recipe ids
+   * @return the shape of the query built for the filters
+   */
+  public static QueryShape of(MultiValueMap<String, String> filters, boolean ingredientsResolved) {
+    SortedSet<String> equalityFields = new TreeSet<>();
+    SortedSet<String> rangeFields = new TreeSet<>();
+    SortedSet<String> filterFields = new TreeSet<>();
+    boolean text = false;
+    for (String key : filters.keySet()) {
+      switch (key) {
+        case "servings":
+        case "category":
+          equalityFields.add(key);
+          break;
+        case "servings[gte]":
+        case "servings[lte]":
+          rangeFields.add("servings");
+          break;
+        case "includes":
+          equalityFields.add(ingredientsResolved ? "_id" : "ingredients");
+          break;
+        case "excludes":
+          if (ingredientsResolved) {
+            equalityFields.add("_id");
+          } else {
+            filterFields.add("ingredients");
+          }
+          break;
+        case "title":
+        case "instructions":
+          filterFields.add(key);
+          break;
+        case "search":
+          text = true;
+          break;
+        default:
+      }
+    }
+    rangeFields.removeAll(equalityFields);
+    return new QueryShape(Collections.unmodifiableSortedSet(equalityFields),
+      Collections.unmodifiableSortedSet(rangeFields), Collections.unmodifiableSortedSet(filterFields), text);
+  }
+
+  /**
+   * @return whether the query has no filter at all and reads the whole collection on purpose
+   */
+  public boolean isEmpty() {
+    return equalityFields.isEmpty() && rangeFields.isEmpty() && filterFields.isEmpty() && !text;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder shape = new StringBuilder(text ? "$text " : "").append(equalityFields);
+    if (!rangeFields.isEmpty()) {
+      shape.append(" range ").append(rangeFields);
+    }
+    if (!filterFields.isEmpty()) {
+      shape.append(" filter ").append(filterFields);
+    }
+    return shape.toString();
+  }
+}
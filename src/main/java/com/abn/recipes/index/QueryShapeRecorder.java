@@ -0,0 +1,96 @@
+package com.abn.recipes.index;
+
+import com.abn.recipes.domain.RecipeDTO;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the {@link QueryShape}s of the recipe queries that arrive, and reports for each shape which index of the
+ * collection supports it, so a filter combination without an index shows up before it becomes slow.
+ */
+@Component
+@RequiredArgsConstructor
+public class QueryShapeRecorder {
+
+  private final MongoOperations mongoOperations;
+
+  private final Map<QueryShape, LongAdder> counts = new ConcurrentHashMap<>();
+
+  /**
+   * @param shape the {@link QueryShape} of a query about to run, ignored when it has no filter
+   */
+  public void record(QueryShape shape) {
+    if (shape.isEmpty()) {
+      return;
+    }
+    counts.computeIfAbsent(shape, key -> new LongAdder()).increment();
+  }
+
+  /**
+   * Matches the recorded shapes against the indexes the collection has now.
+   *
+   * @return the {@link QueryShapeReport} of every recorded shape, most frequent first
+   */
+  public List<QueryShapeReport> report() {
+    List<IndexInfo> indexes = mongoOperations.indexOps(RecipeDTO.class).getIndexInfo();
+    return counts.entrySet().stream()
+      .map(entry -> report(entry.getKey(), entry.getValue().sum(), indexes))
+      .sorted(Comparator.comparingLong(QueryShapeReport::getCount).reversed()
+        .thenComparing(QueryShapeReport::getShape))
+      .collect(Collectors.toList());
+  }
+
+  private static QueryShapeReport report(QueryShape shape, long count, List<IndexInfo> indexes) {
+    if (shape.isText()) {
+      return indexes.stream()
+        .filter(index -> index.getIndexFields().stream().anyMatch(IndexField::isText))
+        .findFirst()
+        .map(index -> new QueryShapeReport(shape.toString(), count, index.getName(), QueryShapeReport.Support.INDEXED))
+        .orElseGet(() -> new QueryShapeReport(shape.toString(), count, null, QueryShapeReport.Support.COLLECTION_SCAN));
+    }
+    IndexInfo best = null;
+    int bestPrefix = 0;
+    for (IndexInfo index : indexes) {
+      int prefix = seekPrefix(shape, index);
+      if (prefix > bestPrefix) {
+        best = index;
+        bestPrefix = prefix;
+      }
+    }
+    if (best == null) {
+      return new QueryShapeReport(shape.toString(), count, null, QueryShapeReport.Support.COLLECTION_SCAN);
+    }
+    int seekable = shape.getEqualityFields().size() + (shape.getRangeFields().isEmpty() ? 0 : 1);
+    return new QueryShapeReport(shape.toString(), count, best.getName(), bestPrefix == seekable
+      ? QueryShapeReport.Support.INDEXED
+      : QueryShapeReport.Support.PARTIAL);
+  }
+
+  /**
+   * @return how many leading keys of the index an index scan can seek on: the equality fields of the shape, then one of
+   *   its range fields
+   */
+  private static int seekPrefix(QueryShape shape, IndexInfo index) {
+    int prefix = 0;
+    for (IndexField field : index.getIndexFields()) {
+      if (shape.getEqualityFields().contains(field.getKey())) {
+        prefix++;
+        continue;
+      }
+      if (shape.getRangeFields().contains(field.getKey())) {
+        prefix++;
+      }
+      break;
+    }
+    return prefix;
+  }
+}
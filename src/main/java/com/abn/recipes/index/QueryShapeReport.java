@@ -0,0 +1,29 @@
+package com.abn.recipes.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class QueryShapeReport {
+
+  public enum Support {
+    /**
+     * An index starts with all the equality fields of the shape, followed by its range field if it has one.
+     */
+    INDEXED,
+    /**
+     * The best index starts with some of the equality or range fields, the others are filtered on the scanned documents.
+     */
+    PARTIAL,
+    /**
+     * No index starts with an equality or range field of the shape, the query scans the collection.
+     */
+    COLLECTION_SCAN
+  }
+
+  private String shape;
+  private long count;
+  private String index;
+  private Support support;
+}
@@ -0,0 +1,697 @@
+package com.abn.recipes.index;
+
+import com.abn.recipes.domain.Category;
+import com.abn.recipes.domain.Recipe;
+import com.abn.recipes.domain.RecipeDTO;
+import com.abn.recipes.events.RecipeChangedEvent;
+import com.abn.recipes.repositories.RecipeRepository;
+import com.abn.recipes.repositories.RecipeSearch;
+import com.abn.recipes.utils.SearchCriteriaBuilder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+
+/**
+ * In-memory snapshot of all the recipes in columns of primitives, answering the filtered searches without the database.
+ * <p>
+ * Every recipe is a row: its servings in an {@code int[]}, its category in a {@code byte[]}, its version in a
+ * {@code long[]}, its title as an offset into one shared {@code char[]} arena, its instructions, by far its largest
+ * field, as a handle of {@link TextSegments} outside the heap and its ingredients as the offset of their
+ * {@link IngredientDictionary} ids in one shared {@code int[]}. A recipe is only materialized when it is returned, its
+ * instructions only when they are. An update rewrites its row in place and appends its text and ingredients to the
+ * arenas, the rows of the deleted recipes and the replaced text and ingredients are reclaimed once they are half of the
+ * store.
+ * <p>
+ * The store is loaded on startup when {@code recipes.store.enabled} is set and kept current from
+ * {@link RecipeChangedEvent}s. It filters, sorts and projects as the database does, except for the full text
+ * {@code search}, which is left to the database. A reload builds new columns while the searches go on and swaps them
+ * in with the changes made meanwhile. A recipe is never stored without its version.
+ */
+@Slf4j
+@Component
+public class RecipeStore {
+
+  private static final int NONE = -1;
+
+  private static final int NO_SERVINGS = Integer.MIN_VALUE;
+
+  private static final long NO_VERSION = Long.MIN_VALUE;
+
+  private static final Category[] CATEGORIES = Category.values();
+
+  private static final int INITIAL_ROWS = 1024;
+
+  private final RecipeRepository recipeRepository;
+
+  private final IngredientDictionary dictionary;
+
+  private final boolean enabled;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private Columns columns;
+
+  /**
+   * The changes made while the store is reloaded, {@code null} when it is not.
+   */
+  private List<Consumer<Columns>> pending;
+
+  private volatile boolean ready;
+
+  public RecipeStore(RecipeRepository recipeRepository, IngredientDictionary dictionary,
+    @Value("${recipes.store.enabled:false}") boolean enabled) {
+    this.recipeRepository = recipeRepository;
+    this.dictionary = dictionary;
+    this.enabled = enabled;
+    if (enabled) {
+      columns = new Columns();
+    }
+  }
+
+  /**
+   * Loads the store from the database once the application has started, and again when it is stale. The new columns
+   * are filled without the lock and swapped in with the changes made meanwhile.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void load() {
+    if (!enabled) {
+      return;
+    }
+    lock.writeLock().lock();
+    try {
+      pending = new ArrayList<>();
+    } finally {
+      lock.writeLock().unlock();
+    }
+    Columns loaded = new Columns();
+    try (Stream<RecipeDTO> recipes = recipeRepository.streamAll(RecipeSearch.of(null))) {
+      recipes.forEach(recipe -> loaded.put(recipe.getId(), recipe.getTitle(), recipe.getServings(),
+        recipe.getIngredients(), recipe.getInstructions(), recipe.getCategory(), recipe.getVersion()));
+    } catch (RuntimeException e) {
+      lock.writeLock().lock();
+      try {
+        pending = null;
+      } finally {
+        lock.writeLock().unlock();
+      }
+      throw e;
+    }
+    lock.writeLock().lock();
+    try {
+      pending.forEach(change -> change.accept(loaded));
+      pending = null;
+      columns = loaded;
+      ready = true;
+      log.info("Recipe store loaded with {} recipes in {} chars of titles, {} ingredient ids and {} bytes of "
+        + "instructions off the heap", loaded.live.cardinality(), loaded.textSize, loaded.ingredientsSize,
+        loaded.instructionText.size());
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @EventListener
+  public void onRecipeChanged(RecipeChangedEvent event) {
+    if (!enabled) {
+      return;
+    }
+    if (event.getType() == RecipeChangedEvent.Type.STALE) {
+      load();
+      return;
+    }
+    Consumer<Columns> change = change(event);
+    lock.writeLock().lock();
+    try {
+      change.accept(columns);
+      if (pending != null) {
+        pending.add(change);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Finds the recipes matching the filters, in the order of their {@code sort} and with their {@code fields}, as
+   * {@link SearchCriteriaBuilder} would find them in the database.
+   *
+   * @param filters the filtered query from URI
+   * @return the matching recipes, empty when the store is not loaded or the filters hold a full text search
+   * @throws com.abn.recipes.exception.InvalidFilterException when a filter, sort or field is invalid
+   */
+  public Optional<List<Recipe>> search(MultiValueMap<String, String> filters) {
+    if (!ready || filters.containsKey("search")) {
+      return Optional.empty();
+    }
+    Filter filter = new Filter(filters);
+    Sort sort = SearchCriteriaBuilder.sort(filters);
+    Set<String> fields = SearchCriteriaBuilder.fields(filters);
+    lock.readLock().lock();
+    try {
+      return Optional.of(columns.search(filter, sort, fields));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @return the number of recipes in the store
+   */
+  public int size() {
+    if (!enabled) {
+      return 0;
+    }
+    lock.readLock().lock();
+    try {
+      return columns.live.cardinality();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * The change of the event to the columns. The saved recipes carry their version, the bulk writes read them back once
+   * per batch. A recipe saved without one, such as a bulk item deleted before its version was read, is read back from
+   * the database before the lock is taken and removed when it is gone.
+   */
+  private Consumer<Columns> change(RecipeChangedEvent event) {
+    String recipeId = event.getRecipeId();
+    switch (event.getType()) {
+      case SAVED:
+        Recipe recipe = event.getRecipe();
+        if (recipe.getVersion() == null) {
+          return recipeRepository.findById(recipeId)
+            .<Consumer<Columns>>map(saved -> target -> target.put(recipeId, saved.getTitle(), saved.getServings(),
+              saved.getIngredients(), saved.getInstructions(), saved.getCategory(), saved.getVersion()))
+            .orElse(target -> target.remove(recipeId));
+        }
+        return target -> target.put(recipeId, recipe.getTitle(), recipe.getServings(), recipe.getIngredients(),
+          recipe.getInstructions(), recipe.getCategory(), recipe.getVersion());
+      case DELETED:
+        return target -> target.remove(recipeId);
+      case CLEARED:
+        return Columns::clear;
+      default:
+        return target -> { };
+    }
+  }
+
+  /**
+   * The rows of the store, replaced as a whole when it is reloaded.
+   */
+  private final class Columns {
+
+    private final Map<String, Integer> rows = new HashMap<>();
+
+    private final BitSet live = new BitSet();
+
+    private int size;
+
+    private String[] ids;
+
+    private int[] servings;
+
+    private byte[] categories;
+
+    private long[] versions;
+
+    private int[] titleOffsets;
+
+    private int[] titleLengths;
+
+    private long[] instructionHandles;
+
+    private int[] ingredientOffsets;
+
+    private int[] ingredientCounts;
+
+    private char[] text;
+
+    private int textSize;
+
+    private int textGarbage;
+
+    private TextSegments instructionText;
+
+    private long instructionGarbage;
+
+    private int[] ingredients;
+
+    private int ingredientsSize;
+
+    private int ingredientGarbage;
+
+    private Columns() {
+      allocate(INITIAL_ROWS, INITIAL_ROWS * 64, INITIAL_ROWS * 8);
+    }
+
+    private List<Recipe> search(Filter filter, Sort sort, Set<String> fields) {
+      List<Integer> matching = new ArrayList<>();
+      if (filter.matchesAny) {
+        for (int row = live.nextSetBit(0); row >= 0; row = live.nextSetBit(row + 1)) {
+          if (matches(filter, row)) {
+            matching.add(row);
+          }
+        }
+      }
+      if (sort.isSorted()) {
+        matching.sort(comparator(sort));
+      }
+      List<Recipe> recipes = new ArrayList<>(matching.size());
+      matching.forEach(row -> recipes.add(recipe(row, fields)));
+      return recipes;
+    }
+
+    private void put(String recipeId, String title, Integer servings, Collection<String> recipeIngredients,
+      String instructions, Category category, Long version) {
+      Integer existing = rows.get(recipeId);
+      int row;
+      if (existing != null && live.get(existing)) {
+        row = existing;
+        if (version != null && versions[row] != NO_VERSION && versions[row] >= version) {
+          return;
+        }
+        textGarbage += Math.max(titleLengths[row], 0);
+        instructionGarbage += instructionText.footprint(instructionHandles[row]);
+        ingredientGarbage += Math.max(ingredientCounts[row], 0);
+      } else {
+        if (size == ids.length) {
+          grow();
+        }
+        row = size++;
+        rows.put(recipeId, row);
+        live.set(row);
+      }
+      ids[row] = recipeId;
+      this.servings[row] = servings == null ? NO_SERVINGS : servings;
+      categories[row] = category == null ? NONE : (byte) category.ordinal();
+      versions[row] = version == null ? NO_VERSION : version;
+      titleOffsets[row] = textSize;
+      titleLengths[row] = appendText(title);
+      instructionHandles[row] = instructionText.append(instructions);
+      ingredientOffsets[row] = ingredientsSize;
+      ingredientCounts[row] = appendIngredients(recipeIngredients);
+      compactIfWasteful();
+    }
+
+    private void remove(String recipeId) {
+      Integer row = rows.remove(recipeId);
+      if (row == null || !live.get(row)) {
+        return;
+      }
+      live.clear(row);
+      ids[row] = null;
+      textGarbage += Math.max(titleLengths[row], 0);
+      instructionGarbage += instructionText.footprint(instructionHandles[row]);
+      ingredientGarbage += Math.max(ingredientCounts[row], 0);
+      compactIfWasteful();
+    }
+
+    private void clear() {
+      rows.clear();
+      live.clear();
+      allocate(INITIAL_ROWS, INITIAL_ROWS * 64, INITIAL_ROWS * 8);
+    }
+
+    /**
+     * @return the length of the appended text, {@link #NONE} for {@code null}
+     */
+    private int appendText(String value) {
+      if (value == null) {
+        return NONE;
+      }
+      if (textSize + value.length() > text.length) {
+        text = Arrays.copyOf(text, Math.max(text.length * 2, textSize + value.length()));
+      }
+      value.getChars(0, value.length(), text, textSize);
+      textSize += value.length();
+      return value.length();
+    }
+
+    /**
+     * @return the number of appended ingredient ids, {@link #NONE} for {@code null}
+     */
+    private int appendIngredients(Collection<String> values) {
+      if (values == null) {
+        return NONE;
+      }
+      if (ingredientsSize + values.size() > ingredients.length) {
+        ingredients = Arrays.copyOf(ingredients, Math.max(ingredients.length * 2, ingredientsSize + values.size()));
+      }
+      int start = ingredientsSize;
+      for (String ingredient : values) {
+        int id = dictionary.id(ingredient);
+        if (!contains(start, ingredientsSize - start, id)) {
+          ingredients[ingredientsSize++] = id;
+        }
+      }
+      return ingredientsSize - start;
+    }
+
+    private void grow() {
+      int capacity = ids.length * 2;
+      ids = Arrays.copyOf(ids, capacity);
+      servings = Arrays.copyOf(servings, capacity);
+      categories = Arrays.copyOf(categories, capacity);
+      versions = Arrays.copyOf(versions, capacity);
+      titleOffsets = Arrays.copyOf(titleOffsets, capacity);
+      titleLengths = Arrays.copyOf(titleLengths, capacity);
+      instructionHandles = Arrays.copyOf(instructionHandles, capacity);
+      ingredientOffsets = Arrays.copyOf(ingredientOffsets, capacity);
+      ingredientCounts = Arrays.copyOf(ingredientCounts, capacity);
+    }
+
+    /**
+     * Rewrites the live rows, in their order, into new arrays once the deleted rows or the replaced text or
+     * ingredients are half of the store, so a write costs the copy of a constant number of rows on average.
+     */
+    private void compactIfWasteful() {
+      int deleted = size - live.cardinality();
+      if (deleted <= size / 2 && textGarbage <= textSize / 2 && ingredientGarbage <= ingredientsSize / 2
+        && instructionGarbage <= instructionText.size() / 2) {
+        return;
+      }
+      String[] oldIds = ids;
+      int[] oldServings = servings;
+      byte[] oldCategories = categories;
+      long[] oldVersions = versions;
+      int[] oldTitleOffsets = titleOffsets;
+      int[] oldTitleLengths = titleLengths;
+      long[] oldInstructionHandles = instructionHandles;
+      TextSegments oldInstructionText = instructionText;
+      int[] oldIngredientOffsets = ingredientOffsets;
+      int[] oldIngredientCounts = ingredientCounts;
+      char[] oldText = text;
+      int[] oldIngredients = ingredients;
+      BitSet oldLive = (BitSet) live.clone();
+      int rowCount = oldLive.cardinality();
+
+      allocate(Math.max(INITIAL_ROWS, rowCount * 2), Math.max(INITIAL_ROWS * 64, (textSize - textGarbage) * 2),
+        Math.max(INITIAL_ROWS * 8, (ingredientsSize - ingredientGarbage) * 2));
+      rows.clear();
+      live.clear();
+      for (int oldRow = oldLive.nextSetBit(0); oldRow >= 0; oldRow = oldLive.nextSetBit(oldRow + 1)) {
+        int row = size++;
+        ids[row] = oldIds[oldRow];
+        rows.put(ids[row], row);
+        live.set(row);
+        servings[row] = oldServings[oldRow];
+        categories[row] = oldCategories[oldRow];
+        versions[row] = oldVersions[oldRow];
+        titleOffsets[row] = textSize;
+        titleLengths[row] = copyText(oldText, oldTitleOffsets[oldRow], oldTitleLengths[oldRow]);
+        instructionHandles[row] = instructionText.copy(oldInstructionHandles[oldRow], oldInstructionText);
+        ingredientOffsets[row] = ingredientsSize;
+        int count = oldIngredientCounts[oldRow];
+        if (count > 0) {
+          System.arraycopy(oldIngredients, oldIngredientOffsets[oldRow], ingredients, ingredientsSize, count);
+          ingredientsSize += count;
+        }
+        ingredientCounts[row] = count;
+      }
+    }
+
+    private int copyText(char[] from, int offset, int length) {
+      if (length > 0) {
+        System.arraycopy(from, offset, text, textSize, length);
+        textSize += length;
+      }
+      return length;
+    }
+
+    private void allocate(int rowCapacity, int textCapacity, int ingredientCapacity) {
+      size = 0;
+      ids = new String[rowCapacity];
+      servings = new int[rowCapacity];
+      categories = new byte[rowCapacity];
+      versions = new long[rowCapacity];
+      titleOffsets = new int[rowCapacity];
+      titleLengths = new int[rowCapacity];
+      instructionHandles = new long[rowCapacity];
+      ingredientOffsets = new int[rowCapacity];
+      ingredientCounts = new int[rowCapacity];
+      text = new char[textCapacity];
+      textSize = 0;
+      textGarbage = 0;
+      instructionText = new TextSegments();
+      instructionGarbage = 0;
+      ingredients = new int[ingredientCapacity];
+      ingredientsSize = 0;
+      ingredientGarbage = 0;
+    }
+
+    private boolean contains(int offset, int count, int ingredient) {
+      for (int index = offset; index < offset + count; index++) {
+        if (ingredients[index] == ingredient) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Whether the text at the offset contains the lower cased needle, ignoring case as a case insensitive regular
+     * expression does.
+     */
+    private boolean containsIgnoreCase(int offset, int length, char[] needle) {
+      if (length < needle.length) {
+        return false;
+      }
+      for (int start = offset; start <= offset + length - needle.length; start++) {
+        int index = 0;
+        while (index < needle.length && TextSegments.foldCase(text[start + index]) == needle[index]) {
+          index++;
+        }
+        if (index == needle.length) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private Recipe recipe(int row, Set<String> fields) {
+      Recipe recipe = new Recipe();
+      recipe.setId(ids[row]);
+      if (fields.isEmpty() || fields.contains("title")) {
+        recipe.setTitle(string(titleOffsets[row], titleLengths[row]));
+      }
+      if ((fields.isEmpty() || fields.contains("servings")) && servings[row] != NO_SERVINGS) {
+        recipe.setServings(servings[row]);
+      }
+      if ((fields.isEmpty() || fields.contains("ingredients")) && ingredientCounts[row] != NONE) {
+        Set<String> names = new LinkedHashSet<>(ingredientCounts[row] * 2);
+        for (int index = ingredientOffsets[row]; index < ingredientOffsets[row] + ingredientCounts[row]; index++) {
+          names.add(dictionary.name(ingredients[index]));
+        }
+        recipe.setIngredients(names);
+      }
+      if (fields.isEmpty() || fields.contains("instructions")) {
+        recipe.setInstructions(instructionText.read(instructionHandles[row]));
+      }
+      if ((fields.isEmpty() || fields.contains("category")) && categories[row] != NONE) {
+        recipe.setCategory(CATEGORIES[categories[row]]);
+      }
+      if ((fields.isEmpty() || fields.contains("version")) && versions[row] != NO_VERSION) {
+        recipe.setVersion(versions[row]);
+      }
+      return recipe;
+    }
+
+    private String string(int offset, int length) {
+      return length == NONE ? null : new String(text, offset, length);
+    }
+
+    /**
+     * Orders the rows as the database orders the documents: a missing value first, strings by their characters and the
+     * categories by their name.
+     */
+    private Comparator<Integer> comparator(Sort sort) {
+      Comparator<Integer> comparator = null;
+      for (Sort.Order order : sort) {
+        Comparator<Integer> field;
+        switch (order.getProperty()) {
+          case "title":
+            field = (left, right) -> compareText(titleOffsets[left], titleLengths[left], titleOffsets[right],
+              titleLengths[right]);
+            break;
+          case "servings":
+            field = Comparator.comparingInt(row -> servings[row]);
+            break;
+          case "category":
+            field = Comparator.comparing(row -> categories[row] == NONE ? null : CATEGORIES[categories[row]].name(),
+              Comparator.nullsFirst(Comparator.naturalOrder()));
+            break;
+          default:
+            field = Comparator.comparing(row -> ids[row]);
+        }
+        if (order.isDescending()) {
+          field = field.reversed();
+        }
+        comparator = comparator == null ? field : comparator.thenComparing(field);
+      }
+      return comparator;
+    }
+
+    private int compareText(int leftOffset, int leftLength, int rightOffset, int rightLength) {
+      if (leftLength == NONE || rightLength == NONE) {
+        return Integer.compare(leftLength == NONE ? 0 : 1, rightLength == NONE ? 0 : 1);
+      }
+      for (int index = 0; index < Math.min(leftLength, rightLength); index++) {
+        int compared = Character.compare(text[leftOffset + index], text[rightOffset + index]);
+        if (compared != 0) {
+          return compared;
+        }
+      }
+      return Integer.compare(leftLength, rightLength);
+    }
+
+    private boolean matches(Filter filter, int row) {
+      int recipeServings = servings[row];
+      if ((filter.servingsEquals != null || filter.servingsFrom != null || filter.servingsTo != null)
+        && recipeServings == NO_SERVINGS) {
+        return false;
+      }
+      if (filter.servingsEquals != null && recipeServings != filter.servingsEquals
+        || filter.servingsFrom != null && recipeServings < filter.servingsFrom
+        || filter.servingsTo != null && recipeServings > filter.servingsTo) {
+        return false;
+      }
+      if (filter.categoriesIn != null && (categories[row] == NONE || !filter.categoriesIn[categories[row]])) {
+        return false;
+      }
+      int offset = ingredientOffsets[row];
+      int count = Math.max(ingredientCounts[row], 0);
+      for (int ingredient : filter.includes) {
+        if (!contains(offset, count, ingredient)) {
+          return false;
+        }
+      }
+      for (int ingredient : filter.excludes) {
+        if (contains(offset, count, ingredient)) {
+          return false;
+        }
+      }
+      if (!containsAll(titleOffsets[row], titleLengths[row], filter.titles)) {
+        return false;
+      }
+      long handle = instructionHandles[row];
+      if (!filter.instructions.isEmpty() && handle == TextSegments.NONE) {
+        return false;
+      }
+      for (char[] needle : filter.instructions) {
+        if (!instructionText.containsIgnoreCase(handle, needle)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private boolean containsAll(int offset, int length, List<char[]> needles) {
+      if (needles.isEmpty()) {
+        return true;
+      }
+      if (length == NONE) {
+        return false;
+      }
+      for (char[] needle : needles) {
+        if (!containsIgnoreCase(offset, length, needle)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /**
+   * The filters of {@link SearchCriteriaBuilder#addCondition(MultiValueMap)}, matched against the rows by
+   * {@link Columns}.
+   */
+  private final class Filter {
+
+    private Integer servingsEquals;
+
+    private Integer servingsFrom;
+
+    private Integer servingsTo;
+
+    private boolean[] categoriesIn;
+
+    private final List<Integer> includes = new ArrayList<>();
+
+    private final List<Integer> excludes = new ArrayList<>();
+
+    private final List<char[]> titles = new ArrayList<>();
+
+    private final List<char[]> instructions = new ArrayList<>();
+
+    /**
+     * Whether a recipe may match at all, not when it includes an ingredient no recipe ever had.
+     */
+    private boolean matchesAny = true;
+
+    private Filter(MultiValueMap<String, String> filters) {
+      filters.forEach((key, values) -> {
+        switch (key) {
+          case "servings":
+            servingsEquals = SearchCriteriaBuilder.servings(key, values.get(0));
+            break;
+          case "servings[gte]":
+            servingsFrom = SearchCriteriaBuilder.servings(key, values.get(0));
+            break;
+          case "servings[lte]":
+            servingsTo = SearchCriteriaBuilder.servings(key, values.get(0));
+            break;
+          case "includes":
+            values.forEach(ingredient -> {
+              OptionalInt id = dictionary.find(ingredient);
+              id.ifPresent(includes::add);
+              matchesAny &= id.isPresent();
+            });
+            break;
+          case "excludes":
+            values.forEach(ingredient -> dictionary.find(ingredient).ifPresent(excludes::add));
+            break;
+          case "instructions":
+            values.forEach(value -> instructions.add(lowerCase(value)));
+            break;
+          case "title":
+            values.forEach(value -> titles.add(lowerCase(value)));
+            break;
+          case "category":
+            categoriesIn = new boolean[CATEGORIES.length];
+            SearchCriteriaBuilder.categories(values).forEach(category -> categoriesIn[category.ordinal()] = true);
+            break;
+          default:
+        }
+      });
+    }
+
+    private char[] lowerCase(String value) {
+      char[] lowerCase = value.toCharArray();
+      for (int index = 0; index < lowerCase.length; index++) {
+        lowerCase[index] = TextSegments.foldCase(lowerCase[index]);
+      }
+      return lowerCase;
+    }
+  }
+}
@@ -0,0 +1,40 @@
+package com.abn.recipes.index;
+
+import java.util.Date;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.bson.Document;
+
+/**
+ * A recipe search which took longer than the slow query threshold, with how the database ran it. The execution
+ * statistics and the plan are {@code null} when the search was not explained.
+ */
+@Getter
+@AllArgsConstructor
+public class SlowQuery {
+
+  private Date timestamp;
+
+  /**
+   * The {@link QueryShape} of the search.
+   */
+  private String shape;
+
+  /**
+   * The Querydsl predicate built from the filters.
+   */
+  private String predicate;
+
+  private long durationMillis;
+
+  private Long keysExamined;
+
+  private Long docsExamined;
+
+  private Long returned;
+
+  /**
+   * The winning plan chosen by the query planner.
+   */
+  private Document winningPlan;
+}
@@ -0,0 +1,174 @@
+package com.abn.recipes.index;
+
+import com.abn.recipes.repositories.RecipeRepository;
+import com.abn.recipes.repositories.RecipeSearch;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Logs the recipe searches slower than {@code recipes.slow-query.threshold} and keeps the last
+ * {@code recipes.slow-query.capacity} of them for the admin endpoint.
+ * <p>
+ * A slow search is explained when {@code recipes.slow-query.explain} is set, which runs its winning plan once more to
+ * count the keys and documents it examines. The explains run on one background thread, off the request, and at most
+ * once per {@code recipes.slow-query.explain-interval} for each {@link QueryShape}. A search which is not explained,
+ * or whose explain does not fit in the queue, is recorded without its plan.
+ */
+@Slf4j
+@Component
+public class SlowQueryLog {
+
+  private static final int EXPLAIN_QUEUE_SIZE = 8;
+
+  private final RecipeRepository recipeRepository;
+
+  private final long thresholdNanos;
+
+  private final int capacity;
+
+  private final boolean explain;
+
+  private final long explainIntervalNanos;
+
+  private final Executor explainer;
+
+  private final Map<QueryShape, Long> lastExplained = new ConcurrentHashMap<>();
+
+  private final Deque<SlowQuery> recent = new ArrayDeque<>();
+
+  @Autowired
+  public SlowQueryLog(RecipeRepository recipeRepository,
+    @Value("${recipes.slow-query.threshold:500ms}") Duration threshold,
+    @Value("${recipes.slow-query.capacity:100}") int capacity,
+    @Value("${recipes.slow-query.explain:false}") boolean explain,
+    @Value("${recipes.slow-query.explain-interval:1m}") Duration explainInterval) {
+    this(recipeRepository, threshold, capacity, explain, explainInterval, explainer());
+  }
+
+  SlowQueryLog(RecipeRepository recipeRepository, Duration threshold, int capacity, boolean explain,
+    Duration explainInterval, Executor explainer) {
+    this.recipeRepository = recipeRepository;
+    this.thresholdNanos = threshold.toNanos();
+    this.capacity = capacity;
+    this.explain = explain;
+    this.explainIntervalNanos = explainInterval.toNanos();
+    this.explainer = explainer;
+  }
+
+  /**
+   * @param shape the {@link QueryShape} of the search
+   * @param search the {@link RecipeSearch} that ran
+   * @param elapsedNanos how long the search took, it is ignored below the threshold
+   */
+  public void record(QueryShape shape, RecipeSearch search, long elapsedNanos) {
+    if (elapsedNanos < thresholdNanos || capacity <= 0) {
+      return;
+    }
+    Date timestamp = new Date();
+    if (explain && shouldExplain(shape)) {
+      try {
+        explainer.execute(() -> record(timestamp, shape, search, elapsedNanos, explain(search)));
+        return;
+      } catch (RejectedExecutionException e) {
+        lastExplained.remove(shape);
+      }
+    }
+    record(timestamp, shape, search, elapsedNanos, null);
+  }
+
+  /**
+   * @return the recorded {@link SlowQuery}s, most recent first
+   */
+  public List<SlowQuery> recent() {
+    synchronized (recent) {
+      return new ArrayList<>(recent);
+    }
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (explainer instanceof ThreadPoolExecutor) {
+      ((ThreadPoolExecutor) explainer).shutdownNow();
+    }
+  }
+
+  private void record(Date timestamp, QueryShape shape, RecipeSearch search, long elapsedNanos, Document stats) {
+    Document executionStats = stats == null ? null : stats.get("executionStats", Document.class);
+    Document queryPlanner = stats == null ? null : stats.get("queryPlanner", Document.class);
+    SlowQuery slowQuery = new SlowQuery(timestamp, shape.toString(), String.valueOf(search.getPredicate()),
+      Duration.ofNanos(elapsedNanos).toMillis(),
+      count(executionStats, "totalKeysExamined"),
+      count(executionStats, "totalDocsExamined"),
+      count(executionStats, "nReturned"),
+      queryPlanner == null ? null : queryPlanner.get("winningPlan", Document.class));
+    log.warn("Slow query of {} ms with shape {} and predicate {}, examined {} keys and {} documents to return {}, plan {}",
+      slowQuery.getDurationMillis(), slowQuery.getShape(), slowQuery.getPredicate(), slowQuery.getKeysExamined(),
+      slowQuery.getDocsExamined(), slowQuery.getReturned(),
+      slowQuery.getWinningPlan() == null ? null : slowQuery.getWinningPlan().toJson());
+    synchronized (recent) {
+      if (recent.size() == capacity) {
+        recent.removeLast();
+      }
+      recent.addFirst(slowQuery);
+    }
+  }
+
+  /**
+   * @return whether the shape was not explained during the last interval, in which case it is now
+   */
+  private boolean shouldExplain(QueryShape shape) {
+    long now = System.nanoTime();
+    Long last = lastExplained.get(shape);
+    if (last != null && now - last < explainIntervalNanos) {
+      return false;
+    }
+    return last == null ? lastExplained.putIfAbsent(shape, now) == null : lastExplained.replace(shape, last, now);
+  }
+
+  private Document explain(RecipeSearch search) {
+    try {
+      return recipeRepository.explain(search);
+    } catch (DataAccessException e) {
+      log.warn("Slow query could not be explained", e);
+      return null;
+    }
+  }
+
+  private static Long count(Document stats, String key) {
+    if (stats == null) {
+      return null;
+    }
+    Object count = stats.get(key);
+    return count instanceof Number ? ((Number) count).longValue() : null;
+  }
+
+  /**
+   * @return one daemon thread with a short queue, rejecting the explains which do not fit
+   */
+  private static ThreadPoolExecutor explainer() {
+    return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(EXPLAIN_QUEUE_SIZE),
+      runnable -> {
+        Thread thread = new Thread(runnable, "slow-query-explainer");
+        thread.setDaemon(true);
+        return thread;
+      });
+  }
+}
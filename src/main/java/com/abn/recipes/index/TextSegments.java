@@ -0,0 +1,220 @@
+package com.abn.recipes.index;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only store of texts in UTF-8 outside the heap, in direct {@link ByteBuffer} chunks.
+ * <p>
+ * Every text is a segment of a chunk, its length followed by its bytes, and is referred to by a {@code long} handle:
+ * the index of its chunk and its offset in it. The heap only holds the handles, the texts are decoded when they are
+ * read. A text is never freed: the owner counts the bytes of the texts it no longer uses and copies the ones it still
+ * uses to new segments once they are worth it, the chunks of the old segments are freed when they are collected.
+ * <p>
+ * Not thread safe: the owner guards appends with an exclusive lock and reads with a shared one.
+ */
+final class TextSegments {
+
+  /**
+   * The handle of a {@code null} text.
+   */
+  public static final long NONE = -1L;
+
+  public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+  private static final int HEADER = Integer.BYTES;
+
+  private final int chunkSize;
+
+  private final List<ByteBuffer> chunks = new ArrayList<>();
+
+  private ByteBuffer current;
+
+  private long size;
+
+  public TextSegments() {
+    this(DEFAULT_CHUNK_SIZE);
+  }
+
+  public TextSegments(int chunkSize) {
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * @param text the text to store, may be {@code null}
+   * @return the handle of the stored text
+   */
+  public long append(String text) {
+    if (text == null) {
+      return NONE;
+    }
+    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    long handle = reserve(bytes.length);
+    current.put(bytes);
+    return handle;
+  }
+
+  /**
+   * Copies a text without decoding it.
+   *
+   * @param handle the handle of the text in the other segments
+   * @param from the segments holding the text
+   * @return the handle of the copy in these segments
+   */
+  public long copy(long handle, TextSegments from) {
+    if (handle == NONE) {
+      return NONE;
+    }
+    ByteBuffer text = from.segment(handle);
+    long copy = reserve(text.remaining());
+    current.put(text);
+    return copy;
+  }
+
+  /**
+   * @param handle the handle of a text
+   * @return the decoded text, {@code null} for {@link #NONE}
+   */
+  public String read(long handle) {
+    if (handle == NONE) {
+      return null;
+    }
+    ByteBuffer text = segment(handle);
+    byte[] bytes = new byte[text.remaining()];
+    text.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Whether the text contains the lower cased needle, ignoring case as a case insensitive regular expression does. The
+   * text is matched in its UTF-8 bytes without being decoded: an ASCII needle byte by byte, since the bytes of a
+   * multibyte character never match an ASCII one, and another needle character by character, decoded as they are
+   * compared.
+   *
+   * @param handle the handle of a text, not {@link #NONE}
+   * @param needle the characters to find, each lower cased with {@link #foldCase(char)}
+   * @return whether the text contains the needle
+   */
+  public boolean containsIgnoreCase(long handle, char[] needle) {
+    ByteBuffer text = segment(handle);
+    int from = text.position();
+    int to = text.limit();
+    if (!isAscii(needle)) {
+      for (int start = from; start < to; start++) {
+        if ((text.get(start) & 0xC0) != 0x80 && matchesAt(text, start, needle)) {
+          return true;
+        }
+      }
+      return false;
+    }
+    for (int start = from; start <= to - needle.length; start++) {
+      int index = 0;
+      while (index < needle.length && foldCase((char) (text.get(start + index) & 0xFF)) == needle[index]) {
+        index++;
+      }
+      if (index == needle.length) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @param handle the handle of a text
+   * @return the bytes the text takes, 0 for {@link #NONE}
+   */
+  public int footprint(long handle) {
+    return handle == NONE ? 0 : HEADER + segment(handle).remaining();
+  }
+
+  /**
+   * @return the bytes taken by all the texts
+   */
+  public long size() {
+    return size;
+  }
+
+  /**
+   * @return the bytes allocated outside the heap
+   */
+  public long capacity() {
+    return chunks.stream().mapToLong(ByteBuffer::capacity).sum();
+  }
+
+  /**
+   * @return the character lower cased as a case insensitive match compares it
+   */
+  public static char foldCase(char character) {
+    return Character.toLowerCase(Character.toUpperCase(character));
+  }
+
+  /**
+   * Writes the length of a text of the given number of bytes, leaving the current chunk positioned on its bytes.
+   */
+  private long reserve(int length) {
+    int needed = HEADER + length;
+    if (current == null || current.remaining() < needed) {
+      current = ByteBuffer.allocateDirect(Math.max(chunkSize, needed));
+      chunks.add(current);
+    }
+    long handle = ((long) (chunks.size() - 1) << 32) | current.position();
+    current.putInt(length);
+    size += needed;
+    return handle;
+  }
+
+  /**
+   * @return a view of the bytes of the text, reading it does not move the chunk under the other readers
+   */
+  private ByteBuffer segment(long handle) {
+    ByteBuffer chunk = chunks.get((int) (handle >>> 32)).duplicate();
+    int offset = (int) handle;
+    int length = chunk.getInt(offset);
+    chunk.limit(offset + HEADER + length).position(offset + HEADER);
+    return chunk;
+  }
+
+  /**
+   * Compares the characters from a character boundary of the text with the needle, decoding them one at a time. A
+   * supplementary character is compared as its two surrogates.
+   */
+  private static boolean matchesAt(ByteBuffer text, int position, char[] needle) {
+    int index = 0;
+    while (index < needle.length) {
+      if (position >= text.limit()) {
+        return false;
+      }
+      int lead = text.get(position) & 0xFF;
+      int length = lead < 0x80 ? 1 : lead < 0xE0 ? 2 : lead < 0xF0 ? 3 : 4;
+      int codePoint = length == 1 ? lead : lead & (0xFF >> (length + 1));
+      for (int continuation = 1; continuation < length; continuation++) {
+        codePoint = codePoint << 6 | text.get(position + continuation) & 0x3F;
+      }
+      position += length;
+      if (Character.isBmpCodePoint(codePoint)) {
+        if (foldCase((char) codePoint) != needle[index++]) {
+          return false;
+        }
+      } else {
+        if (Character.highSurrogate(codePoint) != needle[index++]) {
+          return false;
+        }
+        if (index < needle.length && Character.lowSurrogate(codePoint) != needle[index++]) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static boolean isAscii(char[] characters) {
+    for (char character : characters) {
+      if (character >= 0x80) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,66 @@
+package com.abn.recipes.metrics;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * The names and tags of the application meters.
+ * <p>
+ * Tags only take values from small closed sets, so that a client cannot create new time series and the histograms stay
+ * few: the filters are one of {@value #NONE}, {@value #INGREDIENTS}, {@value #TEXT} or {@value #OTHER}, and outcomes
+ * are {@value #SUCCESS} or the simple name of the exception.
+ */
+public final class RecipeMetrics {
+
+  public static final String SERVICE_TIMER = "recipes.service";
+  public static final String PATCH_TIMER = "recipes.patch";
+  public static final String ERROR_COUNTER = "recipes.errors";
+
+  public static final String METHOD_TAG = "method";
+  public static final String FILTERS_TAG = "filters";
+  public static final String OUTCOME_TAG = "outcome";
+  public static final String PHASE_TAG = "phase";
+  public static final String TYPE_TAG = "type";
+  public static final String EXCEPTION_TAG = "exception";
+  public static final String STATUS_TAG = "status";
+
+  public static final String SUCCESS = "success";
+  public static final String NONE = "none";
+  public static final String INGREDIENTS = "ingredients";
+  public static final String TEXT = "text";
+  public static final String OTHER = "other";
+
+  private static final Set<String> INGREDIENT_KEYS = Set.of("includes", "excludes");
+
+  private static final Set<String> OTHER_FILTER_KEYS = Set.of("servings", "servings[gte]", "servings[lte]", "category",
+    "instructions", "title");
+
+  private RecipeMetrics() {
+  }
+
+  /**
+   * @param keys the query parameter names of a request
+   * @return {@value #TEXT} for a full text search, {@value #INGREDIENTS} when it only filters on ingredients,
+   *   {@value #OTHER} for the other filters and {@value #NONE} without filter, whatever the sort, fields or page
+   */
+  public static String filters(Collection<String> keys) {
+    if (keys.contains("search")) {
+      return TEXT;
+    }
+    boolean ingredients = false;
+    for (String key : keys) {
+      if (OTHER_FILTER_KEYS.contains(key)) {
+        return OTHER;
+      }
+      ingredients |= INGREDIENT_KEYS.contains(key);
+    }
+    return ingredients ? INGREDIENTS : NONE;
+  }
+
+  /**
+   * @return the outcome tag of a call that threw the given exception, {@value #SUCCESS} when it is {@code null}
+   */
+  public static String outcome(Throwable exception) {
+    return exception == null ? SUCCESS : exception.getClass().getSimpleName();
+  }
+}
@@ -0,0 +1,83 @@
+package com.abn.recipes.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+import java.util.stream.Collectors;
+import org.springframework.util.MultiValueMap;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Times every call to the {@link com.abn.recipes.services.RecipeService} and the
+ * {@link com.abn.recipes.services.ReactiveRecipeService}, tagged by method, kind of filters and outcome. The mapper is
+ * not timed: it converts every recipe of the lists and streams, too often for a timer of its own. The recipes of the
+ * lazy lists are converted after the service returned, neither timed nor counted.
+ * <p>
+ * A {@link Mono} or {@link Flux} is timed from its subscription until it completes or fails. Methods returning a
+ * {@link java.util.stream.Stream} are timed until the stream is returned, not until it is consumed.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RecipeMetricsAspect {
+
+  private final MeterRegistry meterRegistry;
+
+  @Around("execution(* com.abn.recipes.services.RecipeService.*(..))"
+    + " || execution(* com.abn.recipes.services.ReactiveRecipeService.*(..))")
+  public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+    return time(RecipeMetrics.SERVICE_TIMER, joinPoint);
+  }
+
+  private Object time(String name, ProceedingJoinPoint joinPoint) throws Throwable {
+    Tags tags = Tags.of(
+      RecipeMetrics.METHOD_TAG, joinPoint.getSignature().getName(),
+      RecipeMetrics.FILTERS_TAG, filters(joinPoint.getArgs()));
+    Timer.Sample sample = Timer.start(meterRegistry);
+    Object result;
+    try {
+      result = joinPoint.proceed();
+    } catch (Throwable e) {
+      stop(sample, name, tags, e);
+      throw e;
+    }
+    if (result instanceof Mono) {
+      return Mono.defer(() -> {
+        Timer.Sample subscribed = Timer.start(meterRegistry);
+        return ((Mono<?>) result)
+          .doOnSuccess(value -> stop(subscribed, name, tags, null))
+          .doOnError(e -> stop(subscribed, name, tags, e));
+      });
+    }
+    if (result instanceof Flux) {
+      return Flux.defer(() -> {
+        Timer.Sample subscribed = Timer.start(meterRegistry);
+        return ((Flux<?>) result)
+          .doOnComplete(() -> stop(subscribed, name, tags, null))
+          .doOnError(e -> stop(subscribed, name, tags, e));
+      });
+    }
+    stop(sample, name, tags, null);
+    return result;
+  }
+
+  private void stop(Timer.Sample sample, String name, Tags tags, Throwable thrown) {
+    sample.stop(meterRegistry.timer(name, tags.and(RecipeMetrics.OUTCOME_TAG, RecipeMetrics.outcome(thrown))));
+  }
+
+  private static String filters(Object[] args) {
+    for (Object arg : args) {
+      if (arg instanceof MultiValueMap) {
+        return RecipeMetrics.filters(((MultiValueMap<?, ?>) arg).keySet().stream().map(String::valueOf)
+          .collect(Collectors.toList()));
+      }
+    }
+    return RecipeMetrics.NONE;
+  }
+}
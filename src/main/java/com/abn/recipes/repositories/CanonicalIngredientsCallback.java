@@ -0,0 +1,41 @@
+package com.abn.recipes.repositories;
+
+import com.abn.recipes.domain.RecipeDTO;
+import com.abn.recipes.index.IngredientDictionary;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.mapping.event.AfterConvertCallback;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertCallback;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stores the ingredients of the recipes by their canonical name and replaces the ingredients of every loaded recipe
+ * with the shared names of the {@link IngredientDictionary}, so the loaded recipes do not each keep their own copies.
+ * The loaded names are already canonical and only looked up, not normalized again.
+ */
+@Component
+@RequiredArgsConstructor
+public class CanonicalIngredientsCallback implements BeforeConvertCallback<RecipeDTO>, AfterConvertCallback<RecipeDTO> {
+
+  private final IngredientDictionary dictionary;
+
+  @Override
+  public RecipeDTO onBeforeConvert(RecipeDTO recipe, String collection) {
+    return canonical(recipe);
+  }
+
+  @Override
+  public RecipeDTO onAfterConvert(RecipeDTO recipe, Document document, String collection) {
+    return canonicalStored(recipe);
+  }
+
+  RecipeDTO canonical(RecipeDTO recipe) {
+    recipe.setIngredients(dictionary.canonical(recipe.getIngredients()));
+    return recipe;
+  }
+
+  RecipeDTO canonicalStored(RecipeDTO recipe) {
+    recipe.setIngredients(dictionary.canonicalStored(recipe.getIngredients()));
+    return recipe;
+  }
+}
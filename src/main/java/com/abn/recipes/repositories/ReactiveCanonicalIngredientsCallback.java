@@ -0,0 +1,31 @@
+package com.abn.recipes.repositories;
+
+import com.abn.recipes.domain.RecipeDTO;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.reactivestreams.Publisher;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveAfterConvertCallback;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveBeforeConvertCallback;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * The {@link CanonicalIngredientsCallback} of the reactive repository.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReactiveCanonicalIngredientsCallback
+  implements ReactiveBeforeConvertCallback<RecipeDTO>, ReactiveAfterConvertCallback<RecipeDTO> {
+
+  private final CanonicalIngredientsCallback callback;
+
+  @Override
+  public Publisher<RecipeDTO> onBeforeConvert(RecipeDTO recipe, String collection) {
+    return Mono.just(callback.canonical(recipe));
+  }
+
+  @Override
+  public Publisher<RecipeDTO> onAfterConvert(RecipeDTO recipe, Document document, String collection) {
+    return Mono.just(callback.canonicalStored(recipe));
+  }
+}
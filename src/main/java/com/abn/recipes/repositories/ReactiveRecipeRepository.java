@@ -0,0 +1,14 @@
+package com.abn.recipes.repositories;
+
+import com.abn.recipes.domain.RecipeDTO;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.data.querydsl.ReactiveQuerydslPredicateExecutor;
+import org.springframework.stereotype.Repository;
+
+/**
+ * The non-blocking counterpart of {@link RecipeRepository}, used by the reactive deployment mode.
+ */
+@Repository
+public interface ReactiveRecipeRepository
+  extends ReactiveMongoRepository<RecipeDTO, String>, ReactiveQuerydslPredicateExecutor<RecipeDTO>, ReactiveRecipeRepositoryCustom {
+}
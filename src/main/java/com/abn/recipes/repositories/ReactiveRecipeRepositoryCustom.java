@@ -0,0 +1,53 @@
+package com.abn.recipes.repositories;
+
+import com.abn.recipes.domain.RecipeDTO;
+import com.abn.recipes.domain.RecipeFacets;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveRecipeRepositoryCustom {
+
+  /**
+   * Finds the recipes matching the search, with its projection and sort order.
+   *
+   * @param search the {@link RecipeSearch}
+   * @return the matching {@link RecipeDTO}, read from the cursor as they are requested
+   */
+  Flux<RecipeDTO> search(RecipeSearch search);
+
+  /**
+   * Counts the recipes matching the search per category, servings bucket and ingredient with one aggregation.
+   *
+   * @param search the {@link RecipeSearch}, its sort and fields are ignored
+   * @param topIngredients the number of most used ingredients to count
+   * @return the {@link RecipeFacets}
+   */
+  Mono<RecipeFacets> facets(RecipeSearch search, int topIngredients);
+
+  /**
+   * Counts the recipes matching the search without reading them.
+   *
+   * @param search the {@link RecipeSearch}, its sort and fields are ignored
+   * @return the number of matching recipes
+   */
+  Mono<Long> count(RecipeSearch search);
+
+  /**
+   * Checks whether any recipe matches the search, stopping at the first one.
+   *
+   * @param search the {@link RecipeSearch}, its sort and fields are ignored
+   * @return whether a recipe matches
+   */
+  Mono<Boolean> exists(RecipeSearch search);
+
+  /**
+   * Applies the {@link RecipeUpdate} to the recipe with the given id in one atomic operation and increments its version.
+   *
+   * @param recipeId the id of the recipe
+   * @param version the version the recipe must be at, {@code null} for any version
+   * @param recipeUpdate the compiled patch
+   * @return the updated {@link RecipeDTO}, or empty when no recipe has the id and version or it does not match the
+   *   update criteria
+   */
+  Mono<RecipeDTO> update(String recipeId, Long version, RecipeUpdate recipeUpdate);
+}
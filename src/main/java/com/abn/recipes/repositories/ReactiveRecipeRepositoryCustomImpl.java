@@ -0,0 +1,52 @@
+package com.abn.recipes.repositories;
+
+import com.abn.recipes.domain.RecipeDTO;
+import com.abn.recipes.domain.RecipeFacets;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive Mongo implementation of {@link ReactiveRecipeRepositoryCustom}. The blocking {@link MongoOperations} is only
+ * used by {@link RecipeQueries} to render the Querydsl predicates, never to query.
+ */
+@RequiredArgsConstructor
+public class ReactiveRecipeRepositoryCustomImpl implements ReactiveRecipeRepositoryCustom {
+
+  private final ReactiveMongoOperations mongoOperations;
+
+  private final MongoOperations queryRenderer;
+
+  @Override
+  public Flux<RecipeDTO> search(RecipeSearch search) {
+    return mongoOperations.find(RecipeQueries.query(queryRenderer, search), RecipeDTO.class);
+  }
+
+  @Override
+  public Mono<RecipeFacets> facets(RecipeSearch search, int topIngredients) {
+    return mongoOperations.aggregate(RecipeQueries.facets(queryRenderer, search, topIngredients), Document.class)
+      .next()
+      .map(RecipeQueries::facets)
+      .defaultIfEmpty(RecipeFacets.empty());
+  }
+
+  @Override
+  public Mono<Long> count(RecipeSearch search) {
+    return mongoOperations.count(RecipeQueries.query(queryRenderer, search, search.getPredicate()), RecipeDTO.class);
+  }
+
+  @Override
+  public Mono<Boolean> exists(RecipeSearch search) {
+    return mongoOperations.exists(RecipeQueries.query(queryRenderer, search, search.getPredicate()), RecipeDTO.class);
+  }
+
+  @Override
+  public Mono<RecipeDTO> update(String recipeId, Long version, RecipeUpdate recipeUpdate) {
+    return mongoOperations.findAndModify(recipeUpdate.query(recipeId, version), recipeUpdate.versionedUpdate(),
+      FindAndModifyOptions.options().returnNew(true), RecipeDTO.class);
+  }
+}
@@ -0,0 +1,141 @@
+package com.abn.recipes.repositories;
+
+import com.abn.recipes.domain.Category;
+import com.abn.recipes.domain.RecipeDTO;
+import com.abn.recipes.domain.RecipeFacets;
+import com.querydsl.core.types.Predicate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.repository.support.SpringDataMongodbQuery;
+
+/**
+ * Renders a {@link RecipeSearch} to a Mongo query or aggregation for the blocking and the reactive repositories.
+ * <p>
+ * The Querydsl predicate is rendered to its filter document so that it can be combined with the {@code $text}
+ * operator, which Querydsl cannot express. Rendering only uses the mapping of the {@link MongoOperations}, it does not
+ * query the database.
+ */
+final class RecipeQueries {
+
+  private static final String COUNT = "count";
+
+  private static final Sort MOST_USED_FIRST = Sort.by(Direction.DESC, COUNT).and(Sort.by(Direction.ASC, "_id"));
+
+  private static final Document TEXT_SCORE = new Document("score", new Document("$meta", "textScore"));
+
+  private RecipeQueries() {
+  }
+
+  /**
+   * @return the query of the search, with its projection and sort order
+   */
+  static BasicQuery query(MongoOperations mongoOperations, RecipeSearch search) {
+    BasicQuery query = query(mongoOperations, search, search.getPredicate());
+    if (search.getSort().isSorted()) {
+      query.with(search.getSort());
+    } else if (search.getText() != null) {
+      query.setSortObject(TEXT_SCORE);
+    }
+    return query;
+  }
+
+  /**
+   * @return the query of the search with another predicate, with the projection of the search and no sort order
+   */
+  static BasicQuery query(MongoOperations mongoOperations, RecipeSearch search, Predicate predicate) {
+    Document filter = predicate == null
+      ? new Document()
+      : new SpringDataMongodbQuery<>(mongoOperations, RecipeDTO.class).where(predicate).asDocument();
+    Document fields = new Document();
+    search.getFields().forEach(field -> fields.append(field, 1));
+    if (search.getText() != null) {
+      filter.append("$text", new Document("$search", search.getText()));
+      fields.putAll(TEXT_SCORE);
+    }
+    return new BasicQuery(filter, fields);
+  }
+
+  /**
+   * Explains the {@code find} command of the search with the {@code executionStats} verbosity, which runs the winning
+   * plan to count the keys and documents it examines.
+   *
+   * @return the {@code explain} command of the search
+   */
+  static Document explain(MongoOperations mongoOperations, RecipeSearch search) {
+    BasicQuery query = query(mongoOperations, search);
+    QueryMapper queryMapper = new QueryMapper(mongoOperations.getConverter());
+    Document find = new Document("find", mongoOperations.getCollectionName(RecipeDTO.class))
+      .append("filter", query.getQueryObject())
+      .append("projection", query.getFieldsObject())
+      .append("sort", queryMapper.getMappedSort(query.getSortObject(),
+        mongoOperations.getConverter().getMappingContext().getPersistentEntity(RecipeDTO.class)));
+    return new Document("explain", find).append("verbosity", "executionStats");
+  }
+
+  /**
+   * Counts the recipes matching the search per category, servings bucket and ingredient with one {@code $facet} stage,
+   * so the filter is evaluated once for all the facets.
+   *
+   * @return the aggregation of the search, its projection and sort order are ignored
+   */
+  static TypedAggregation<RecipeDTO> facets(MongoOperations mongoOperations, RecipeSearch search, int topIngredients) {
+    Document filter = query(mongoOperations, search, search.getPredicate()).getQueryObject();
+    AggregationOperation match = context -> new Document("$match", filter);
+    Object[] boundaries = new Object[RecipeFacets.SERVINGS_BOUNDARIES.size() + 1];
+    RecipeFacets.SERVINGS_BOUNDARIES.toArray(boundaries);
+    boundaries[boundaries.length - 1] = Integer.MAX_VALUE;
+    return Aggregation.newAggregation(RecipeDTO.class, match, Aggregation
+      .facet(Aggregation.count().as(COUNT)).as("total")
+      .and(Aggregation.group("category").count().as(COUNT), Aggregation.sort(MOST_USED_FIRST)).as("categories")
+      .and(Aggregation.bucket("servings").withBoundaries(boundaries).withDefaultBucket(RecipeFacets.OTHER_SERVINGS))
+      .as("servings")
+      .and(Aggregation.unwind("ingredients"), Aggregation.group("ingredients").count().as(COUNT),
+        Aggregation.sort(MOST_USED_FIRST), Aggregation.limit(topIngredients))
+      .as("ingredients"));
+  }
+
+  /**
+   * @param result the single document returned by the {@link #facets} aggregation, {@code null} when none
+   * @return the {@link RecipeFacets} read from it
+   */
+  static RecipeFacets facets(Document result) {
+    if (result == null) {
+      return RecipeFacets.empty();
+    }
+    List<Document> total = result.getList("total", Document.class);
+    Map<Category, Long> categories = new LinkedHashMap<>();
+    for (Document category : result.getList("categories", Document.class)) {
+      if (category.get("_id") != null) {
+        categories.put(Category.valueOf(category.getString("_id")), count(category));
+      }
+    }
+    Map<String, Long> servings = new HashMap<>();
+    for (Document bucket : result.getList("servings", Document.class)) {
+      Object lowerBound = bucket.get("_id");
+      servings.put(lowerBound instanceof Number
+        ? RecipeFacets.servingsBucket(((Number) lowerBound).intValue())
+        : RecipeFacets.OTHER_SERVINGS, count(bucket));
+    }
+    Map<String, Long> ingredients = new LinkedHashMap<>();
+    for (Document ingredient : result.getList("ingredients", Document.class)) {
+      ingredients.put(ingredient.getString("_id"), count(ingredient));
+    }
+    return new RecipeFacets(total.isEmpty() ? 0 : count(total.get(0)), categories,
+      RecipeFacets.orderServings(servings), ingredients);
+  }
+
+  private static long count(Document document) {
+    return ((Number) document.get(COUNT)).longValue();
+  }
+}
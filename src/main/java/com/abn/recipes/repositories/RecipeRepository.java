@@ -10,4 +10,5 @@ import org.springframework.stereotype.Repository;
  * Interface for generic CRUD operations on a Mongo repository.
  */
 @Repository
-public interface RecipeRepository extends MongoRepository<RecipeDTO, String>, QuerydslPredicateExecutor<RecipeDTO> {}
+public interface RecipeRepository
+  extends MongoRepository<RecipeDTO, String>, QuerydslPredicateExecutor<RecipeDTO>, RecipeRepositoryCustom {}
@@ -0,0 +1,97 @@
+package com.abn.recipes.repositories;
+
+import com.abn.recipes.domain.BulkItemResult;
+import com.abn.recipes.domain.RecipeDTO;
+import com.abn.recipes.domain.RecipeFacets;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.bson.Document;
+
+/**
+ * Interface for the search and cursor based read operations which are not covered by the generated repository.
+ */
+public interface RecipeRepositoryCustom {
+
+  /**
+   * Finds all the recipes matching the search, most relevant first when it has a full text search.
+   *
+   * @param search the {@link RecipeSearch}
+   * @return the matching {@link RecipeDTO}
+   */
+  List<RecipeDTO> search(RecipeSearch search);
+
+  /**
+   * Counts the recipes matching the search per category, servings bucket and ingredient with one aggregation.
+   *
+   * @param search the {@link RecipeSearch}, its sort and fields are ignored
+   * @param topIngredients the number of most used ingredients to count
+   * @return the {@link RecipeFacets}
+   */
+  RecipeFacets facets(RecipeSearch search, int topIngredients);
+
+  /**
+   * Counts the recipes matching the search without reading them, for searches the generated Querydsl
+   * {@code count} cannot express, such as full text searches.
+   *
+   * @param search the {@link RecipeSearch}, its sort and fields are ignored
+   * @return the number of matching recipes
+   */
+  long count(RecipeSearch search);
+
+  /**
+   * Checks whether any recipe matches the search, stopping at the first one.
+   *
+   * @param search the {@link RecipeSearch}, its sort and fields are ignored
+   * @return whether a recipe matches
+   */
+  boolean exists(RecipeSearch search);
+
+  /**
+   * Explains how the database runs the search, running its winning plan once more to collect the execution statistics.
+   *
+   * @param search the {@link RecipeSearch}
+   * @return the output of the {@code explain} command
+   */
+  Document explain(RecipeSearch search);
+
+  /**
+   * Finds the next page of recipes ordered by id, starting after the given id.
+   *
+   * @param search the {@link RecipeSearch}
+   * @param after the id of the last recipe of the previous page, {@code null} for the first page
+   * @param limit the maximum number of recipes to return
+   * @return the page of {@link RecipeDTO}
+   */
+  List<RecipeDTO> findPage(RecipeSearch search, String after, int limit);
+
+  /**
+   * Streams all the recipes matching the search straight from the Mongo cursor.
+   * The returned {@link Stream} must be closed to release the cursor.
+   *
+   * @param search the {@link RecipeSearch}
+   * @return the {@link Stream} of {@link RecipeDTO}
+   */
+  Stream<RecipeDTO> streamAll(RecipeSearch search);
+
+  /**
+   * Writes the recipes with one unordered bulk operation. Recipes without an id are inserted with a
+   * generated one, the others replace the stored recipe with the same id or are inserted. The recipes written are
+   * given their stored version, read back with one query for the replaced ones.
+   *
+   * @param recipes the {@link RecipeDTO}s to write
+   * @return the result of every recipe, indexed by its position in the given list
+   */
+  List<BulkItemResult> bulkSave(List<RecipeDTO> recipes);
+
+  /**
+   * Applies the {@link RecipeUpdate} to the recipe with the given id in one atomic operation and increments its version.
+   *
+   * @param recipeId the id of the recipe
+   * @param version the version the recipe must be at, {@code null} for any version
+   * @param recipeUpdate the compiled patch
+   * @return the updated {@link RecipeDTO}, or empty when no recipe has the id and version or it does not match the
+   *   update criteria
+   */
+  Optional<RecipeDTO> update(String recipeId, Long version, RecipeUpdate recipeUpdate);
+}
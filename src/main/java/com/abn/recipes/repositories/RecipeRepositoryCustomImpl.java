@@ -0,0 +1,177 @@
+package com.abn.recipes.repositories;
+
+import com.abn.recipes.domain.BulkItemResult;
+import com.abn.recipes.domain.BulkItemResult.Status;
+import com.abn.recipes.domain.QRecipeDTO;
+import com.abn.recipes.domain.RecipeDTO;
+import com.abn.recipes.domain.RecipeFacets;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.querydsl.core.BooleanBuilder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PropertyHandler;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * Mongo implementation of {@link RecipeRepositoryCustom}. The searches are rendered by {@link RecipeQueries}.
+ */
+@RequiredArgsConstructor
+public class RecipeRepositoryCustomImpl implements RecipeRepositoryCustom {
+
+  private static final QRecipeDTO Q_RECIPE = new QRecipeDTO("recipe");
+
+  private static final String VERSION = "version";
+
+  private final MongoOperations mongoOperations;
+
+  @Override
+  public List<RecipeDTO> search(RecipeSearch search) {
+    return mongoOperations.find(RecipeQueries.query(mongoOperations, search), RecipeDTO.class);
+  }
+
+  @Override
+  public RecipeFacets facets(RecipeSearch search, int topIngredients) {
+    return RecipeQueries.facets(mongoOperations
+      .aggregate(RecipeQueries.facets(mongoOperations, search, topIngredients), Document.class)
+      .getUniqueMappedResult());
+  }
+
+  @Override
+  public long count(RecipeSearch search) {
+    return mongoOperations.count(RecipeQueries.query(mongoOperations, search, search.getPredicate()), RecipeDTO.class);
+  }
+
+  @Override
+  public boolean exists(RecipeSearch search) {
+    return mongoOperations.exists(RecipeQueries.query(mongoOperations, search, search.getPredicate()), RecipeDTO.class);
+  }
+
+  @Override
+  public Document explain(RecipeSearch search) {
+    return mongoOperations.executeCommand(RecipeQueries.explain(mongoOperations, search));
+  }
+
+  @Override
+  public List<RecipeDTO> findPage(RecipeSearch search, String after, int limit) {
+    BooleanBuilder where = new BooleanBuilder(search.getPredicate());
+    if (after != null) {
+      where.and(Q_RECIPE.id.gt(after));
+    }
+    Query query = RecipeQueries.query(mongoOperations, search, where.getValue())
+      .with(Sort.by("id"))
+      .limit(limit);
+    return mongoOperations.find(query, RecipeDTO.class);
+  }
+
+  @Override
+  public Stream<RecipeDTO> streamAll(RecipeSearch search) {
+    return mongoOperations.stream(RecipeQueries.query(mongoOperations, search), RecipeDTO.class).stream();
+  }
+
+  @Override
+  public List<BulkItemResult> bulkSave(List<RecipeDTO> recipes) {
+    BulkOperations operations = mongoOperations.bulkOps(BulkMode.UNORDERED, RecipeDTO.class);
+    boolean[] inserted = new boolean[recipes.size()];
+    for (int index = 0; index < recipes.size(); index++) {
+      RecipeDTO recipe = recipes.get(index);
+      if (recipe.getId() == null) {
+        recipe.setId(new ObjectId().toHexString());
+        recipe.setVersion(0L);
+        operations.insert(recipe);
+        inserted[index] = true;
+      } else {
+        operations.upsert(Query.query(Criteria.where("id").is(recipe.getId())), replacement(recipe));
+      }
+    }
+
+    BulkWriteResult writeResult;
+    Map<Integer, String> errors = Collections.emptyMap();
+    try {
+      writeResult = operations.execute();
+    } catch (BulkOperationException e) {
+      writeResult = e.getResult();
+      errors = e.getErrors().stream().collect(Collectors.toMap(BulkWriteError::getIndex, BulkWriteError::getMessage));
+    }
+    Set<Integer> upserted = writeResult.getUpserts().stream().map(BulkWriteUpsert::getIndex).collect(Collectors.toSet());
+
+    List<BulkItemResult> results = new ArrayList<>(recipes.size());
+    Map<String, List<RecipeDTO>> replaced = new HashMap<>();
+    for (int index = 0; index < recipes.size(); index++) {
+      RecipeDTO recipe = recipes.get(index);
+      String id = recipe.getId();
+      if (errors.containsKey(index)) {
+        results.add(BulkItemResult.failed(index, id, errors.get(index)));
+      } else {
+        results.add(new BulkItemResult(index, id, inserted[index] || upserted.contains(index) ? Status.CREATED : Status.UPDATED, null));
+        if (!inserted[index]) {
+          replaced.computeIfAbsent(id, key -> new ArrayList<>()).add(recipe);
+        }
+      }
+    }
+    readVersions(replaced);
+    return results;
+  }
+
+  /**
+   * Sets the stored version on the replaced recipes, whose version the bulk write incremented in the database, with one
+   * query for the whole batch.
+   */
+  private void readVersions(Map<String, List<RecipeDTO>> replaced) {
+    if (replaced.isEmpty()) {
+      return;
+    }
+    Query query = Query.query(Criteria.where("id").in(replaced.keySet()));
+    query.fields().include(VERSION);
+    mongoOperations.find(query, RecipeDTO.class)
+      .forEach(stored -> replaced.get(stored.getId()).forEach(recipe -> recipe.setVersion(stored.getVersion())));
+  }
+
+  @Override
+  public Optional<RecipeDTO> update(String recipeId, Long version, RecipeUpdate recipeUpdate) {
+    return Optional.ofNullable(mongoOperations.findAndModify(recipeUpdate.query(recipeId, version),
+      recipeUpdate.versionedUpdate(), FindAndModifyOptions.options().returnNew(true), RecipeDTO.class));
+  }
+
+  /**
+   * The replacement of a stored recipe as an update, so its version is incremented instead of overwritten.
+   */
+  private Update replacement(RecipeDTO recipe) {
+    Document document = new Document();
+    mongoOperations.getConverter().write(recipe, document);
+    Update update = new Update();
+    mongoOperations.getConverter().getMappingContext().getRequiredPersistentEntity(RecipeDTO.class)
+      .doWithProperties((PropertyHandler<MongoPersistentProperty>) property -> {
+        if (property.isIdProperty() || property.isVersionProperty()) {
+          return;
+        }
+        Object value = document.get(property.getFieldName());
+        if (value == null) {
+          update.unset(property.getFieldName());
+        } else {
+          update.set(property.getFieldName(), value);
+        }
+      });
+    return update.inc(VERSION, 1);
+  }
+}
@@ -0,0 +1,42 @@
+package com.abn.recipes.repositories;
+
+import com.querydsl.core.types.Predicate;
+import java.util.Collections;
+import java.util.Set;
+import lombok.Builder;
+import lombok.Getter;
+import org.springframework.data.domain.Sort;
+
+/**
+ * The search to run against the recipes collection.
+ */
+@Getter
+@Builder
+public class RecipeSearch {
+
+  /**
+   * The Querydsl filters, {@code null} to match all the recipes.
+   */
+  private final Predicate predicate;
+
+  /**
+   * The full text search over title and instructions, {@code null} for none.
+   */
+  private final String text;
+
+  /**
+   * The order of the recipes, unsorted for the natural order or, with a text search, the most relevant first.
+   */
+  @Builder.Default
+  private final Sort sort = Sort.unsorted();
+
+  /**
+   * The fields to read besides the id, empty to read all of them.
+   */
+  @Builder.Default
+  private final Set<String> fields = Collections.emptySet();
+
+  public static RecipeSearch of(Predicate predicate) {
+    return RecipeSearch.builder().predicate(predicate).build();
+  }
+}
@@ -0,0 +1,256 @@
+package com.abn.recipes.repositories;
+
+import com.abn.recipes.domain.Category;
+import com.abn.recipes.index.IngredientDictionary;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import javax.json.JsonArray;
+import javax.json.JsonMergePatch;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonPatch;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+import javax.json.JsonValue.ValueType;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * A JSON Patch or JSON Merge Patch compiled into one atomic Mongo update of a recipe: the {@link Criteria} the stored
+ * recipe must match, from {@code test} operations and paths that must exist, and the {@link Update} to apply.
+ * <p>
+ * Only operations on the top level fields and appends to {@code /ingredients/-} are compiled. A document with any other
+ * operation, a value of the wrong type, or two operations on the same field is not compiled and must be applied with a
+ * read-modify-write instead. Ingredients are written by their {@link IngredientDictionary#normalize canonical name}, as
+ * the saved recipes are.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class RecipeUpdate {
+
+  private static final String TITLE = "title";
+  private static final String SERVINGS = "servings";
+  private static final String INGREDIENTS = "ingredients";
+  private static final String INSTRUCTIONS = "instructions";
+  private static final String CATEGORY = "category";
+  private static final String VERSION = "version";
+  private static final String APPEND_INGREDIENT = "/ingredients/-";
+
+  @Getter
+  private final List<Criteria> criteria = new ArrayList<>();
+
+  @Getter
+  private final Update update = new Update();
+
+  private final Set<String> updatedFields = new HashSet<>();
+  private final List<Object> appendedIngredients = new ArrayList<>();
+
+  /**
+   * @param patch the JSON Patch document
+   * @return the compiled {@link RecipeUpdate}, or empty when the patch cannot be applied by the database
+   */
+  public static Optional<RecipeUpdate> of(JsonPatch patch) {
+    RecipeUpdate recipeUpdate = new RecipeUpdate();
+    for (JsonValue operation : patch.toJsonArray()) {
+      if (!recipeUpdate.compile(operation.asJsonObject())) {
+        return Optional.empty();
+      }
+    }
+    if (!recipeUpdate.appendedIngredients.isEmpty()) {
+      recipeUpdate.update.addToSet(INGREDIENTS).each(recipeUpdate.appendedIngredients.toArray());
+      recipeUpdate.updatedFields.add(INGREDIENTS);
+    }
+    return recipeUpdate.updatedFields.isEmpty() ? Optional.empty() : Optional.of(recipeUpdate);
+  }
+
+  /**
+   * @param mergePatch the JSON Merge Patch document
+   * @return the compiled {@link RecipeUpdate}, or empty when the patch cannot be applied by the database
+   */
+  public static Optional<RecipeUpdate> of(JsonMergePatch mergePatch) {
+    JsonValue document = mergePatch.toJsonValue();
+    if (document.getValueType() != ValueType.OBJECT) {
+      return Optional.empty();
+    }
+    RecipeUpdate recipeUpdate = new RecipeUpdate();
+    for (Map.Entry<String, JsonValue> member : document.asJsonObject().entrySet()) {
+      String field = member.getKey();
+      if (!isField(field)) {
+        if ("id".equals(field)) {
+          return Optional.empty();
+        }
+        continue;
+      }
+      boolean compiled = member.getValue().getValueType() == ValueType.NULL
+        ? recipeUpdate.unset(field)
+        : recipeUpdate.set(field, member.getValue());
+      if (!compiled) {
+        return Optional.empty();
+      }
+    }
+    return recipeUpdate.updatedFields.isEmpty() ? Optional.empty() : Optional.of(recipeUpdate);
+  }
+
+  /**
+   * @param recipeId the id of the recipe to update
+   * @param version the version the recipe must be at, {@code null} for any version
+   * @return the query matching the recipe and the criteria of the patch
+   */
+  public Query query(String recipeId, Long version) {
+    Criteria query = Criteria.where("id").is(recipeId);
+    if (version != null) {
+      query.and(VERSION).is(version);
+    }
+    if (!criteria.isEmpty()) {
+      query.andOperator(criteria);
+    }
+    return Query.query(query);
+  }
+
+  /**
+   * @return a copy of the {@link Update} that also increments the version of the recipe
+   */
+  public Update versionedUpdate() {
+    return Update.fromDocument(update.getUpdateObject()).inc(VERSION, 1);
+  }
+
+  private boolean compile(JsonObject operation) {
+    String op = operation.getString("op", "");
+    String path = operation.getString("path", "");
+    JsonValue value = operation.get("value");
+    if (APPEND_INGREDIENT.equals(path)) {
+      return "add".equals(op) && appendIngredient(value);
+    }
+    String field = path.startsWith("/") ? path.substring(1) : "";
+    if (!isField(field)) {
+      return false;
+    }
+    switch (op) {
+      case "add":
+        return set(field, value);
+      case "replace":
+        criteria.add(Criteria.where(field).exists(true));
+        return set(field, value);
+      case "remove":
+        criteria.add(Criteria.where(field).exists(true));
+        return unset(field);
+      case "test":
+        return test(field, value);
+      default:
+        return false;
+    }
+  }
+
+  private boolean set(String field, JsonValue value) {
+    Optional<Object> converted = convert(field, value);
+    if (converted.isEmpty() || !claim(field)) {
+      return false;
+    }
+    update.set(field, converted.get());
+    return true;
+  }
+
+  private boolean unset(String field) {
+    if (!claim(field)) {
+      return false;
+    }
+    update.unset(field);
+    return true;
+  }
+
+  /**
+   * Mongo rejects an update with two operators on the same field, so each field can be updated only once.
+   */
+  private boolean claim(String field) {
+    if (INGREDIENTS.equals(field) && !appendedIngredients.isEmpty()) {
+      return false;
+    }
+    return updatedFields.add(field);
+  }
+
+  private boolean appendIngredient(JsonValue value) {
+    if (value == null || value.getValueType() != ValueType.STRING || ((JsonString) value).getString().isBlank()
+      || updatedFields.contains(INGREDIENTS)) {
+      return false;
+    }
+    if (appendedIngredients.isEmpty()) {
+      criteria.add(Criteria.where(INGREDIENTS).exists(true));
+    }
+    appendedIngredients.add(IngredientDictionary.normalize(((JsonString) value).getString()));
+    return true;
+  }
+
+  /**
+   * A {@code test} is evaluated against the stored recipe, so it cannot follow an operation on the same field.
+   */
+  private boolean test(String field, JsonValue value) {
+    if (INGREDIENTS.equals(field) || updatedFields.contains(field)) {
+      return false;
+    }
+    Optional<Object> converted = convert(field, value);
+    converted.ifPresent(expected -> criteria.add(Criteria.where(field).is(expected)));
+    return converted.isPresent();
+  }
+
+  private static Optional<Object> convert(String field, JsonValue value) {
+    if (value == null) {
+      return Optional.empty();
+    }
+    switch (field) {
+      case TITLE:
+      case INSTRUCTIONS:
+        return value.getValueType() == ValueType.STRING
+          ? Optional.of(((JsonString) value).getString())
+          : Optional.empty();
+      case SERVINGS:
+        return value.getValueType() == ValueType.NUMBER && ((JsonNumber) value).isIntegral()
+          ? Optional.of(((JsonNumber) value).intValue())
+          : Optional.empty();
+      case CATEGORY:
+        return value.getValueType() == ValueType.STRING
+          ? category(((JsonString) value).getString())
+          : Optional.empty();
+      case INGREDIENTS:
+        return value.getValueType() == ValueType.ARRAY
+          ? ingredients(value.asJsonArray())
+          : Optional.empty();
+      default:
+        return Optional.empty();
+    }
+  }
+
+  private static Optional<Object> category(String name) {
+    for (Category category : Category.values()) {
+      if (category.name().equals(name)) {
+        return Optional.of(category);
+      }
+    }
+    return Optional.empty();
+  }
+
+  private static Optional<Object> ingredients(JsonArray values) {
+    Set<String> ingredients = new HashSet<>();
+    for (JsonValue value : values) {
+      if (value.getValueType() != ValueType.STRING) {
+        return Optional.empty();
+      }
+      String ingredient = ((JsonString) value).getString();
+      if (!ingredient.isBlank()) {
+        ingredients.add(IngredientDictionary.normalize(ingredient));
+      }
+    }
+    return Optional.of(ingredients);
+  }
+
+  private static boolean isField(String field) {
+    return TITLE.equals(field) || SERVINGS.equals(field) || INGREDIENTS.equals(field)
+      || INSTRUCTIONS.equals(field) || CATEGORY.equals(field);
+  }
+}
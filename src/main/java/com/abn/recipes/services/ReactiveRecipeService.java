@@ -0,0 +1,98 @@
+package com.abn.recipes.services;
+
+import com.abn.recipes.domain.Recipe;
+import com.abn.recipes.domain.RecipeFacets;
+import com.abn.recipes.exception.PreconditionFailedException;
+import com.abn.recipes.exception.ResourceNotFoundException;
+import javax.json.JsonMergePatch;
+import javax.json.JsonPatch;
+import org.springframework.util.MultiValueMap;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The non-blocking counterpart of {@link RecipeService}. Errors are signalled through the returned publishers.
+ */
+public interface ReactiveRecipeService {
+
+  /**
+   * @param filters the filtered query from URI, all the recipes when empty
+   *
+   * @return the filtered {@link Recipe}s, read from the database cursor as they are requested
+   */
+  Flux<Recipe> getFilteredRecipes(final MultiValueMap<String, String> filters);
+
+  /**
+   * @param filters the filtered query from URI, all the recipes when empty
+   *
+   * @return the counts of the filtered {@link Recipe}s per category, servings bucket and ingredient
+   */
+  Mono<RecipeFacets> getFacets(final MultiValueMap<String, String> filters);
+
+  /**
+   * @param filters the filtered query from URI, all the recipes when empty
+   *
+   * @return the number of filtered {@link Recipe}s, counted without reading them
+   */
+  Mono<Long> countRecipes(final MultiValueMap<String, String> filters);
+
+  /**
+   * @param filters the filtered query from URI, all the recipes when empty
+   *
+   * @return whether a {@link Recipe} matches, checked without reading it
+   */
+  Mono<Boolean> existsRecipes(final MultiValueMap<String, String> filters);
+
+  /**
+   * @param recipeId the id of the {@link Recipe}
+   *
+   * @return the {@link Recipe}, or a {@link ResourceNotFoundException} error
+   */
+  Mono<Recipe> findRecipeById(final String recipeId);
+
+  /**
+   * @param recipe the {@link Recipe} to save
+   *
+   * @return the saved {@link Recipe}
+   */
+  Mono<Recipe> save(final Recipe recipe);
+
+  /**
+   * @param recipeId the id of recipe
+   * @param recipeDetails the {@link Recipe} details to update
+   * @param version the version the update is based on, {@code null} to update any version
+   *
+   * @return the saved {@link Recipe}, or a {@link ResourceNotFoundException} or {@link PreconditionFailedException} error
+   */
+  Mono<Recipe> updateRecipe(final String recipeId, final Recipe recipeDetails, final Long version);
+
+  /**
+   * @param recipeId the id of recipe
+   * @param recipePatch the {@link JsonMergePatch} to patch
+   * @param version the version the patch is based on, {@code null} to patch any version
+   *
+   * @return the saved {@link Recipe}, or a {@link ResourceNotFoundException} or {@link PreconditionFailedException} error
+   */
+  Mono<Recipe> saveMergePatch(final String recipeId, final JsonMergePatch recipePatch, final Long version);
+
+  /**
+   * @param recipeId the id of recipe
+   * @param recipePatch the {@link JsonPatch} to patch
+   * @param version the version the patch is based on, {@code null} to patch any version
+   *
+   * @return the saved {@link Recipe}, or a {@link ResourceNotFoundException} or {@link PreconditionFailedException} error
+   */
+  Mono<Recipe> saveJsonPatch(final String recipeId, final JsonPatch recipePatch, final Long version);
+
+  /**
+   * Deletes the {@link Recipe} by id.
+   *
+   * @param recipeId the id of {@link Recipe} to delete
+   */
+  Mono<Void> deleteRecipeById(final String recipeId);
+
+  /**
+   * Deletes all the {@link Recipe}s.
+   */
+  Mono<Void> deleteAllRecipes();
+}
@@ -0,0 +1,229 @@
+package com.abn.recipes.services;
+
+import com.abn.recipes.domain.Recipe;
+import com.abn.recipes.domain.RecipeFacets;
+import com.abn.recipes.events.RecipeChangedEvent;
+import com.abn.recipes.exception.PreconditionFailedException;
+import com.abn.recipes.exception.ResourceNotFoundException;
+import com.abn.recipes.index.FacetCounter;
+import com.abn.recipes.index.QueryShape;
+import com.abn.recipes.index.QueryShapeRecorder;
+import com.abn.recipes.repositories.ReactiveRecipeRepository;
+import com.abn.recipes.repositories.RecipeSearch;
+import com.abn.recipes.repositories.RecipeUpdate;
+import com.abn.recipes.utils.PatchHelper;
+import com.abn.recipes.utils.RecipeMapper;
+import com.abn.recipes.utils.SearchCriteriaBuilder;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+import javax.json.JsonMergePatch;
+import javax.json.JsonPatch;
+import javax.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MultiValueMap;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Serves the recipes without blocking: reads and writes go through the {@link ReactiveRecipeRepository} and patches are
+ * applied in memory by the {@link PatchHelper}, so no step waits on the database on an event loop thread. The
+ * {@link RecipeChangedEvent}s are published on the bounded elastic scheduler since their listeners take locks, reload
+ * indexes and serialize recipes; the write completes once they ran, so the next read sees it.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveRecipeServiceImpl implements ReactiveRecipeService {
+
+  @Autowired
+  private ReactiveRecipeRepository recipeRepository;
+
+  @Autowired
+  private RecipeMapper mapper;
+
+  @Autowired
+  private PatchHelper patchHelper;
+
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  @Autowired
+  private Validator validator;
+
+  @Autowired
+  private QueryShapeRecorder queryShapeRecorder;
+
+  @Autowired
+  private FacetCounter facetCounter;
+
+  @Value("${recipes.facets.top-ingredients:10}")
+  private int topIngredients = 10;
+
+  @Override
+  public Flux<Recipe> getFilteredRecipes(final MultiValueMap<String, String> filters) {
+    return Flux.defer(() -> {
+      queryShapeRecorder.record(QueryShape.of(filters, false));
+      RecipeSearch search = RecipeSearch.builder()
+        .predicate(SearchCriteriaBuilder.addCondition(filters))
+        .text(filters.getFirst("search"))
+        .sort(SearchCriteriaBuilder.sort(filters))
+        .fields(SearchCriteriaBuilder.fields(filters))
+        .build();
+      return recipeRepository.search(search).map(mapper::asRecipe);
+    });
+  }
+
+  @Override
+  public Mono<RecipeFacets> getFacets(final MultiValueMap<String, String> filters) {
+    return Mono.defer(() -> {
+      QueryShape shape = QueryShape.of(filters, false);
+      Optional<RecipeFacets> facets = shape.isEmpty() ? facetCounter.facets() : Optional.empty();
+      if (facets.isPresent()) {
+        return Mono.just(facets.get());
+      }
+      queryShapeRecorder.record(shape);
+      RecipeSearch search = RecipeSearch.builder()
+        .predicate(SearchCriteriaBuilder.addCondition(filters))
+        .text(filters.getFirst("search"))
+        .build();
+      return recipeRepository.facets(search, topIngredients);
+    });
+  }
+
+  /**
+   * Counts from the {@link FacetCounter} when there is no filter and it is loaded, otherwise in the database.
+   */
+  @Override
+  public Mono<Long> countRecipes(final MultiValueMap<String, String> filters) {
+    return Mono.defer(() -> {
+      QueryShape shape = QueryShape.of(filters, false);
+      Optional<RecipeFacets> facets = shape.isEmpty() ? facetCounter.facets() : Optional.empty();
+      if (facets.isPresent()) {
+        return Mono.just(facets.get().getTotal());
+      }
+      queryShapeRecorder.record(shape);
+      return recipeRepository.count(countSearch(filters));
+    });
+  }
+
+  @Override
+  public Mono<Boolean> existsRecipes(final MultiValueMap<String, String> filters) {
+    return Mono.defer(() -> {
+      QueryShape shape = QueryShape.of(filters, false);
+      Optional<RecipeFacets> facets = shape.isEmpty() ? facetCounter.facets() : Optional.empty();
+      if (facets.isPresent()) {
+        return Mono.just(facets.get().getTotal() > 0);
+      }
+      queryShapeRecorder.record(shape);
+      return recipeRepository.exists(countSearch(filters));
+    });
+  }
+
+  @Override
+  public Mono<Recipe> findRecipeById(final String recipeId) {
+    return recipeRepository.findById(recipeId)
+      .map(mapper::asRecipe)
+      .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Recipe not found for this id :: " + recipeId)));
+  }
+
+  @Override
+  public Mono<Recipe> save(final Recipe recipe) {
+    return recipeRepository.save(mapper.asRecipeDTO(recipe))
+      .map(mapper::asRecipe)
+      .flatMap(savedRecipe -> publish(RecipeChangedEvent.saved(savedRecipe)).thenReturn(savedRecipe));
+  }
+
+  @Override
+  public Mono<Recipe> updateRecipe(final String recipeId, final Recipe recipeDetails, final Long version) {
+    return findRecipeById(recipeId, version)
+      .flatMap(recipe -> {
+        mapper.update(recipe, recipeDetails);
+        return save(recipe);
+      });
+  }
+
+  @Override
+  public Mono<Recipe> saveMergePatch(final String recipeId, final JsonMergePatch recipePatch, final Long version) {
+    return update(recipeId, version, RecipeUpdate.of(recipePatch))
+      .switchIfEmpty(Mono.defer(() -> savePatched(recipeId, version,
+        recipe -> patchHelper.mergePatch(recipePatch, recipe, Recipe.class))));
+  }
+
+  @Override
+  public Mono<Recipe> saveJsonPatch(final String recipeId, final JsonPatch recipePatch, final Long version) {
+    return update(recipeId, version, RecipeUpdate.of(recipePatch))
+      .switchIfEmpty(Mono.defer(() -> savePatched(recipeId, version,
+        recipe -> patchHelper.patch(recipePatch, recipe, Recipe.class))));
+  }
+
+  @Override
+  public Mono<Void> deleteRecipeById(final String recipeId) {
+    return recipeRepository.deleteById(recipeId)
+      .then(publish(RecipeChangedEvent.deleted(recipeId)));
+  }
+
+  @Override
+  public Mono<Void> deleteAllRecipes() {
+    return recipeRepository.deleteAll()
+      .then(publish(RecipeChangedEvent.cleared()));
+  }
+
+  /**
+   * Finds the recipe to update, checking it is still at the version the client based its update on.
+   */
+  private Mono<Recipe> findRecipeById(String recipeId, Long version) {
+    return findRecipeById(recipeId)
+      .flatMap(recipe -> version != null && !version.equals(recipe.getVersion())
+        ? Mono.error(new PreconditionFailedException("Recipe has been modified since version :: " + version))
+        : Mono.just(recipe));
+  }
+
+  /**
+   * Patches the stored recipe in memory and saves it over the stored one, keeping the id and the version the optimistic
+   * lock is checked on.
+   */
+  private Mono<Recipe> savePatched(String recipeId, Long version, UnaryOperator<Recipe> patch) {
+    return findRecipeById(recipeId, version)
+      .flatMap(recipe -> {
+        Recipe patchedRecipe = patch.apply(recipe);
+        patchedRecipe.setId(recipe.getId());
+        patchedRecipe.setVersion(recipe.getVersion());
+        return save(patchedRecipe);
+      });
+  }
+
+  /**
+   * Applies a compiled patch in the database when the recipe has no bean constraints to validate. Completes empty when
+   * the patch could not be compiled, or the recipe is missing, at another version or fails the patch tests, so the
+   * caller falls back to a read-modify-write that reports the error.
+   */
+  private Mono<Recipe> update(String recipeId, Long version, Optional<RecipeUpdate> recipeUpdate) {
+    if (recipeUpdate.isEmpty() || validator.getConstraintsForClass(Recipe.class).isBeanConstrained()) {
+      return Mono.empty();
+    }
+    return recipeRepository.update(recipeId, version, recipeUpdate.get())
+      .map(mapper::asRecipe)
+      .flatMap(recipe -> publish(RecipeChangedEvent.saved(recipe)).thenReturn(recipe));
+  }
+
+  /**
+   * @return the publication of the event to its listeners, off the event loop thread
+   */
+  private Mono<Void> publish(RecipeChangedEvent event) {
+    return Mono.<Void>fromRunnable(() -> eventPublisher.publishEvent(event)).subscribeOn(Schedulers.boundedElastic());
+  }
+
+  /**
+   * @return the search matching the filters, without the sort and fields a count ignores
+   */
+  private static RecipeSearch countSearch(MultiValueMap<String, String> filters) {
+    return RecipeSearch.builder()
+      .predicate(SearchCriteriaBuilder.addCondition(filters))
+      .text(filters.getFirst("search"))
+      .build();
+  }
+}
@@ -1,18 +1,30 @@
 package com.abn.recipes.services;
 
+import com.abn.recipes.domain.BulkResult;
 import com.abn.recipes.domain.Recipe;
 import com.abn.recipes.domain.RecipeDTO;
+import com.abn.recipes.domain.RecipeFacets;
+import com.abn.recipes.domain.RecipePage;
+import com.abn.recipes.exception.InvalidFilterException;
+import com.abn.recipes.exception.PreconditionFailedException;
 import com.abn.recipes.exception.ResourceNotFoundException;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 import javax.json.JsonMergePatch;
 import javax.json.JsonPatch;
 
 import org.springframework.util.MultiValueMap;
 
+/**
+ * The recipe operations. The lists of recipes returned from the database are lazy: read only views converting every
+ * recipe each time it is read, usually while the response is written, so a conversion failure surfaces then and not
+ * in the service call.
+ */
 public interface RecipeService {
   /**
-   * @return All the recepies
+   * @return All the recepies, a lazy read only list
    */
   List<Recipe> getAllRecipes();
 
@@ -20,10 +32,59 @@ public interface RecipeService {
    *
    * @param filters the filtered query from URI
    * 
-   * @return  the filetered {@link Recipe}
+   * @return  the filetered {@link Recipe}, a lazy read only list unless answered by the in-memory store
    */
   List<Recipe> getFilteredRecipe(final MultiValueMap<String, String> filters);
 
+  /**
+   * Counts the filtered recipes per category, servings bucket and ingredient.
+   *
+   * @param filters the filtered query from URI, all the recipes when empty
+   *
+   * @return the {@link RecipeFacets}
+   */
+  RecipeFacets getFacets(final MultiValueMap<String, String> filters);
+
+  /**
+   * Counts the filtered recipes without reading them.
+   *
+   * @param filters the filtered query from URI, all the recipes when empty
+   *
+   * @return the number of filtered {@link Recipe}s
+   */
+  long countRecipes(final MultiValueMap<String, String> filters);
+
+  /**
+   * Checks whether any recipe matches the filters without reading it.
+   *
+   * @param filters the filtered query from URI, all the recipes when empty
+   *
+   * @return whether a {@link Recipe} matches
+   */
+  boolean existsRecipes(final MultiValueMap<String, String> filters);
+
+  /**
+   * Gets a page of recipes ordered by id using keyset pagination.
+   *
+   * @param filters the filtered query from URI
+   * @param after the id of the last recipe of the previous page, {@code null} for the first page
+   * @param size the maximum number of recipes in the page
+   *
+   * @return the {@link RecipePage}
+   * @throws InvalidFilterException when the filters ask for another order
+   */
+  RecipePage getRecipePage(final MultiValueMap<String, String> filters, final String after, final int size);
+
+  /**
+   * Streams the filtered recipes from the database cursor without materializing them.
+   * The returned {@link Stream} must be closed once consumed.
+   *
+   * @param filters the filtered query from URI
+   *
+   * @return the {@link Stream} of filtered {@link Recipe}
+   */
+  Stream<Recipe> streamRecipes(final MultiValueMap<String, String> filters);
+
   /**
    *
    * @param recipe the {@link Recipe} to save
@@ -32,34 +93,53 @@ public interface RecipeService {
    */
   Recipe save(final Recipe recipe);
 
+  /**
+   * Validates and writes the recipes in batches. An invalid recipe, or one that cannot be read, is reported as failed
+   * without stopping the others; reading stops at the first error the iterator cannot recover from.
+   *
+   * @param recipes the {@link Recipe}s to create or, when they have an id, replace
+   *
+   * @return the {@link BulkResult} with the outcome of every recipe
+   */
+  BulkResult saveAll(final Iterator<Recipe> recipes);
+
   /**
    *
    * @param recipeId the id of recipe
    * @param recipeDetails the {@link recipeDetails} to create or update
+   * @param version the version the update is based on, {@code null} to update any version
    * 
    * @return the saved {@link Recipe}
+   * @throws PreconditionFailedException when the recipe is at another version
    */
-  Recipe updateRecipe(final String recipeId, final Recipe recipeDetails) throws ResourceNotFoundException;
+  Recipe updateRecipe(final String recipeId, final Recipe recipeDetails, final Long version)
+    throws ResourceNotFoundException;
 
   /**
    *
    * @param recipeId the id of recipe
    * @param recipePatch the {@link JsonMergePatch} to patch
+   * @param version the version the patch is based on, {@code null} to patch any version
    * 
    * @return the saved {@link Recipe}
    * @throws ResourceNotFoundException
+   * @throws PreconditionFailedException when the recipe is at another version
    */
-  Recipe saveMergePatch(final String recipeId, final JsonMergePatch recipePatch) throws ResourceNotFoundException;
+  Recipe saveMergePatch(final String recipeId, final JsonMergePatch recipePatch, final Long version)
+    throws ResourceNotFoundException;
 
   /**
    *
    * @param recipeId the id of recipe
    * @param recipePatch the {@link JsonPatch} to patch
+   * @param version the version the patch is based on, {@code null} to patch any version
    * 
    * @return the saved {@link Recipe}
    * @throws ResourceNotFoundException
+   * @throws PreconditionFailedException when the recipe is at another version
    */
-  Recipe saveJsonPatch(final String recipeId, final JsonPatch recipePatch) throws ResourceNotFoundException;
+  Recipe saveJsonPatch(final String recipeId, final JsonPatch recipePatch, final Long version)
+    throws ResourceNotFoundException;
 
   /**
    * @param recipeId the id of the {@link Recipe}
@@ -1,20 +1,50 @@
 package com.abn.recipes.services;
 
+import com.abn.recipes.cache.RecipeCache;
+import com.abn.recipes.domain.BulkItemResult;
+import com.abn.recipes.domain.BulkResult;
 import com.abn.recipes.domain.Recipe;
 import com.abn.recipes.domain.RecipeDTO;
+import com.abn.recipes.domain.RecipeFacets;
+import com.abn.recipes.domain.RecipePage;
+import com.abn.recipes.events.RecipeChangedEvent;
+import com.abn.recipes.exception.InvalidFilterException;
+import com.abn.recipes.exception.PreconditionFailedException;
 import com.abn.recipes.exception.ResourceNotFoundException;
+import com.abn.recipes.index.FacetCounter;
+import com.abn.recipes.index.IngredientDictionary;
+import com.abn.recipes.index.IngredientIndex;
+import com.abn.recipes.index.QueryShape;
+import com.abn.recipes.index.QueryShapeRecorder;
+import com.abn.recipes.index.RecipeStore;
+import com.abn.recipes.index.SlowQueryLog;
 import com.abn.recipes.repositories.RecipeRepository;
+import com.abn.recipes.repositories.RecipeSearch;
+import com.abn.recipes.repositories.RecipeUpdate;
 import com.abn.recipes.utils.PatchHelper;
 import com.abn.recipes.utils.RecipeMapper;
 import com.abn.recipes.utils.SearchCriteriaBuilder;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.querydsl.core.types.Predicate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import javax.json.JsonMergePatch;
 import javax.json.JsonPatch;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.util.MultiValueMap;
 
@@ -30,68 +60,358 @@ public class RecipeServiceImpl implements RecipeService {
   @Autowired
   private PatchHelper patchHelper;
 
+  @Autowired
+  private RecipeCache recipeCache;
+
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  @Autowired
+  private IngredientIndex ingredientIndex;
+
+  @Autowired
+  private Validator validator;
+
+  @Autowired
+  private QueryShapeRecorder queryShapeRecorder;
+
+  @Autowired
+  private FacetCounter facetCounter;
+
+  @Autowired
+  private SlowQueryLog slowQueryLog;
+
+  @Autowired
+  private RecipeStore recipeStore;
+
+  @Autowired
+  private IngredientDictionary dictionary;
+
+  @Value("${recipes.facets.top-ingredients:10}")
+  private int topIngredients = 10;
+
+  @Value("${recipes.bulk.batch-size:1000}")
+  private int bulkBatchSize = 1000;
+
   @Override
   public List<Recipe> getAllRecipes() {
     return mapper.map(recipeRepository.findAll());
   }
 
+  /**
+   * Answers the filtered search from the {@link RecipeStore} when it is loaded. Otherwise runs it in the database and
+   * hands it to the {@link SlowQueryLog} with the time it took.
+   */
   @Override
   public List<Recipe> getFilteredRecipe(MultiValueMap<String, String> filters) {
-    return mapper.map(StreamSupport
-      .stream(recipeRepository
-          .findAll(SearchCriteriaBuilder.addCondition(filters))
-          .spliterator(),
-        false
-      )
-      .collect(Collectors.toList()));
+    Optional<List<Recipe>> stored = recipeStore.search(filters);
+    if (stored.isPresent()) {
+      return stored.get();
+    }
+    long start = System.nanoTime();
+    Optional<List<String>> recipeIds = resolveIngredients(filters);
+    QueryShape shape = QueryShape.of(filters, recipeIds.isPresent());
+    queryShapeRecorder.record(shape);
+    Predicate predicate = searchPredicate(filters, recipeIds);
+    RecipeSearch search;
+    List<RecipeDTO> recipeDTOs;
+    if (filters.containsKey("search") || filters.containsKey("sort") || filters.containsKey("fields")) {
+      search = recipeSearch(filters, predicate);
+      recipeDTOs = recipeRepository.search(search);
+    } else {
+      search = RecipeSearch.of(predicate);
+      recipeDTOs = asList(recipeRepository.findAll(predicate));
+    }
+    slowQueryLog.record(shape, search, System.nanoTime() - start);
+    return mapper.map(recipeDTOs);
+  }
+
+  /**
+   * Answers the facets of all the recipes from the {@link FacetCounter} when it is loaded, and aggregates the filtered
+   * ones in the database.
+   */
+  @Override
+  public RecipeFacets getFacets(MultiValueMap<String, String> filters) {
+    if (QueryShape.of(filters, false).isEmpty()) {
+      Optional<RecipeFacets> facets = facetCounter.facets();
+      if (facets.isPresent()) {
+        return facets.get();
+      }
+    }
+    return recipeRepository.facets(RecipeSearch.builder()
+      .predicate(searchPredicate(filters))
+      .text(filters.getFirst("search"))
+      .build(), topIngredients);
+  }
+
+  /**
+   * Counts from the {@link FacetCounter} when there is no filter, and from the {@link IngredientIndex} when it resolved
+   * the only filters. Other filters are counted in the database with the Querydsl predicate, or with the rendered query
+   * for a full text search.
+   */
+  @Override
+  public long countRecipes(MultiValueMap<String, String> filters) {
+    Optional<List<String>> recipeIds = resolveIngredients(filters);
+    QueryShape shape = QueryShape.of(filters, recipeIds.isPresent());
+    if (shape.isEmpty()) {
+      return facetCounter.facets().map(RecipeFacets::getTotal).orElseGet(recipeRepository::count);
+    }
+    queryShapeRecorder.record(shape);
+    if (recipeIds.isPresent() && isResolvedByIndex(shape)) {
+      return recipeIds.get().size();
+    }
+    Predicate predicate = searchPredicate(filters, recipeIds);
+    return shape.isText()
+      ? recipeRepository.count(RecipeSearch.builder().predicate(predicate).text(filters.getFirst("search")).build())
+      : recipeRepository.count(predicate);
+  }
+
+  /**
+   * Checks the same sources as {@link #countRecipes(MultiValueMap)}, the database stopping at the first match.
+   */
+  @Override
+  public boolean existsRecipes(MultiValueMap<String, String> filters) {
+    Optional<List<String>> recipeIds = resolveIngredients(filters);
+    QueryShape shape = QueryShape.of(filters, recipeIds.isPresent());
+    if (shape.isEmpty()) {
+      return facetCounter.facets()
+        .map(facets -> facets.getTotal() > 0)
+        .orElseGet(() -> recipeRepository.exists(RecipeSearch.of(null)));
+    }
+    queryShapeRecorder.record(shape);
+    if (recipeIds.isPresent() && isResolvedByIndex(shape)) {
+      return !recipeIds.get().isEmpty();
+    }
+    Predicate predicate = searchPredicate(filters, recipeIds);
+    return shape.isText()
+      ? recipeRepository.exists(RecipeSearch.builder().predicate(predicate).text(filters.getFirst("search")).build())
+      : recipeRepository.exists(predicate);
+  }
+
+  @Override
+  public RecipePage getRecipePage(MultiValueMap<String, String> filters, String after, int size) {
+    if (filters.containsKey("sort")) {
+      throw new InvalidFilterException("Pages are ordered by id and cannot be sorted");
+    }
+    List<RecipeDTO> recipeDTOs = recipeRepository.findPage(recipeSearch(filters), after, size + 1);
+    boolean hasNext = recipeDTOs.size() > size;
+    List<Recipe> recipes = mapper.map(hasNext ? recipeDTOs.subList(0, size) : recipeDTOs);
+    return new RecipePage(recipes, hasNext ? recipeDTOs.get(size - 1).getId() : null);
+  }
+
+  @Override
+  public Stream<Recipe> streamRecipes(MultiValueMap<String, String> filters) {
+    return recipeRepository.streamAll(recipeSearch(filters)).map(mapper::asRecipe);
   }
 
   @Override
   public Recipe save(final Recipe recipe) {
-    return mapper.asRecipe(recipeRepository.save(mapper.asRecipeDTO(recipe)));
+    Recipe savedRecipe = mapper.asRecipe(recipeRepository.save(mapper.asRecipeDTO(recipe)));
+    eventPublisher.publishEvent(RecipeChangedEvent.saved(savedRecipe));
+    return savedRecipe;
   }
 
   @Override
-  public Recipe updateRecipe(final String recipeId, final Recipe recipeDetails) throws ResourceNotFoundException {
-    Recipe recipe = findRecipeById(recipeId);
+  public BulkResult saveAll(final Iterator<Recipe> recipes) {
+    BulkResult result = new BulkResult();
+    List<RecipeDTO> batch = new ArrayList<>();
+    List<Integer> batchIndexes = new ArrayList<>();
+    for (int index = 0; ; index++) {
+      Recipe recipe;
+      try {
+        if (!recipes.hasNext()) {
+          break;
+        }
+        recipe = recipes.next();
+      } catch (RuntimeJsonMappingException e) {
+        result.add(BulkItemResult.failed(index, null, e.getMessage()));
+        continue;
+      } catch (RuntimeException e) {
+        result.add(BulkItemResult.failed(index, null, e.getMessage()));
+        break;
+      }
+
+      Set<ConstraintViolation<Recipe>> violations = validator.validate(recipe);
+      if (!violations.isEmpty()) {
+        result.add(BulkItemResult.failed(index, recipe.getId(), violations.stream()
+          .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+          .sorted()
+          .collect(Collectors.joining(", "))));
+        continue;
+      }
+
+      // the bulk upserts are written as updates, which the entity callbacks do not see
+      RecipeDTO recipeDTO = mapper.asRecipeDTO(recipe);
+      recipeDTO.setIngredients(dictionary.canonical(recipeDTO.getIngredients()));
+      batch.add(recipeDTO);
+      batchIndexes.add(index);
+      if (batch.size() >= bulkBatchSize) {
+        saveBatch(batch, batchIndexes, result);
+      }
+    }
+    if (!batch.isEmpty()) {
+      saveBatch(batch, batchIndexes, result);
+    }
+    result.getItems().sort(Comparator.comparingInt(BulkItemResult::getIndex));
+    return result;
+  }
+
+  @Override
+  public Recipe updateRecipe(final String recipeId, final Recipe recipeDetails, final Long version)
+    throws ResourceNotFoundException {
+    Recipe recipe = findRecipeById(recipeId, version);
     mapper.update(recipe, recipeDetails);
     return save(recipe);
   }
 
   @Override
-  public Recipe saveMergePatch(final String recipeId, final JsonMergePatch recipePatch) throws ResourceNotFoundException {
-    Recipe recipe = findRecipeById(recipeId);
-    Recipe recipeResource = mapper.asInput(recipe);
-    Recipe patchedRecipeResource = patchHelper.mergePatch(recipePatch, recipeResource, Recipe.class);
-    mapper.update(recipe, patchedRecipeResource);
-    return save(recipe);
+  public Recipe saveMergePatch(final String recipeId, final JsonMergePatch recipePatch, final Long version)
+    throws ResourceNotFoundException {
+    Optional<Recipe> updatedRecipe = update(recipeId, version, RecipeUpdate.of(recipePatch));
+    if (updatedRecipe.isPresent()) {
+      return updatedRecipe.get();
+    }
+    Recipe recipe = findRecipeById(recipeId, version);
+    return savePatched(recipe, patchHelper.mergePatch(recipePatch, recipe, Recipe.class));
   }
 
   @Override
-  public Recipe saveJsonPatch(final String recipeId, final JsonPatch recipePatch) throws ResourceNotFoundException {
-    Recipe recipe = findRecipeById(recipeId);
-    Recipe recipeResource = mapper.asInput(recipe);
-    Recipe patchedRecipeResource = patchHelper.patch(recipePatch, recipeResource, Recipe.class);
-    mapper.update(recipe, patchedRecipeResource);
-    return save(recipe);
+  public Recipe saveJsonPatch(final String recipeId, final JsonPatch recipePatch, final Long version)
+    throws ResourceNotFoundException {
+    Optional<Recipe> updatedRecipe = update(recipeId, version, RecipeUpdate.of(recipePatch));
+    if (updatedRecipe.isPresent()) {
+      return updatedRecipe.get();
+    }
+    Recipe recipe = findRecipeById(recipeId, version);
+    return savePatched(recipe, patchHelper.patch(recipePatch, recipe, Recipe.class));
   }
 
   @Override
   public Recipe findRecipeById(String recipeId)
     throws ResourceNotFoundException {
-      RecipeDTO recipeDTO = recipeRepository
-      .findById(recipeId)
-      .orElseThrow(() -> new ResourceNotFoundException("Recipe not found for this id :: " + recipeId));
-    return mapper.asRecipe(recipeDTO);
+    Recipe recipe = recipeCache.get(recipeId, id -> recipeRepository.findById(id).map(mapper::asRecipe).orElse(null));
+    if (recipe == null) {
+      throw new ResourceNotFoundException("Recipe not found for this id :: " + recipeId);
+    }
+    return recipe;
   }
 
   @Override
   public void deleteRecipeById(String recipeId) {
     recipeRepository.deleteById(recipeId);
+    eventPublisher.publishEvent(RecipeChangedEvent.deleted(recipeId));
   }
 
   @Override
   public void deleteAllRecipes() {
     recipeRepository.deleteAll();
+    eventPublisher.publishEvent(RecipeChangedEvent.cleared());
+  }
+
+  /**
+   * Finds the recipe to update, checking it is still at the version the client based its update on.
+   */
+  private Recipe findRecipeById(String recipeId, Long version) throws ResourceNotFoundException {
+    Recipe recipe = findRecipeById(recipeId);
+    if (version != null && !version.equals(recipe.getVersion())) {
+      throw new PreconditionFailedException("Recipe has been modified since version :: " + version);
+    }
+    return recipe;
+  }
+
+  /**
+   * Saves the patched recipe over the stored one, keeping the id and the version the optimistic lock is checked on.
+   */
+  private Recipe savePatched(Recipe recipe, Recipe patchedRecipe) {
+    patchedRecipe.setId(recipe.getId());
+    patchedRecipe.setVersion(recipe.getVersion());
+    return save(patchedRecipe);
+  }
+
+  /**
+   * Applies a compiled patch in the database when the recipe has no bean constraints to validate. When the patch could
+   * not be compiled, or the recipe is missing, at another version or fails the patch tests, returns empty so the caller
+   * falls back to a read-modify-write that reports the error.
+   */
+  private Optional<Recipe> update(String recipeId, Long version, Optional<RecipeUpdate> recipeUpdate) {
+    if (recipeUpdate.isEmpty() || validator.getConstraintsForClass(Recipe.class).isBeanConstrained()) {
+      return Optional.empty();
+    }
+    Optional<Recipe> updatedRecipe = recipeRepository.update(recipeId, version, recipeUpdate.get()).map(mapper::asRecipe);
+    updatedRecipe.ifPresent(recipe -> eventPublisher.publishEvent(RecipeChangedEvent.saved(recipe)));
+    return updatedRecipe;
+  }
+
+  /**
+   * Writes one batch, re-indexes its results to the position of the recipes in the request and clears the batch.
+   */
+  private void saveBatch(List<RecipeDTO> batch, List<Integer> batchIndexes, BulkResult result) {
+    List<BulkItemResult> batchResults = recipeRepository.bulkSave(batch);
+    for (BulkItemResult batchResult : batchResults) {
+      result.add(new BulkItemResult(batchIndexes.get(batchResult.getIndex()), batchResult.getId(), batchResult.getStatus(),
+        batchResult.getError()));
+      if (batchResult.getStatus() != BulkItemResult.Status.FAILED) {
+        eventPublisher.publishEvent(RecipeChangedEvent.saved(mapper.asRecipe(batch.get(batchResult.getIndex()))));
+      }
+    }
+    batch.clear();
+    batchIndexes.clear();
+  }
+
+  private RecipeSearch recipeSearch(MultiValueMap<String, String> filters) {
+    return recipeSearch(filters, searchPredicate(filters));
+  }
+
+  private RecipeSearch recipeSearch(MultiValueMap<String, String> filters, Predicate predicate) {
+    return RecipeSearch.builder()
+      .predicate(predicate)
+      .text(filters.getFirst("search"))
+      .sort(SearchCriteriaBuilder.sort(filters))
+      .fields(SearchCriteriaBuilder.fields(filters))
+      .build();
+  }
+
+  /**
+   * Builds the search predicate, resolving the ingredient filters through the {@link IngredientIndex} when it is loaded,
+   * and records the shape of the query it builds.
+   */
+  private Predicate searchPredicate(MultiValueMap<String, String> filters) {
+    Optional<List<String>> recipeIds = resolveIngredients(filters);
+    queryShapeRecorder.record(QueryShape.of(filters, recipeIds.isPresent()));
+    return searchPredicate(filters, recipeIds);
+  }
+
+  private static Predicate searchPredicate(MultiValueMap<String, String> filters, Optional<List<String>> recipeIds) {
+    return recipeIds
+      .map(ids -> SearchCriteriaBuilder.addCondition(filters, ids))
+      .orElseGet(() -> SearchCriteriaBuilder.addCondition(filters));
+  }
+
+  /**
+   * @return whether the ingredient filters resolved by the {@link IngredientIndex} are the only filters of the shape
+   */
+  private static boolean isResolvedByIndex(QueryShape shape) {
+    return shape.getEqualityFields().equals(Set.of("_id")) && shape.getRangeFields().isEmpty()
+      && shape.getFilterFields().isEmpty() && !shape.isText();
+  }
+
+  /**
+   * @return the ids of the recipes matching the ingredient filters, empty when there are none or the index is not loaded
+   */
+  private Optional<List<String>> resolveIngredients(MultiValueMap<String, String> filters) {
+    List<String> includes = filters.getOrDefault("includes", Collections.emptyList());
+    List<String> excludes = filters.getOrDefault("excludes", Collections.emptyList());
+    return includes.isEmpty() && excludes.isEmpty()
+      ? Optional.empty()
+      : ingredientIndex.match(includes, excludes);
+  }
+
+  /**
+   * @return the recipes found by Querydsl, which already are a list, without copying them
+   */
+  private static List<RecipeDTO> asList(Iterable<RecipeDTO> recipeDTOs) {
+    return recipeDTOs instanceof List
+      ? (List<RecipeDTO>) recipeDTOs
+      : StreamSupport.stream(recipeDTOs.spliterator(), false).collect(Collectors.toList());
   }
 }
@@ -0,0 +1,16 @@
+package com.abn.recipes.utils;
+
+import org.springframework.http.MediaType;
+
+public final class BinaryMediaType {
+
+  public static final String APPLICATION_CBOR_VALUE = MediaType.APPLICATION_CBOR_VALUE;
+  public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+  public static final MediaType APPLICATION_CBOR;
+  public static final MediaType APPLICATION_SMILE;
+
+  static {
+    APPLICATION_CBOR = MediaType.APPLICATION_CBOR;
+    APPLICATION_SMILE = MediaType.valueOf(APPLICATION_SMILE_VALUE);
+  }
+}
@@ -0,0 +1,35 @@
+package com.abn.recipes.utils;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Function;
+
+/**
+ * A read only view of a list converting every element when it is read, so a list of converted elements is never
+ * materialized. Every read converts the element again and gets a new copy.
+ *
+ * @param <S> the type of the source elements
+ * @param <T> the type of the converted elements
+ */
+final class MappedList<S, T> extends AbstractList<T> implements RandomAccess {
+
+  private final List<S> source;
+
+  private final Function<S, T> conversion;
+
+  MappedList(List<S> source, Function<S, T> conversion) {
+    this.source = source;
+    this.conversion = conversion;
+  }
+
+  @Override
+  public T get(int index) {
+    return conversion.apply(source.get(index));
+  }
+
+  @Override
+  public int size() {
+    return source.size();
+  }
+}
@@ -1,8 +1,16 @@
 package com.abn.recipes.utils;
 
+import com.abn.recipes.domain.Recipe;
 import com.abn.recipes.exception.UnprocessableEntityException;
+import com.abn.recipes.metrics.RecipeMetrics;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Supplier;
+import javax.json.JsonException;
 import javax.json.JsonMergePatch;
 import javax.json.JsonPatch;
 import javax.json.JsonStructure;
@@ -17,12 +25,21 @@ import org.springframework.stereotype.Component;
 @RequiredArgsConstructor
 public class PatchHelper {
 
+  private static final String APPLY = "apply";
+  private static final String VALIDATE = "validate";
+  private static final String JSON_PATCH = "json-patch";
+  private static final String MERGE_PATCH = "merge-patch";
+
   private final ObjectMapper mapper;
 
   private final Validator validator;
 
+  private final MeterRegistry meterRegistry;
+
   /**
-   * Performs a JSON Patch operation.
+   * Performs a JSON Patch operation. {@link Recipe}s are patched field by field when the patch allows it,
+   * other beans are converted to a JSON tree, patched and converted back. The apply and validate phases are timed
+   * separately.
    *
    * @param patch      JSON Patch document
    * @param targetBean object that will be patched
@@ -31,9 +48,17 @@ public class PatchHelper {
    * @return patched object
    */
   public <T> T patch(JsonPatch patch, T targetBean, Class<T> beanClass) {
-    JsonStructure target = mapper.convertValue(targetBean, JsonStructure.class);
-    JsonValue patched = applyPatch(patch, target);
-    return convertAndValidate(patched, beanClass);
+    T patched = timed(APPLY, JSON_PATCH, () -> {
+      if (beanClass == Recipe.class) {
+        Optional<Recipe> patchedRecipe = applyDirectly(() -> RecipePatcher.patch(patch, (Recipe) targetBean));
+        if (patchedRecipe.isPresent()) {
+          return beanClass.cast(patchedRecipe.get());
+        }
+      }
+      JsonStructure target = mapper.convertValue(targetBean, JsonStructure.class);
+      return mapper.convertValue(applyPatch(patch, target), beanClass);
+    });
+    return timed(VALIDATE, JSON_PATCH, () -> validated(patched));
   }
 
   /**
@@ -46,9 +71,44 @@ public class PatchHelper {
    * @return patched object
    */
   public <T> T mergePatch(JsonMergePatch mergePatch, T targetBean, Class<T> beanClass) {
-    JsonValue target = mapper.convertValue(targetBean, JsonValue.class);
-    JsonValue patched = applyMergePatch(mergePatch, target);
-    return convertAndValidate(patched, beanClass);
+    T patched = timed(APPLY, MERGE_PATCH, () -> {
+      if (beanClass == Recipe.class) {
+        Optional<Recipe> patchedRecipe = RecipePatcher.mergePatch(mergePatch, (Recipe) targetBean);
+        if (patchedRecipe.isPresent()) {
+          return beanClass.cast(patchedRecipe.get());
+        }
+      }
+      JsonValue target = mapper.convertValue(targetBean, JsonValue.class);
+      return mapper.convertValue(applyMergePatch(mergePatch, target), beanClass);
+    });
+    return timed(VALIDATE, MERGE_PATCH, () -> validated(patched));
+  }
+
+  /**
+   * Records the duration of one phase of a patch, tagged with the exception it failed with if any.
+   */
+  private <T> T timed(String phase, String type, Supplier<T> step) {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    RuntimeException thrown = null;
+    try {
+      return step.get();
+    } catch (RuntimeException e) {
+      thrown = e;
+      throw e;
+    } finally {
+      sample.stop(meterRegistry.timer(RecipeMetrics.PATCH_TIMER, Tags.of(
+        RecipeMetrics.PHASE_TAG, phase,
+        RecipeMetrics.TYPE_TAG, type,
+        RecipeMetrics.OUTCOME_TAG, RecipeMetrics.outcome(thrown))));
+    }
+  }
+
+  private Optional<Recipe> applyDirectly(Supplier<Optional<Recipe>> patch) {
+    try {
+      return patch.get();
+    } catch (JsonException e) {
+      throw new UnprocessableEntityException(e);
+    }
   }
 
   private JsonValue applyPatch(JsonPatch patch, JsonStructure target) {
@@ -67,16 +127,11 @@ public class PatchHelper {
     }
   }
 
-  private <T> T convertAndValidate(JsonValue jsonValue, Class<T> beanClass) {
-    T bean = mapper.convertValue(jsonValue, beanClass);
-    validate(bean);
-    return bean;
-  }
-
-  private <T> void validate(T bean) {
+  private <T> T validated(T bean) {
     Set<ConstraintViolation<T>> violations = validator.validate(bean);
     if (!violations.isEmpty()) {
       throw new ConstraintViolationException(violations);
     }
+    return bean;
   }
 }
@@ -12,11 +12,19 @@ import org.mapstruct.MappingTarget;
 @Mapper
 public interface RecipeMapper {
   @Mapping(target = "id", ignore = true)
+  @Mapping(target = "version", ignore = true)
   void update(@MappingTarget Recipe recipe, Recipe recipeInput);
 
-  List<Recipe> map(List<RecipeDTO> recipes);
-
-  Recipe asInput(Recipe recipe);
+  /**
+   * Converts the recipes lazily: the returned list is a read only view converting each {@link RecipeDTO} when it is
+   * read, typically while the response is serialized, instead of a second list of copies.
+   *
+   * @param recipes the recipes to convert, may be {@code null}
+   * @return a view of the converted recipes, {@code null} for {@code null}
+   */
+  default List<Recipe> map(List<RecipeDTO> recipes) {
+    return recipes == null ? null : new MappedList<>(recipes, this::asRecipe);
+  }
 
   RecipeDTO asRecipeDTO(Recipe resourceInput);
 
@@ -0,0 +1,257 @@
+package com.abn.recipes.utils;
+
+import com.abn.recipes.domain.Category;
+import com.abn.recipes.domain.Recipe;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import javax.json.JsonArray;
+import javax.json.JsonException;
+import javax.json.JsonMergePatch;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonPatch;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+import javax.json.JsonValue.ValueType;
+
+/**
+ * Applies JSON Patch (RFC 6902) and JSON Merge Patch (RFC 7386) documents directly to the fields of a {@link Recipe},
+ * so a patch only allocates the fields it changes instead of converting the whole recipe to a JSON tree and back.
+ * <p>
+ * Operations on the top level fields and appends to {@code /ingredients/-} are supported. For any other document the
+ * methods return an empty {@link Optional} and the caller falls back to the generic JSON-P path.
+ */
+final class RecipePatcher {
+
+  private static final String ID = "id";
+  private static final String TITLE = "title";
+  private static final String SERVINGS = "servings";
+  private static final String INGREDIENTS = "ingredients";
+  private static final String INSTRUCTIONS = "instructions";
+  private static final String CATEGORY = "category";
+  private static final String APPEND_INGREDIENT = "/ingredients/-";
+
+  private final Recipe recipe;
+  private boolean ingredientsCopied;
+
+  private RecipePatcher(Recipe target) {
+    this.recipe = target.toBuilder().build();
+  }
+
+  /**
+   * @param patch the JSON Patch document
+   * @param target the {@link Recipe} to patch, left unchanged
+   * @return the patched copy of the {@link Recipe}, or empty when the patch cannot be applied directly
+   * @throws JsonException when a {@code test} operation fails or a path to remove or replace does not exist
+   */
+  static Optional<Recipe> patch(JsonPatch patch, Recipe target) {
+    RecipePatcher patcher = new RecipePatcher(target);
+    for (JsonValue operation : patch.toJsonArray()) {
+      if (!patcher.apply(operation.asJsonObject())) {
+        return Optional.empty();
+      }
+    }
+    return Optional.of(patcher.recipe);
+  }
+
+  /**
+   * @param mergePatch the JSON Merge Patch document
+   * @param target the {@link Recipe} to patch, left unchanged
+   * @return the patched copy of the {@link Recipe}, or empty when the patch cannot be applied directly
+   */
+  static Optional<Recipe> mergePatch(JsonMergePatch mergePatch, Recipe target) {
+    JsonValue document = mergePatch.toJsonValue();
+    if (document.getValueType() != ValueType.OBJECT) {
+      return Optional.empty();
+    }
+    RecipePatcher patcher = new RecipePatcher(target);
+    for (Map.Entry<String, JsonValue> member : document.asJsonObject().entrySet()) {
+      if (ID.equals(member.getKey())) {
+        return Optional.empty();
+      }
+      JsonValue value = member.getValue();
+      boolean applied = value.getValueType() == ValueType.NULL
+        ? patcher.remove(member.getKey())
+        : patcher.set(member.getKey(), value);
+      if (!applied && isField(member.getKey())) {
+        return Optional.empty();
+      }
+    }
+    return Optional.of(patcher.recipe);
+  }
+
+  private boolean apply(JsonObject operation) {
+    String op = operation.getString("op", "");
+    String path = operation.getString("path", "");
+    if (APPEND_INGREDIENT.equals(path)) {
+      return "add".equals(op) && addIngredient(operation.get("value"));
+    }
+    String field = path.substring(Math.min(1, path.length()));
+    if (!path.startsWith("/") || !isField(field)) {
+      return false;
+    }
+    switch (op) {
+      case "add":
+        return set(field, operation.get("value"));
+      case "replace":
+        requireExisting(field, path);
+        return set(field, operation.get("value"));
+      case "remove":
+        requireExisting(field, path);
+        return remove(field);
+      case "test":
+        return test(field, path, operation.get("value"));
+      default:
+        return false;
+    }
+  }
+
+  private boolean set(String field, JsonValue value) {
+    if (value == null) {
+      return false;
+    }
+    switch (field) {
+      case TITLE:
+        return isString(value) && setTitle(((JsonString) value).getString());
+      case INSTRUCTIONS:
+        return isString(value) && setInstructions(((JsonString) value).getString());
+      case SERVINGS:
+        return value.getValueType() == ValueType.NUMBER && ((JsonNumber) value).isIntegral()
+          && setServings(((JsonNumber) value).intValue());
+      case CATEGORY:
+        return isString(value) && setCategory(((JsonString) value).getString());
+      case INGREDIENTS:
+        return value.getValueType() == ValueType.ARRAY && setIngredients(value.asJsonArray());
+      default:
+        return false;
+    }
+  }
+
+  private boolean remove(String field) {
+    switch (field) {
+      case TITLE:
+        recipe.setTitle(null);
+        return true;
+      case INSTRUCTIONS:
+        recipe.setInstructions(null);
+        return true;
+      case SERVINGS:
+        recipe.setServings(null);
+        return true;
+      case CATEGORY:
+        recipe.setCategory(null);
+        return true;
+      case INGREDIENTS:
+        recipe.setIngredients(null);
+        ingredientsCopied = true;
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private boolean test(String field, String path, JsonValue value) {
+    if (value == null || INGREDIENTS.equals(field)) {
+      return false;
+    }
+    Object current = get(field);
+    boolean equal;
+    if (current instanceof Integer) {
+      equal = value.getValueType() == ValueType.NUMBER && ((JsonNumber) value).isIntegral()
+        && ((JsonNumber) value).intValue() == (Integer) current;
+    } else if (current != null) {
+      equal = isString(value) && ((JsonString) value).getString().equals(current.toString());
+    } else {
+      equal = false;
+    }
+    if (!equal) {
+      throw new JsonException("The JSON Patch operation 'test' failed for path '" + path + "'");
+    }
+    return true;
+  }
+
+  private boolean setTitle(String title) {
+    recipe.setTitle(title);
+    return true;
+  }
+
+  private boolean setInstructions(String instructions) {
+    recipe.setInstructions(instructions);
+    return true;
+  }
+
+  private boolean setServings(int servings) {
+    recipe.setServings(servings);
+    return true;
+  }
+
+  private boolean setCategory(String category) {
+    for (Category value : Category.values()) {
+      if (value.name().equals(category)) {
+        recipe.setCategory(value);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean setIngredients(JsonArray values) {
+    Set<String> ingredients = new LinkedHashSet<>(values.size() * 2);
+    for (JsonValue value : values) {
+      if (!isString(value)) {
+        return false;
+      }
+      ingredients.add(((JsonString) value).getString());
+    }
+    recipe.setIngredients(ingredients);
+    ingredientsCopied = true;
+    return true;
+  }
+
+  private boolean addIngredient(JsonValue value) {
+    if (value == null || !isString(value) || recipe.getIngredients() == null) {
+      return false;
+    }
+    if (!ingredientsCopied) {
+      recipe.setIngredients(new LinkedHashSet<>(recipe.getIngredients()));
+      ingredientsCopied = true;
+    }
+    recipe.getIngredients().add(((JsonString) value).getString());
+    return true;
+  }
+
+  private void requireExisting(String field, String path) {
+    if (get(field) == null) {
+      throw new JsonException("The JSON Patch path '" + path + "' does not exist");
+    }
+  }
+
+  private Object get(String field) {
+    switch (field) {
+      case TITLE:
+        return recipe.getTitle();
+      case INSTRUCTIONS:
+        return recipe.getInstructions();
+      case SERVINGS:
+        return recipe.getServings();
+      case CATEGORY:
+        return recipe.getCategory();
+      case INGREDIENTS:
+        return recipe.getIngredients();
+      default:
+        return null;
+    }
+  }
+
+  private static boolean isField(String field) {
+    return Objects.equals(field, TITLE) || Objects.equals(field, SERVINGS) || Objects.equals(field, INGREDIENTS)
+      || Objects.equals(field, INSTRUCTIONS) || Objects.equals(field, CATEGORY);
+  }
+
+  private static boolean isString(JsonValue value) {
+    return value.getValueType() == ValueType.STRING;
+  }
+}
@@ -0,0 +1,33 @@
+package com.abn.recipes.utils;
+
+import com.abn.recipes.domain.Recipe;
+import java.util.Set;
+
+/**
+ * Applies a {@code fields} projection to a {@link Recipe} that was not read with one, such as a cached recipe.
+ */
+public final class RecipeProjection {
+
+  private RecipeProjection() {
+  }
+
+  /**
+   * @param recipe the {@link Recipe} to project, left unchanged
+   * @param fields the fields to keep besides the id, see {@link SearchCriteriaBuilder#fields}
+   * @return the {@link Recipe} itself when the fields are empty, otherwise a copy with only the id and the fields
+   */
+  public static Recipe project(Recipe recipe, Set<String> fields) {
+    if (fields.isEmpty()) {
+      return recipe;
+    }
+    return Recipe.builder()
+      .id(recipe.getId())
+      .title(fields.contains("title") ? recipe.getTitle() : null)
+      .servings(fields.contains("servings") ? recipe.getServings() : null)
+      .ingredients(fields.contains("ingredients") ? recipe.getIngredients() : null)
+      .instructions(fields.contains("instructions") ? recipe.getInstructions() : null)
+      .category(fields.contains("category") ? recipe.getCategory() : null)
+      .version(fields.contains("version") ? recipe.getVersion() : null)
+      .build();
+  }
+}
@@ -2,8 +2,18 @@ package com.abn.recipes.utils;
 
 import com.abn.recipes.domain.Category;
 import com.abn.recipes.domain.QRecipeDTO;
+import com.abn.recipes.exception.InvalidFilterException;
+import com.abn.recipes.index.IngredientDictionary;
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Predicate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.springframework.data.domain.Sort;
+import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 
 /**
@@ -11,11 +21,18 @@ import org.springframework.util.MultiValueMap;
  */
 public class SearchCriteriaBuilder {
 
+  private static final Set<String> SORT_FIELDS = Set.of("id", "title", "servings", "category");
+
+  private static final Set<String> PROJECTION_FIELDS =
+    Set.of("title", "servings", "ingredients", "instructions", "category", "version");
+
   /**
-   * Creates the query criteria for the given search map.
+   * Creates the query criteria for the given search map. The {@code includes} and {@code excludes} ingredients are
+   * matched by their canonical name, the name the ingredients are stored by.
    *
    * @param searchMap the filtered query from URI
    * @return the {@link Predicate} the search predicate for the given filters map
+   * @throws InvalidFilterException when a filter value cannot be parsed
    */
   public static Predicate addCondition(MultiValueMap<String, String> searchMap) {
     BooleanBuilder queryBuilder = new BooleanBuilder();
@@ -23,13 +40,19 @@ public class SearchCriteriaBuilder {
     searchMap.forEach((key, value) -> {
         switch (key) {
           case "servings":
-            queryBuilder.and(qRecipe.servings.eq(Integer.parseInt(value.get(0))));
+            queryBuilder.and(qRecipe.servings.eq(servings(key, value.get(0))));
+            break;
+          case "servings[gte]":
+            queryBuilder.and(qRecipe.servings.goe(servings(key, value.get(0))));
+            break;
+          case "servings[lte]":
+            queryBuilder.and(qRecipe.servings.loe(servings(key, value.get(0))));
             break;
           case "includes":
-            value.forEach(tempVal -> queryBuilder.and(qRecipe.ingredients.contains(tempVal)));
+            value.forEach(tempVal -> queryBuilder.and(qRecipe.ingredients.contains(IngredientDictionary.normalize(tempVal))));
             break;
           case "excludes":
-            value.forEach(tempVal -> queryBuilder.andNot(qRecipe.ingredients.contains(tempVal)));
+            value.forEach(tempVal -> queryBuilder.andNot(qRecipe.ingredients.contains(IngredientDictionary.normalize(tempVal))));
             break;
           case "instructions":
             value.forEach(tempVal -> queryBuilder.and(qRecipe.instructions.containsIgnoreCase(tempVal)));
@@ -38,7 +61,8 @@ public class SearchCriteriaBuilder {
             value.forEach(tempVal -> queryBuilder.and(qRecipe.title.containsIgnoreCase(tempVal)));
             break;
           case "category":
-            queryBuilder.and(qRecipe.category.eq(Category.valueOf(value.get(0))));
+            List<Category> categories = categories(value);
+            queryBuilder.and(categories.size() == 1 ? qRecipe.category.eq(categories.get(0)) : qRecipe.category.in(categories));
             break;
           default:
         }
@@ -46,4 +70,99 @@ public class SearchCriteriaBuilder {
     );
     return queryBuilder.getValue();
   }
+
+  /**
+   * Creates the query criteria for the given search map whose {@code includes} and {@code excludes}
+   * filters are already resolved to the ids of the matching recipes.
+   *
+   * @param searchMap the filtered query from URI
+   * @param recipeIds the ids of the recipes matching the ingredient filters
+   * @return the {@link Predicate} the search predicate for the given filters map
+   */
+  public static Predicate addCondition(MultiValueMap<String, String> searchMap, Collection<String> recipeIds) {
+    MultiValueMap<String, String> remainingSearchMap = new LinkedMultiValueMap<>(searchMap);
+    remainingSearchMap.remove("includes");
+    remainingSearchMap.remove("excludes");
+    return new BooleanBuilder(addCondition(remainingSearchMap))
+      .and(new QRecipeDTO("recipe").id.in(recipeIds))
+      .getValue();
+  }
+
+  /**
+   * Creates the sort order from the {@code sort=field,dir} parameters, in the order they are given.
+   *
+   * @param searchMap the filtered query from URI
+   * @return the {@link Sort}, unsorted when there is no {@code sort} parameter
+   * @throws InvalidFilterException when a field cannot be sorted on or the direction is not asc or desc
+   */
+  public static Sort sort(MultiValueMap<String, String> searchMap) {
+    List<Sort.Order> orders = new ArrayList<>();
+    for (String value : searchMap.getOrDefault("sort", Collections.emptyList())) {
+      String[] parts = value.split(",", -1);
+      String field = parts[0].trim();
+      if (!SORT_FIELDS.contains(field) || parts.length > 2) {
+        throw new InvalidFilterException("Cannot sort recipes by :: " + value);
+      }
+      String direction = parts.length == 2 ? parts[1].trim() : "asc";
+      orders.add(new Sort.Order(Sort.Direction.fromOptionalString(direction)
+        .orElseThrow(() -> new InvalidFilterException("Invalid sort direction :: " + direction)), field));
+    }
+    return Sort.by(orders);
+  }
+
+  /**
+   * Creates the projection from the comma separated {@code fields} parameters. The id is always returned.
+   *
+   * @param searchMap the filtered query from URI
+   * @return the fields to return, empty to return all of them
+   * @throws InvalidFilterException when a field is not a field of a recipe
+   */
+  public static Set<String> fields(MultiValueMap<String, String> searchMap) {
+    Set<String> fields = new LinkedHashSet<>();
+    for (String value : searchMap.getOrDefault("fields", Collections.emptyList())) {
+      for (String field : value.split(",")) {
+        if (field.isBlank() || "id".equals(field.trim())) {
+          continue;
+        }
+        if (!PROJECTION_FIELDS.contains(field.trim())) {
+          throw new InvalidFilterException("Unknown recipe field :: " + field.trim());
+        }
+        fields.add(field.trim());
+      }
+    }
+    return fields;
+  }
+
+  /**
+   * @param key the servings filter
+   * @param value the value of the filter
+   * @return the servings the filter compares to
+   * @throws InvalidFilterException when the value is not a number
+   */
+  public static int servings(String key, String value) {
+    try {
+      return Integer.parseInt(value.trim());
+    } catch (NumberFormatException e) {
+      throw new InvalidFilterException("Invalid " + key + " :: " + value);
+    }
+  }
+
+  /**
+   * Parses the {@code category} values, each of which may be a comma separated list.
+   *
+   * @throws InvalidFilterException when a value is not a category
+   */
+  public static List<Category> categories(List<String> values) {
+    List<Category> categories = new ArrayList<>();
+    for (String value : values) {
+      for (String category : value.split(",")) {
+        try {
+          categories.add(Category.valueOf(category.trim()));
+        } catch (IllegalArgumentException e) {
+          throw new InvalidFilterException("Invalid category :: " + category);
+        }
+      }
+    }
+    return categories;
+  }
 }
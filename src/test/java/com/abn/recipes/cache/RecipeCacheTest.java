@@ -0,0 +1,108 @@
+package com.abn.recipes.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.abn.recipes.domain.Category;
+import com.abn.recipes.domain.Recipe;
+import com.abn.recipes.events.RecipeChangedEvent;
+import com.abn.recipes.utils.TestUtil;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class RecipeCacheTest {
+
+  private RecipeCache recipeCache;
+
+  private AtomicInteger loads;
+
+  @BeforeEach
+  public void setup() {
+    recipeCache = new RecipeCache(100, Duration.ofMinutes(1));
+    loads = new AtomicInteger();
+  }
+
+  @Test
+  public void shouldLoadOnceAndCountHitsAndMisses() {
+    recipeCache.get("1", this::load);
+    recipeCache.get("1", this::load);
+    recipeCache.get("1", this::load);
+
+    assertEquals(1, loads.get());
+    assertEquals(2, recipeCache.statistics().getHitCount());
+    assertEquals(1, recipeCache.statistics().getMissCount());
+  }
+
+  @Test
+  public void shouldNotCacheMissingRecipe() {
+    assertNull(recipeCache.get("1", id -> {
+      loads.incrementAndGet();
+      return null;
+    }));
+    recipeCache.get("1", this::load);
+
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  public void shouldReturnCopies() {
+    recipeCache.get("1", this::load).getIngredients().add("salt");
+
+    assertEquals(1, recipeCache.get("1", this::load).getIngredients().size());
+  }
+
+  @Test
+  public void shouldRefreshOnSave() {
+    recipeCache.get("1", this::load);
+    Recipe updated = new Recipe("1", "Fried egg with tomato", 6, TestUtil.getIngredients("egg"),
+      "crack the egg on the pan with little oil.",
+      Category.NON_VEGETARIAN, 1L);
+    recipeCache.onRecipeChanged(RecipeChangedEvent.saved(updated));
+
+    assertEquals(6, recipeCache.get("1", this::load).getServings());
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  public void shouldNotCacheSavedRecipesWhichAreNotCached() {
+    recipeCache.onRecipeChanged(RecipeChangedEvent.saved(new Recipe("1", "Fried egg with tomato", 6,
+      TestUtil.getIngredients("egg"), "crack the egg on the pan with little oil.", Category.NON_VEGETARIAN, 1L)));
+
+    assertEquals(0, recipeCache.statistics().getSize());
+    assertEquals(2, recipeCache.get("1", this::load).getServings());
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  public void shouldInvalidateOnSaveWithoutVersion() {
+    recipeCache.get("1", this::load);
+    Recipe replaced = new Recipe("1", "Fried egg with tomato", 6, TestUtil.getIngredients("egg"),
+      "crack the egg on the pan with little oil.",
+      Category.NON_VEGETARIAN);
+    recipeCache.onRecipeChanged(RecipeChangedEvent.saved(replaced));
+
+    assertEquals(2, recipeCache.get("1", this::load).getServings());
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  public void shouldInvalidateOnDeleteAndClear() {
+    recipeCache.get("1", this::load);
+    recipeCache.get("2", this::load);
+    recipeCache.onRecipeChanged(RecipeChangedEvent.deleted("1"));
+    recipeCache.get("1", this::load);
+    recipeCache.onRecipeChanged(RecipeChangedEvent.cleared());
+    recipeCache.get("2", this::load);
+
+    assertEquals(4, loads.get());
+  }
+
+  private Recipe load(String id) {
+    loads.incrementAndGet();
+    return new Recipe(id, "Fried egg with tomato", 2, TestUtil.getIngredients("egg"),
+      "crack the egg on the pan with little oil.",
+      Category.NON_VEGETARIAN);
+  }
+}
@@ -0,0 +1,75 @@
+package com.abn.recipes.cache;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.abn.recipes.config.JacksonConfig;
+import com.abn.recipes.domain.Category;
+import com.abn.recipes.domain.Recipe;
+import com.abn.recipes.events.RecipeChangedEvent;
+import com.abn.recipes.utils.TestUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class SerializedRecipeCacheTest {
+
+  private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+
+  private SerializedRecipeCache serializedRecipeCache;
+
+  @BeforeEach
+  public void setup() {
+    serializedRecipeCache = new SerializedRecipeCache(objectMapper, true, 100, 256, Duration.ofMinutes(1));
+  }
+
+  @Test
+  public void shouldSerializeOnceAndCompressLargeRecipes() throws IOException {
+    Recipe recipe = recipe(1L, "crack the egg on the pan with little oil. ".repeat(10));
+    SerializedRecipe serialized = serializedRecipeCache.get("1", id -> recipe);
+
+    assertEquals(1L, serialized.getVersion());
+    assertArrayEquals(objectMapper.writeValueAsBytes(recipe), serialized.getJson());
+    try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(serialized.getGzip()))) {
+      assertArrayEquals(serialized.getJson(), gzip.readAllBytes());
+    }
+    assertSame(serialized, serializedRecipeCache.get("1", id -> null));
+  }
+
+  @Test
+  public void shouldNotCompressSmallRecipes() {
+    assertNull(serializedRecipeCache.get("1", id -> recipe(1L, "fry")).getGzip());
+  }
+
+  @Test
+  public void shouldSerializeAgainOnlyWhenSaved() {
+    serializedRecipeCache.get("1", id -> recipe(1L, "fry"));
+
+    serializedRecipeCache.onRecipeChanged(RecipeChangedEvent.saved(recipe(2L, "boil")));
+    assertEquals(2L, serializedRecipeCache.get("1", id -> null).getVersion());
+
+    serializedRecipeCache.onRecipeChanged(RecipeChangedEvent.saved(recipe(null, "poach")));
+    assertNull(serializedRecipeCache.get("1", id -> null));
+
+    serializedRecipeCache.get("1", id -> recipe(3L, "fry"));
+    serializedRecipeCache.onRecipeChanged(RecipeChangedEvent.deleted("1"));
+    assertNull(serializedRecipeCache.get("1", id -> null));
+
+    serializedRecipeCache.onRecipeChanged(RecipeChangedEvent.saved(recipe(4L, "scramble")));
+    assertNotNull(serializedRecipeCache.get("1", id -> recipe(4L, "scramble")));
+  }
+
+  private static Recipe recipe(Long version, String instructions) {
+    Recipe recipe = new Recipe("1", "Fried egg with tomato", 2, TestUtil.getIngredients("egg", "tomato"),
+      instructions, Category.NON_VEGETARIAN);
+    recipe.setVersion(version);
+    return recipe;
+  }
+}
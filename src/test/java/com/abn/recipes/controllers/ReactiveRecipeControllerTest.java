@@ -0,0 +1,186 @@
+package com.abn.recipes.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.abn.recipes.config.JacksonConfig;
+import com.abn.recipes.domain.Category;
+import com.abn.recipes.domain.Recipe;
+import com.abn.recipes.exception.PreconditionFailedException;
+import com.abn.recipes.exception.ResourceNotFoundException;
+import com.abn.recipes.services.ReactiveRecipeService;
+import com.abn.recipes.utils.BinaryMediaType;
+import com.abn.recipes.utils.PatchMediaType;
+import com.abn.recipes.utils.TestUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@WebFluxTest(ReactiveRecipeController.class)
+@Import({ JacksonConfig.class, SimpleMeterRegistry.class })
+public class ReactiveRecipeControllerTest {
+
+  @Autowired
+  private WebTestClient webTestClient;
+
+  @MockBean
+  private ReactiveRecipeService recipeService;
+
+  @Test
+  void shouldGetRecipeWithETag() {
+    when(recipeService.findRecipeById("1")).thenReturn(Mono.just(recipe("1", 3L)));
+
+    webTestClient.get().uri("/recipes/1").exchange()
+      .expectStatus().isOk()
+      .expectHeader().valueEquals(HttpHeaders.ETAG, "\"3\"")
+      .expectBody().jsonPath("$.title").isEqualTo("Fried egg with tomato");
+  }
+
+  @Test
+  void shouldGetRecipeAsSmile() throws Exception {
+    when(recipeService.findRecipeById("1")).thenReturn(Mono.just(recipe("1", 3L)));
+
+    byte[] body = webTestClient.get().uri("/recipes/1").accept(BinaryMediaType.APPLICATION_SMILE).exchange()
+      .expectStatus().isOk()
+      .expectHeader().contentType(BinaryMediaType.APPLICATION_SMILE)
+      .expectBody(byte[].class).returnResult().getResponseBody();
+    assertEquals("Fried egg with tomato",
+      new JacksonConfig().smileObjectMapper().readValue(body, Recipe.class).getTitle());
+  }
+
+  @Test
+  void shouldReturnNotFoundWhenRecipeIsMissing() {
+    when(recipeService.findRecipeById("1"))
+      .thenReturn(Mono.error(new ResourceNotFoundException("Recipe not found for this id :: 1")));
+
+    webTestClient.get().uri("/recipes/1").exchange()
+      .expectStatus().isNotFound()
+      .expectBody().jsonPath("$.message").isEqualTo("Recipe not found for this id :: 1");
+  }
+
+  @Test
+  void shouldCountRecipesWithoutReadingThem() {
+    when(recipeService.existsRecipes(any())).thenReturn(Mono.just(false));
+    when(recipeService.countRecipes(any())).thenReturn(Mono.just(5L));
+
+    webTestClient.head().uri("/recipes?includes=salmon").exchange()
+      .expectStatus().isNoContent();
+    webTestClient.head().uri("/recipes?includes=potato&total=true").exchange()
+      .expectStatus().isOk()
+      .expectHeader().valueEquals(RecipeController.TOTAL_COUNT_HEADER, "5");
+    webTestClient.get().uri("/recipes/_count?includes=potato").exchange()
+      .expectStatus().isOk()
+      .expectHeader().valueEquals(RecipeController.TOTAL_COUNT_HEADER, "5")
+      .expectBody().jsonPath("$.total").isEqualTo(5);
+  }
+
+  @Test
+  void shouldGetFilteredRecipes() {
+    when(recipeService.getFilteredRecipes(any())).thenReturn(Flux.just(recipe("1", 0L), recipe("2", 0L)));
+
+    webTestClient.get().uri("/recipes?servings=2").accept(MediaType.APPLICATION_JSON).exchange()
+      .expectStatus().isOk()
+      .expectBody().jsonPath("$.length()").isEqualTo(2);
+  }
+
+  @Test
+  void shouldReturnNoContentWhenNoRecipeMatches() {
+    when(recipeService.getFilteredRecipes(any())).thenReturn(Flux.empty());
+
+    webTestClient.get().uri("/recipes").accept(MediaType.APPLICATION_JSON).exchange()
+      .expectStatus().isNoContent();
+  }
+
+  @Test
+  void shouldStreamRecipesAsNdjson() {
+    when(recipeService.getFilteredRecipes(any())).thenReturn(Flux.just(recipe("1", 0L), recipe("2", 0L)));
+
+    List<Recipe> recipes = webTestClient.get().uri("/recipes").accept(MediaType.APPLICATION_NDJSON).exchange()
+      .expectStatus().isOk()
+      .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+      .returnResult(Recipe.class)
+      .getResponseBody()
+      .collectList()
+      .block();
+
+    assertEquals(List.of("1", "2"), recipes.stream().map(Recipe::getId).collect(Collectors.toList()));
+  }
+
+  @Test
+  void shouldMergePatchRecipeAtIfMatchVersion() {
+    when(recipeService.saveMergePatch(eq("1"), any(), eq(3L))).thenReturn(Mono.just(recipe("1", 4L)));
+
+    webTestClient.patch().uri("/recipes/1")
+      .contentType(PatchMediaType.APPLICATION_MERGE_PATCH)
+      .header(HttpHeaders.IF_MATCH, "\"3\"")
+      .bodyValue("{\"servings\":4}")
+      .exchange()
+      .expectStatus().isNoContent()
+      .expectHeader().valueEquals(HttpHeaders.ETAG, "\"4\"");
+  }
+
+  @Test
+  void shouldJsonPatchRecipe() {
+    when(recipeService.saveJsonPatch(eq("1"), any(), isNull())).thenReturn(Mono.just(recipe("1", 1L)));
+
+    webTestClient.patch().uri("/recipes/1")
+      .contentType(PatchMediaType.APPLICATION_JSON_PATCH)
+      .bodyValue("[{\"op\":\"replace\",\"path\":\"/servings\",\"value\":4}]")
+      .exchange()
+      .expectStatus().isNoContent();
+  }
+
+  @Test
+  void shouldRejectMalformedPatch() {
+    webTestClient.patch().uri("/recipes/1")
+      .contentType(PatchMediaType.APPLICATION_JSON_PATCH)
+      .bodyValue("{\"op\":")
+      .exchange()
+      .expectStatus().isBadRequest();
+
+    verify(recipeService, never()).saveJsonPatch(any(), any(), any());
+  }
+
+  @Test
+  void shouldReturnPreconditionFailedWhenRecipeChanged() {
+    when(recipeService.updateRecipe(eq("1"), any(), eq(2L)))
+      .thenReturn(Mono.error(new PreconditionFailedException("Recipe has been modified since version :: 2")));
+
+    webTestClient.put().uri("/recipes/1")
+      .contentType(MediaType.APPLICATION_JSON)
+      .header(HttpHeaders.IF_MATCH, "\"2\"")
+      .bodyValue(recipe("1", null))
+      .exchange()
+      .expectStatus().isEqualTo(412);
+  }
+
+  @Test
+  void shouldDeleteRecipe() {
+    when(recipeService.deleteRecipeById("1")).thenReturn(Mono.empty());
+
+    webTestClient.delete().uri("/recipes/1").exchange()
+      .expectStatus().isNoContent();
+
+    verify(recipeService).deleteRecipeById("1");
+  }
+
+  private static Recipe recipe(String id, Long version) {
+    return new Recipe(id, "Fried egg with tomato", 2, TestUtil.getIngredients("egg"),
+      "crack the egg on the pan with little oil.", Category.NON_VEGETARIAN, version);
+  }
+}
@@ -1,24 +1,48 @@
 package com.abn.recipes.controllers;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import com.abn.recipes.cache.SerializedRecipe;
+import com.abn.recipes.cache.SerializedRecipeCache;
+import com.abn.recipes.config.JacksonConfig;
+import com.abn.recipes.domain.BulkItemResult;
+import com.abn.recipes.domain.BulkResult;
 import com.abn.recipes.domain.Category;
 import com.abn.recipes.domain.Recipe;
+import com.abn.recipes.domain.RecipeFacets;
+import com.abn.recipes.domain.RecipePage;
+import com.abn.recipes.exception.InvalidFilterException;
+import com.abn.recipes.exception.PreconditionFailedException;
+import com.abn.recipes.metrics.RecipeMetrics;
 import com.abn.recipes.services.RecipeService;
+import com.abn.recipes.utils.BinaryMediaType;
 import com.abn.recipes.utils.PatchMediaType;
 import com.abn.recipes.utils.TestUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import javax.json.JsonMergePatch;
 import javax.json.JsonPatch;
@@ -27,12 +51,16 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 
 @WebMvcTest(RecipeController.class)
+@Import({ JacksonConfig.class, SimpleMeterRegistry.class })
 public class RecipeControllerTest {
 
   @Autowired
@@ -41,9 +69,15 @@ public class RecipeControllerTest {
   @Autowired
   private MockMvc mockMvc;
 
+  @Autowired
+  private MeterRegistry meterRegistry;
+
   @MockBean
   private RecipeService recipeService;
 
+  @MockBean
+  private SerializedRecipeCache serializedRecipeCache;
+
   @Test
   void shouldCreateRecipe() throws Exception {
     Recipe recipe = new Recipe("1", "Fried egg with tomato", 2, TestUtil.getIngredients("potato"),
@@ -56,6 +90,26 @@ public class RecipeControllerTest {
       .andDo(print());
   }
 
+  @Test
+  void shouldBulkSaveRecipesFromNdjson() throws Exception {
+    when(recipeService.saveAll(any())).thenAnswer(invocation -> {
+      Iterator<Recipe> recipes = invocation.getArgument(0);
+      BulkResult result = new BulkResult();
+      for (int index = 0; recipes.hasNext(); index++) {
+        result.add(new BulkItemResult(index, recipes.next().getTitle(), BulkItemResult.Status.CREATED, null));
+      }
+      return result;
+    });
+    String body = "{\"title\":\"Fried egg with tomato\",\"servings\":2}\n"
+      + "{\"title\":\"Kadai paneer\",\"servings\":3}\n";
+    mockMvc.perform(post("/recipes/_bulk").contentType(MediaType.APPLICATION_NDJSON).content(body))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.created").value(2))
+      .andExpect(jsonPath("$.items[1].id").value("Kadai paneer"))
+      .andExpect(jsonPath("$.items[1].error").doesNotExist())
+      .andDo(print());
+  }
+
   @Test
   void shouldReturnRecipe() throws Exception {
     String id = "1";
@@ -75,6 +129,118 @@ public class RecipeControllerTest {
       .andDo(print());
   }
 
+  @Test
+  void shouldReturnOnlyRequestedFieldsOfRecipe() throws Exception {
+    String id = "1";
+    Recipe recipe = new Recipe(id, "Fried egg with tomato", 2, TestUtil.getIngredients("potato", "cauliflower"),
+      "crack the egg on the pan with little oil.",
+      Category.NON_VEGETARIAN
+    );
+
+    when(recipeService.findRecipeById(id)).thenReturn(recipe);
+    mockMvc.perform(get("/recipes/{id}", id).param("fields", "title,category"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.id").value(id))
+      .andExpect(jsonPath("$.title").value(recipe.getTitle()))
+      .andExpect(jsonPath("$.category").value(recipe.getCategory().name()))
+      .andExpect(jsonPath("$.ingredients").doesNotExist())
+      .andExpect(jsonPath("$.instructions").doesNotExist())
+      .andExpect(jsonPath("$.servings").doesNotExist())
+      .andDo(print());
+  }
+
+  @Test
+  void shouldWriteSerializedRecipeGzipEncodedWhenAccepted() throws Exception {
+    byte[] json = "{\"id\":\"1\",\"title\":\"Fried egg with tomato\"}".getBytes(StandardCharsets.UTF_8);
+    byte[] gzip = new byte[] {31, -117, 8, 0};
+    when(serializedRecipeCache.isEnabled()).thenReturn(true);
+    when(serializedRecipeCache.get(eq("1"), any())).thenReturn(new SerializedRecipe(3L, json, gzip));
+
+    mockMvc.perform(get("/recipes/{id}", "1").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br"))
+      .andExpect(status().isOk())
+      .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+      .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+      .andExpect(header().string(HttpHeaders.ETAG, "\"3-gzip\""))
+      .andExpect(content().bytes(gzip));
+    mockMvc.perform(get("/recipes/{id}", "1").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"))
+      .andExpect(status().isOk())
+      .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+      .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+      .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+      .andExpect(jsonPath("$.title").value("Fried egg with tomato"));
+    mockMvc.perform(get("/recipes/{id}", "1").header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+      .andExpect(status().isNotModified());
+    mockMvc.perform(get("/recipes/{id}", "1").header(HttpHeaders.IF_NONE_MATCH, "\"3-gzip\""))
+      .andExpect(status().isOk())
+      .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+    mockMvc.perform(get("/recipes/{id}", "1").header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+        .header(HttpHeaders.IF_NONE_MATCH, "\"3-gzip\""))
+      .andExpect(status().isNotModified());
+  }
+
+  @Test
+  void shouldNegotiateCborAndSmileRecipes() throws Exception {
+    Recipe recipe = new Recipe("1", "Fried egg with tomato", 2, TestUtil.getIngredients("egg", "tomato"),
+      "crack the egg on the pan with little oil.",
+      Category.NON_VEGETARIAN
+    );
+    when(recipeService.findRecipeById("1")).thenReturn(recipe);
+    when(recipeService.getAllRecipes()).thenReturn(Collections.singletonList(recipe));
+    JacksonConfig jacksonConfig = new JacksonConfig();
+
+    MvcResult cbor = mockMvc.perform(get("/recipes/{id}", "1").accept(BinaryMediaType.APPLICATION_CBOR))
+      .andExpect(status().isOk())
+      .andExpect(content().contentType(BinaryMediaType.APPLICATION_CBOR))
+      .andReturn();
+    assertEquals(recipe.getTitle(), jacksonConfig.cborObjectMapper()
+      .readValue(cbor.getResponse().getContentAsByteArray(), Recipe.class).getTitle());
+
+    MvcResult smile = mockMvc.perform(get("/recipes").accept(BinaryMediaType.APPLICATION_SMILE))
+      .andExpect(status().isOk())
+      .andExpect(content().contentType(BinaryMediaType.APPLICATION_SMILE))
+      .andReturn();
+    assertEquals(1, jacksonConfig.smileObjectMapper()
+      .readValue(smile.getResponse().getContentAsByteArray(), Recipe[].class).length);
+  }
+
+  @Test
+  void shouldBulkSaveRecipesFromCbor() throws Exception {
+    when(recipeService.saveAll(any())).thenAnswer(invocation -> {
+      Iterator<Recipe> recipes = invocation.getArgument(0);
+      BulkResult result = new BulkResult();
+      for (int index = 0; recipes.hasNext(); index++) {
+        result.add(new BulkItemResult(index, recipes.next().getTitle(), BulkItemResult.Status.CREATED, null));
+      }
+      return result;
+    });
+    List<Recipe> recipes = Arrays.asList(
+      Recipe.builder().title("Fried egg with tomato").build(),
+      Recipe.builder().title("Mixed veg").build());
+
+    mockMvc.perform(post("/recipes/_bulk").contentType(BinaryMediaType.APPLICATION_CBOR)
+        .content(new JacksonConfig().cborObjectMapper().writeValueAsBytes(recipes)))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.created").value(2))
+      .andExpect(jsonPath("$.items[1].id").value("Mixed veg"));
+  }
+
+  @Test
+  void shouldReturnFacetsOfFilteredRecipes() throws Exception {
+    Map<Category, Long> categories = new LinkedHashMap<>();
+    categories.put(Category.VEGETARIAN, 3L);
+    categories.put(Category.NON_VEGETARIAN, 1L);
+    when(recipeService.getFacets(any())).thenReturn(new RecipeFacets(4, categories,
+      Collections.singletonMap("1-2", 4L), Collections.singletonMap("potato", 2L)));
+
+    mockMvc.perform(get("/recipes/_facets").param("includes", "potato"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.total").value(4))
+      .andExpect(jsonPath("$.categories.VEGETARIAN").value(3))
+      .andExpect(jsonPath("$.servings['1-2']").value(4))
+      .andExpect(jsonPath("$.ingredients.potato").value(2))
+      .andDo(print());
+  }
+
   @Test
   void shouldReturnListOfRecipes() throws Exception {
     Set<String> ingredients = new HashSet<>();
@@ -145,6 +311,137 @@ public class RecipeControllerTest {
       .andDo(print());
   }
 
+  @Test
+  void shouldReturnBadRequestForInvalidFilter() throws Exception {
+    MultiValueMap<String, String> paramsMap = new LinkedMultiValueMap<>();
+    paramsMap.add("servings[gte]", "two");
+
+    when(recipeService.getFilteredRecipe(paramsMap)).thenThrow(new InvalidFilterException("Invalid servings[gte] :: two"));
+    Counter errors = meterRegistry.counter(RecipeMetrics.ERROR_COUNTER,
+      RecipeMetrics.EXCEPTION_TAG, "InvalidFilterException", RecipeMetrics.STATUS_TAG, "400");
+    double counted = errors.count();
+    mockMvc.perform(get("/recipes").params(paramsMap))
+      .andExpect(status().isBadRequest())
+      .andExpect(jsonPath("$.message").value("Invalid servings[gte] :: two"))
+      .andDo(print());
+    assertEquals(counted + 1, errors.count());
+  }
+
+  @Test
+  void shouldReturnFirstPageOfRecipesWithNextCursor() throws Exception {
+    List<Recipe> recipes = Arrays.asList(
+      new Recipe("0", "Fried egg with tomato", 2, TestUtil.getIngredients("egg", "tomato"),
+        "crack the egg on the pan with little oil.",
+        Category.NON_VEGETARIAN
+      ),
+      new Recipe("1", "Kadai paneer", 3, TestUtil.getIngredients("paneer", "bell pepper"),
+        "firstly, in a large kadai, heat 1 tbsp butter and saute 1 bay leaf.",
+        Category.VEGETARIAN
+      )
+    );
+
+    when(recipeService.getRecipePage(any(), isNull(), eq(2))).thenReturn(new RecipePage(recipes, "1"));
+    mockMvc.perform(get("/recipes").param("size", "2"))
+      .andExpect(status().isOk())
+      .andExpect(header().string(RecipeController.NEXT_CURSOR_HEADER, "1"))
+      .andExpect(header().doesNotExist(RecipeController.TOTAL_COUNT_HEADER))
+      .andExpect(jsonPath("$.size()").value(recipes.size()))
+      .andDo(print());
+    verify(recipeService, never()).countRecipes(any());
+  }
+
+  @Test
+  void shouldReturnPageWithTotalWhenAsked() throws Exception {
+    List<Recipe> recipes = Collections.singletonList(
+      new Recipe("0", "Fried egg with tomato", 2, TestUtil.getIngredients("egg", "tomato"),
+        "crack the egg on the pan with little oil.",
+        Category.NON_VEGETARIAN
+      )
+    );
+
+    when(recipeService.getRecipePage(any(), isNull(), eq(1))).thenReturn(new RecipePage(recipes, "0"));
+    when(recipeService.countRecipes(any())).thenReturn(7L);
+    mockMvc.perform(get("/recipes").param("size", "1").param("total", "true"))
+      .andExpect(status().isOk())
+      .andExpect(header().string(RecipeController.NEXT_CURSOR_HEADER, "0"))
+      .andExpect(header().string(RecipeController.TOTAL_COUNT_HEADER, "7"))
+      .andDo(print());
+  }
+
+  @Test
+  void shouldCheckRecipesExistWithHead() throws Exception {
+    when(recipeService.existsRecipes(any())).thenReturn(true, false);
+
+    mockMvc.perform(head("/recipes").param("includes", "potato"))
+      .andExpect(status().isOk())
+      .andExpect(header().doesNotExist(RecipeController.TOTAL_COUNT_HEADER));
+    mockMvc.perform(head("/recipes").param("includes", "salmon"))
+      .andExpect(status().isNoContent());
+    verify(recipeService, never()).getFilteredRecipe(any());
+    verify(recipeService, never()).countRecipes(any());
+  }
+
+  @Test
+  void shouldCountRecipesWithHeadAndCountEndpoint() throws Exception {
+    when(recipeService.countRecipes(any())).thenReturn(4L);
+
+    mockMvc.perform(head("/recipes").param("includes", "potato").param("total", "true"))
+      .andExpect(status().isOk())
+      .andExpect(header().string(RecipeController.TOTAL_COUNT_HEADER, "4"));
+    mockMvc.perform(get("/recipes/_count").param("includes", "potato"))
+      .andExpect(status().isOk())
+      .andExpect(header().string(RecipeController.TOTAL_COUNT_HEADER, "4"))
+      .andExpect(jsonPath("$.total").value(4))
+      .andDo(print());
+    verify(recipeService, never()).getFilteredRecipe(any());
+  }
+
+  @Test
+  void shouldReturnLastPageOfRecipesWithoutNextCursor() throws Exception {
+    List<Recipe> recipes = Collections.singletonList(
+      new Recipe("3", "salmon with potato", 4, TestUtil.getIngredients("salmon", "potato"),
+        "at 250 degree celcium grill the fish along with potato in the oven",
+        Category.NON_VEGETARIAN
+      )
+    );
+
+    when(recipeService.getRecipePage(any(), eq("2"), eq(50))).thenReturn(new RecipePage(recipes, null));
+    mockMvc.perform(get("/recipes").param("after", "2"))
+      .andExpect(status().isOk())
+      .andExpect(header().doesNotExist(RecipeController.NEXT_CURSOR_HEADER))
+      .andExpect(jsonPath("$[0].id").value("3"))
+      .andDo(print());
+  }
+
+  @Test
+  void shouldStreamRecipesAsNdjson() throws Exception {
+    when(recipeService.streamRecipes(any())).thenReturn(Stream.of(
+      new Recipe("0", "Fried egg with tomato", 2, TestUtil.getIngredients("egg"),
+        "crack the egg on the pan with little oil.",
+        Category.NON_VEGETARIAN
+      ),
+      new Recipe("1", "Kadai paneer", 3, TestUtil.getIngredients("paneer"),
+        "firstly, in a large kadai, heat 1 tbsp butter and saute 1 bay leaf.",
+        Category.VEGETARIAN
+      )
+    ));
+
+    MvcResult result = mockMvc.perform(get("/recipes").accept(MediaType.APPLICATION_NDJSON))
+      .andExpect(request().asyncStarted())
+      .andReturn();
+    String[] lines = mockMvc.perform(asyncDispatch(result))
+      .andExpect(status().isOk())
+      .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+      .andReturn()
+      .getResponse()
+      .getContentAsString()
+      .split("\n");
+
+    assertEquals(2, lines.length);
+    assertEquals("0", objectMapper.readValue(lines[0], Recipe.class).getId());
+    assertEquals("1", objectMapper.readValue(lines[1], Recipe.class).getId());
+  }
+
   @Test
   void shouldUpdateRecipe() throws Exception {
     String id = "1";
@@ -153,7 +450,7 @@ public class RecipeControllerTest {
       Category.NON_VEGETARIAN
     );
 
-    when(recipeService.updateRecipe(any(String.class), any(Recipe.class))).thenReturn(updatedRecipe);
+    when(recipeService.updateRecipe(any(String.class), any(Recipe.class), isNull())).thenReturn(updatedRecipe);
 
     mockMvc.perform(put("/recipes/{id}", id)
           .contentType(MediaType.APPLICATION_JSON)
@@ -164,6 +461,70 @@ public class RecipeControllerTest {
       .andDo(print());
   }
 
+  @Test
+  void shouldReturnRecipeVersionAsETag() throws Exception {
+    Recipe recipe = new Recipe("1", "Fried egg with tomato", 2, TestUtil.getIngredients("egg"),
+      "crack the egg on the pan with little oil.",
+      Category.NON_VEGETARIAN, 3L
+    );
+
+    when(recipeService.findRecipeById("1")).thenReturn(recipe);
+    mockMvc.perform(get("/recipes/{id}", "1"))
+      .andExpect(status().isOk())
+      .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+      .andExpect(jsonPath("$.version").value(3))
+      .andDo(print());
+    mockMvc.perform(get("/recipes/{id}", "1").header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+      .andExpect(status().isNotModified())
+      .andExpect(content().string(""))
+      .andDo(print());
+  }
+
+  @Test
+  void shouldUpdateRecipeMatchingIfMatchVersion() throws Exception {
+    Recipe updatedRecipe = new Recipe("1", "Fried egg with tomato", 4, TestUtil.getIngredients("egg", "tomato"),
+      "crack the egg on the pan with little oil.",
+      Category.NON_VEGETARIAN, 4L
+    );
+
+    when(recipeService.saveJsonPatch(eq("1"), any(JsonPatch.class), eq(3L))).thenReturn(updatedRecipe);
+    mockMvc.perform(patch("/recipes/{id}", "1")
+          .header(HttpHeaders.IF_MATCH, "\"3\"")
+          .contentType(PatchMediaType.APPLICATION_JSON_PATCH)
+          .content(TestUtil.fromFile("json-patch.json")))
+      .andExpect(status().isNoContent())
+      .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+      .andDo(print());
+    mockMvc.perform(patch("/recipes/{id}", "1")
+          .header(HttpHeaders.IF_MATCH, "\"3-gzip\"")
+          .contentType(PatchMediaType.APPLICATION_JSON_PATCH)
+          .content(TestUtil.fromFile("json-patch.json")))
+      .andExpect(status().isNoContent());
+  }
+
+  @Test
+  void shouldReturnPreconditionFailedForStaleVersion() throws Exception {
+    Recipe recipe = new Recipe("1", "Fried egg with tomato", 4, TestUtil.getIngredients("egg", "tomato"),
+      "crack the egg on the pan with little oil.",
+      Category.NON_VEGETARIAN
+    );
+
+    when(recipeService.updateRecipe(eq("1"), any(Recipe.class), eq(2L)))
+      .thenThrow(new PreconditionFailedException("Recipe has been modified since version :: 2"));
+    mockMvc.perform(put("/recipes/{id}", "1")
+          .header(HttpHeaders.IF_MATCH, "\"2\"")
+          .contentType(MediaType.APPLICATION_JSON)
+          .content(objectMapper.writeValueAsString(recipe)))
+      .andExpect(status().isPreconditionFailed())
+      .andDo(print());
+    mockMvc.perform(put("/recipes/{id}", "1")
+          .header(HttpHeaders.IF_MATCH, "W/\"2\"")
+          .contentType(MediaType.APPLICATION_JSON)
+          .content(objectMapper.writeValueAsString(recipe)))
+      .andExpect(status().isPreconditionFailed())
+      .andDo(print());
+  }
+
   @Test
   void shouldReturnNoContentFoundUpdateRecipe() throws Exception {
     String id = "1";
@@ -191,7 +552,7 @@ public class RecipeControllerTest {
       Category.NON_VEGETARIAN
     );
 
-    when(recipeService.saveMergePatch(any(String.class), any(JsonMergePatch.class))).thenReturn(updatedRecipe);
+    when(recipeService.saveMergePatch(any(String.class), any(JsonMergePatch.class), isNull())).thenReturn(updatedRecipe);
 
     mockMvc.perform(patch("/recipes/{id}", id)
           .contentType(PatchMediaType.APPLICATION_MERGE_PATCH)
@@ -209,7 +570,7 @@ public class RecipeControllerTest {
       Category.NON_VEGETARIAN
     );
 
-    when(recipeService.saveJsonPatch(any(String.class), any(JsonPatch.class))).thenReturn(updatedRecipe);
+    when(recipeService.saveJsonPatch(any(String.class), any(JsonPatch.class), isNull())).thenReturn(updatedRecipe);
     mockMvc.perform(patch("/recipes/{id}", id)
           .contentType(PatchMediaType.APPLICATION_JSON_PATCH)
           .content(TestUtil.fromFile("json-patch.json")))
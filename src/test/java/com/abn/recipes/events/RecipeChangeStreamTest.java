@@ -0,0 +1,119 @@
+package com.abn.recipes.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.abn.recipes.domain.Category;
+import com.abn.recipes.utils.RecipeMapperImpl;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+public class RecipeChangeStreamTest {
+
+  private RecipeChangeStream changeStream;
+
+  private MongoCollection<BsonDocument> tokens;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  public void setup() {
+    MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    when(mongoTemplate.getConverter())
+      .thenReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext()));
+    MongoDatabase database = mock(MongoDatabase.class);
+    tokens = mock(MongoCollection.class);
+    when(mongoTemplate.getDb()).thenReturn(database);
+    when(database.getCollection(RecipeChangeStream.TOKEN_COLLECTION, BsonDocument.class)).thenReturn(tokens);
+    changeStream = new RecipeChangeStream(mongoTemplate, new RecipeMapperImpl(), mock(ApplicationEventPublisher.class),
+      true, "node-1", Duration.ofSeconds(5), 100, Duration.ofHours(1));
+  }
+
+  @Test
+  public void shouldSaveTheTokenEveryHundredChanges() {
+    for (int change = 0; change < 250; change++) {
+      changeStream.apply(change(OperationType.DELETE, new BsonString(String.valueOf(change)), null));
+    }
+
+    verify(tokens, times(2)).replaceOne(any(Bson.class), any(BsonDocument.class), any(ReplaceOptions.class));
+  }
+
+  @Test
+  public void shouldPublishSavedRecipeOnInsertUpdateAndReplace() {
+    Document recipe = new Document("_id", "1")
+      .append("title", "Fried egg with tomato")
+      .append("servings", 2)
+      .append("ingredients", List.of("egg", "tomato"))
+      .append("instructions", "crack the egg on the pan with little oil.")
+      .append("category", "NON_VEGETARIAN");
+
+    for (OperationType operationType : List.of(OperationType.INSERT, OperationType.UPDATE, OperationType.REPLACE)) {
+      RecipeChangedEvent event = changeStream.event(change(operationType, new BsonString("1"), recipe)).get();
+
+      assertEquals(RecipeChangedEvent.Type.SAVED, event.getType());
+      assertEquals("1", event.getRecipeId());
+      assertEquals("Fried egg with tomato", event.getRecipe().getTitle());
+      assertEquals(Set.of("egg", "tomato"), event.getRecipe().getIngredients());
+      assertEquals(Category.NON_VEGETARIAN, event.getRecipe().getCategory());
+    }
+  }
+
+  @Test
+  public void shouldPublishDeletedRecipe() {
+    ObjectId id = new ObjectId();
+
+    RecipeChangedEvent event = changeStream.event(change(OperationType.DELETE, new BsonObjectId(id), null)).get();
+
+    assertEquals(RecipeChangedEvent.Type.DELETED, event.getType());
+    assertEquals(id.toHexString(), event.getRecipeId());
+    assertNull(event.getRecipe());
+  }
+
+  @Test
+  public void shouldPublishDeletedRecipeWhenUpdatedRecipeIsGoneOnLookup() {
+    RecipeChangedEvent event = changeStream.event(change(OperationType.UPDATE, new BsonString("1"), null)).get();
+
+    assertEquals(RecipeChangedEvent.Type.DELETED, event.getType());
+    assertEquals("1", event.getRecipeId());
+  }
+
+  @Test
+  public void shouldClearOnDropAndIgnoreInvalidate() {
+    assertEquals(RecipeChangedEvent.Type.CLEARED, changeStream.event(change(OperationType.DROP, null, null)).get().getType());
+    assertEquals(RecipeChangedEvent.Type.CLEARED,
+      changeStream.event(change(OperationType.RENAME, null, null)).get().getType());
+    assertFalse(changeStream.event(change(OperationType.INVALIDATE, null, null)).isPresent());
+  }
+
+  private static ChangeStreamDocument<Document> change(OperationType operationType, BsonValue id,
+    Document fullDocument) {
+    BsonDocument documentKey = id == null ? null : new BsonDocument("_id", id);
+    return new ChangeStreamDocument<>(operationType, new BsonDocument("_data", new BsonString("token")), null, null,
+      fullDocument, documentKey, null, null, null, null);
+  }
+}
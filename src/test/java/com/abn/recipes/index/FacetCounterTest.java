@@ -0,0 +1,138 @@
+package com.abn.recipes.index;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.abn.recipes.domain.Category;
+import com.abn.recipes.domain.Recipe;
+import com.abn.recipes.domain.RecipeDTO;
+import com.abn.recipes.domain.RecipeFacets;
+import com.abn.recipes.events.RecipeChangedEvent;
+import com.abn.recipes.repositories.RecipeRepository;
+import com.abn.recipes.repositories.RecipeSearch;
+import com.abn.recipes.utils.TestUtil;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class FacetCounterTest {
+
+  private RecipeRepository recipeRepository;
+
+  private FacetCounter facetCounter;
+
+  @BeforeEach
+  public void setup() {
+    recipeRepository = mock(RecipeRepository.class);
+    when(recipeRepository.streamAll(any(RecipeSearch.class))).thenReturn(Stream.of(
+      new RecipeDTO("0", "Fried egg with tomato", 2, TestUtil.getIngredients("egg", "tomato"),
+        "crack the egg on the pan with little oil.",
+        Category.NON_VEGETARIAN),
+      new RecipeDTO("1", "mixed veg", 2, TestUtil.getIngredients("bell pepper", "potato", "mushroom"),
+        "chop all the ingredients and stir it in kadai with oil and spices",
+        Category.VEGETARIAN),
+      new RecipeDTO("2", "salmon with potato", 4, TestUtil.getIngredients("salmon", "potato"),
+        "at 250 degree celcium grill the fish along with potato in the oven",
+        Category.NON_VEGETARIAN)
+    ));
+    facetCounter = new FacetCounter(recipeRepository, true, 2);
+    facetCounter.load();
+  }
+
+  @Test
+  public void shouldCountAllRecipes() {
+    RecipeFacets facets = facetCounter.facets().get();
+
+    assertEquals(3, facets.getTotal());
+    assertEquals(List.of(Category.NON_VEGETARIAN, Category.VEGETARIAN), new ArrayList<>(facets.getCategories().keySet()));
+    assertEquals(Map.of(Category.NON_VEGETARIAN, 2L, Category.VEGETARIAN, 1L), facets.getCategories());
+    assertEquals(List.of("1-2", "3-4"), new ArrayList<>(facets.getServings().keySet()));
+    assertEquals(Map.of("1-2", 2L, "3-4", 1L), facets.getServings());
+    assertEquals(List.of("potato", "bell pepper"), new ArrayList<>(facets.getIngredients().keySet()));
+    assertEquals(2L, facets.getIngredients().get("potato"));
+    assertSame(facets, facetCounter.facets().get());
+  }
+
+  @Test
+  public void shouldFollowSavesAndDeletes() {
+    facetCounter.onRecipeChanged(RecipeChangedEvent.saved(
+      new Recipe("2", "grilled salmon", 8, TestUtil.getIngredients("salmon"),
+        "grill the fish in the oven",
+        Category.NON_VEGETARIAN)));
+    facetCounter.onRecipeChanged(RecipeChangedEvent.saved(
+      new Recipe("3", "baked potato", null, TestUtil.getIngredients("potato"),
+        "bake the potato",
+        Category.VEGETARIAN)));
+    facetCounter.onRecipeChanged(RecipeChangedEvent.deleted("0"));
+
+    RecipeFacets facets = facetCounter.facets().get();
+    assertEquals(3, facets.getTotal());
+    assertEquals(Map.of(Category.NON_VEGETARIAN, 1L, Category.VEGETARIAN, 2L), facets.getCategories());
+    assertEquals(List.of("1-2", "7+", "other"), new ArrayList<>(facets.getServings().keySet()));
+    assertEquals(List.of("potato", "bell pepper"), new ArrayList<>(facets.getIngredients().keySet()));
+
+    facetCounter.onRecipeChanged(RecipeChangedEvent.cleared());
+    facets = facetCounter.facets().get();
+    assertEquals(0, facets.getTotal());
+    assertEquals(Map.of(), facets.getCategories());
+    assertEquals(Map.of(), facets.getIngredients());
+  }
+
+  @Test
+  public void shouldReloadWhenStale() {
+    facetCounter.onRecipeChanged(RecipeChangedEvent.deleted("0"));
+    when(recipeRepository.streamAll(any(RecipeSearch.class))).thenReturn(Stream.of(
+      new RecipeDTO("3", "baked potato", 2, TestUtil.getIngredients("potato"),
+        "bake the potato",
+        Category.VEGETARIAN)));
+
+    facetCounter.onRecipeChanged(RecipeChangedEvent.stale());
+
+    RecipeFacets facets = facetCounter.facets().get();
+    assertEquals(1, facets.getTotal());
+    assertEquals(Map.of(Category.VEGETARIAN, 1L), facets.getCategories());
+    assertEquals(Map.of("potato", 1L), facets.getIngredients());
+  }
+
+  @Test
+  public void shouldNotBlockNorLoseSavesMadeWhileReloading() {
+    ExecutorService writer = Executors.newSingleThreadExecutor();
+    RecipeChangedEvent saved = RecipeChangedEvent.saved(
+      new Recipe("3", "baked potato", 1, TestUtil.getIngredients("potato"), null, Category.VEGETARIAN));
+    try {
+      when(recipeRepository.streamAll(any(RecipeSearch.class))).thenReturn(Stream.of(
+        new RecipeDTO("0", "Fried egg with tomato", 2, TestUtil.getIngredients("egg", "tomato"), null,
+          Category.NON_VEGETARIAN)
+      ).peek(recipe -> assertDoesNotThrow(
+        () -> writer.submit(() -> facetCounter.onRecipeChanged(saved)).get(5, TimeUnit.SECONDS))));
+
+      facetCounter.onRecipeChanged(RecipeChangedEvent.stale());
+    } finally {
+      writer.shutdownNow();
+    }
+
+    RecipeFacets facets = facetCounter.facets().get();
+    assertEquals(2, facets.getTotal());
+    assertEquals(Map.of(Category.NON_VEGETARIAN, 1L, Category.VEGETARIAN, 1L), facets.getCategories());
+    assertEquals(Map.of("1-2", 2L), facets.getServings());
+  }
+
+  @Test
+  public void shouldNotCountWhenDisabled() {
+    FacetCounter disabled = new FacetCounter(recipeRepository, false, 2);
+    disabled.load();
+
+    assertFalse(disabled.facets().isPresent());
+  }
+}
@@ -0,0 +1,78 @@
+package com.abn.recipes.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalInt;
+import org.junit.jupiter.api.Test;
+
+public class IngredientDictionaryTest {
+
+  @Test
+  public void shouldNormalizeCaseWhitespaceAndPlurals() {
+    assertEquals("cherry tomato", IngredientDictionary.normalize(" Cherry  Tomatoes "));
+    assertEquals("egg", IngredientDictionary.normalize("EGGS"));
+    assertEquals("berry", IngredientDictionary.normalize("berries"));
+    assertEquals("peach", IngredientDictionary.normalize("Peaches"));
+    assertEquals("bay leaf", IngredientDictionary.normalize("bay leaves"));
+    assertEquals("olive", IngredientDictionary.normalize("olives"));
+    assertEquals("olive oil", IngredientDictionary.normalize("olive oil"));
+    assertEquals("asparagus", IngredientDictionary.normalize("Asparagus"));
+    assertEquals("swiss", IngredientDictionary.normalize("swiss"));
+    assertEquals("chickpea", IngredientDictionary.normalize("chickpeas"));
+  }
+
+  @Test
+  public void shouldInternNamesToDenseIds() {
+    IngredientDictionary dictionary = new IngredientDictionary();
+
+    assertEquals(0, dictionary.id("Potatoes"));
+    assertEquals(1, dictionary.id("salt"));
+    assertEquals(0, dictionary.id("potato"));
+    assertEquals("potato", dictionary.name(0));
+    assertEquals(OptionalInt.of(1), dictionary.find("Salt"));
+    assertFalse(dictionary.find("pepper").isPresent());
+    assertEquals(2, dictionary.size());
+  }
+
+  @Test
+  public void shouldShareCanonicalNames() {
+    IngredientDictionary dictionary = new IngredientDictionary();
+
+    List<String> first = new ArrayList<>(dictionary.canonical(Arrays.asList("Salt", "olive oil", " ", "salt")));
+    List<String> second = new ArrayList<>(dictionary.canonical(Arrays.asList(new String("olive oil"), "SALT")));
+
+    assertEquals(Arrays.asList("salt", "olive oil"), first);
+    assertSame(first.get(0), second.get(1));
+    assertSame(first.get(1), second.get(0));
+    assertNull(dictionary.canonical(null));
+  }
+
+  @Test
+  public void shouldReturnStoredCanonicalNamesAsTheSharedInstance() {
+    IngredientDictionary dictionary = new IngredientDictionary();
+    String potato = dictionary.name(dictionary.id("potato"));
+
+    List<String> stored = new ArrayList<>(dictionary.canonicalStored(Arrays.asList(new String("potato"), "Salt", " ")));
+
+    assertEquals(Arrays.asList("potato", "salt"), stored);
+    assertSame(potato, stored.get(0));
+    assertEquals(2, dictionary.size());
+    assertNull(dictionary.canonicalStored(null));
+  }
+
+  @Test
+  public void shouldGrowPastInitialCapacity() {
+    IngredientDictionary dictionary = new IngredientDictionary();
+    for (int index = 0; index < 1000; index++) {
+      assertEquals(index, dictionary.id("ingredient " + index));
+    }
+
+    assertEquals("ingredient 999", dictionary.name(999));
+  }
+}
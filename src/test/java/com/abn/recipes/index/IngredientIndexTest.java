@@ -0,0 +1,143 @@
+package com.abn.recipes.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.abn.recipes.domain.Category;
+import com.abn.recipes.domain.Recipe;
+import com.abn.recipes.domain.RecipeDTO;
+import com.abn.recipes.events.RecipeChangedEvent;
+import com.abn.recipes.repositories.RecipeRepository;
+import com.abn.recipes.repositories.RecipeSearch;
+import com.abn.recipes.utils.TestUtil;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class IngredientIndexTest {
+
+  private RecipeRepository recipeRepository;
+
+  private IngredientIndex ingredientIndex;
+
+  @BeforeEach
+  public void setup() {
+    recipeRepository = mock(RecipeRepository.class);
+    when(recipeRepository.streamAll(any(RecipeSearch.class))).thenReturn(Stream.of(
+      new RecipeDTO("0", "Fried egg with tomato", 2, TestUtil.getIngredients("egg", "tomato"),
+        "crack the egg on the pan with little oil.",
+        Category.NON_VEGETARIAN),
+      new RecipeDTO("1", "mixed veg", 2, TestUtil.getIngredients("bell pepper", "potato", "mushroom"),
+        "chop all the ingredients and stir it in kadai with oil and spices",
+        Category.VEGETARIAN),
+      new RecipeDTO("2", "salmon with potato", 4, TestUtil.getIngredients("salmon", "potato"),
+        "at 250 degree celcium grill the fish along with potato in the oven",
+        Category.NON_VEGETARIAN)
+    ));
+    ingredientIndex = new IngredientIndex(recipeRepository, new IngredientDictionary(), true, 10_000);
+    ingredientIndex.load();
+  }
+
+  @Test
+  public void shouldMatchIncludesAndExcludes() {
+    assertEquals(ids("1", "2"), match(Collections.singletonList("potato"), Collections.emptyList()));
+    assertEquals(ids("1"), match(Collections.singletonList("potato"), Collections.singletonList("salmon")));
+    assertEquals(ids("0", "1"), match(Collections.emptyList(), Collections.singletonList("salmon")));
+    assertEquals(ids(), match(Arrays.asList("potato", "egg"), Collections.emptyList()));
+    assertEquals(ids(), match(Collections.singletonList("chicken"), Collections.emptyList()));
+  }
+
+  @Test
+  public void shouldMatchIngredientsWhateverTheirCaseOrPlural() {
+    assertEquals(ids("1", "2"), match(Collections.singletonList(" Potatoes "), Collections.emptyList()));
+    assertEquals(ids("1"), match(Collections.singletonList("Bell  Peppers"), Collections.singletonList("EGGS")));
+  }
+
+  @Test
+  public void shouldFollowSavesAndDeletes() {
+    ingredientIndex.onRecipeChanged(RecipeChangedEvent.saved(
+      new Recipe("2", "grilled salmon", 4, TestUtil.getIngredients("salmon"),
+        "grill the fish in the oven",
+        Category.NON_VEGETARIAN)));
+    ingredientIndex.onRecipeChanged(RecipeChangedEvent.saved(
+      new Recipe("3", "baked potato", 1, TestUtil.getIngredients("potato"),
+        "bake the potato",
+        Category.VEGETARIAN)));
+    ingredientIndex.onRecipeChanged(RecipeChangedEvent.deleted("1"));
+
+    assertEquals(ids("3"), match(Collections.singletonList("potato"), Collections.emptyList()));
+    assertEquals(ids("2"), match(Collections.singletonList("salmon"), Collections.emptyList()));
+
+    ingredientIndex.onRecipeChanged(RecipeChangedEvent.cleared());
+    assertEquals(ids(), match(Collections.emptyList(), Collections.emptyList()));
+  }
+
+  @Test
+  public void shouldNotMatchMoreRecipesThanTheLimit() {
+    when(recipeRepository.streamAll(any(RecipeSearch.class))).thenReturn(Stream.of(
+      new RecipeDTO("0", "Fried egg", 1, TestUtil.getIngredients("egg"), null, null),
+      new RecipeDTO("1", "Boiled egg", 1, TestUtil.getIngredients("egg"), null, null),
+      new RecipeDTO("2", "Salted egg", 1, TestUtil.getIngredients("egg", "salt"), null, null)));
+    IngredientIndex limited = new IngredientIndex(recipeRepository, new IngredientDictionary(), true, 1);
+    limited.load();
+
+    assertEquals(ids("2"), new HashSet<>(limited.match(Collections.singletonList("salt"), Collections.emptyList()).get()));
+    assertFalse(limited.match(Collections.singletonList("egg"), Collections.emptyList()).isPresent());
+    assertFalse(limited.match(Collections.emptyList(), Collections.singletonList("salt")).isPresent());
+  }
+
+  @Test
+  public void shouldReuseTheOrdinalsOfDeletedRecipes() {
+    for (int id = 0; id < 100; id++) {
+      ingredientIndex.onRecipeChanged(RecipeChangedEvent.saved(
+        new Recipe("tmp " + id, "baked potato", 1, TestUtil.getIngredients("potato"), null, null)));
+      ingredientIndex.onRecipeChanged(RecipeChangedEvent.deleted("tmp " + id));
+    }
+
+    assertEquals(4, ingredientIndex.ordinals());
+    assertEquals(ids("1", "2"), match(Collections.singletonList("potato"), Collections.emptyList()));
+  }
+
+  @Test
+  public void shouldKeepTheChangesMadeWhileReloading() {
+    when(recipeRepository.streamAll(any(RecipeSearch.class))).thenReturn(Stream.of(
+      new RecipeDTO("0", "Fried egg with tomato", 2, TestUtil.getIngredients("egg", "tomato"), null, null),
+      new RecipeDTO("1", "mixed veg", 2, TestUtil.getIngredients("potato"), null, null)
+    ).peek(recipe -> {
+      if ("0".equals(recipe.getId())) {
+        assertEquals(ids("1", "2"), match(Collections.singletonList("potato"), Collections.emptyList()));
+        ingredientIndex.onRecipeChanged(RecipeChangedEvent.saved(
+          new Recipe("3", "baked potato", 1, TestUtil.getIngredients("potato"), null, null)));
+        ingredientIndex.onRecipeChanged(RecipeChangedEvent.deleted("1"));
+      }
+    }));
+
+    ingredientIndex.onRecipeChanged(RecipeChangedEvent.stale());
+
+    assertEquals(ids("3"), match(Collections.singletonList("potato"), Collections.emptyList()));
+    assertEquals(ids("0"), match(Collections.singletonList("egg"), Collections.emptyList()));
+  }
+
+  @Test
+  public void shouldNotMatchWhenDisabled() {
+    IngredientIndex disabled = new IngredientIndex(recipeRepository, new IngredientDictionary(), false, 10_000);
+    disabled.load();
+
+    assertFalse(disabled.match(Collections.singletonList("potato"), Collections.emptyList()).isPresent());
+  }
+
+  private HashSet<String> match(List<String> includes, List<String> excludes) {
+    return new HashSet<>(ingredientIndex.match(includes, excludes).get());
+  }
+
+  private static HashSet<String> ids(String... ids) {
+    return new HashSet<>(Arrays.asList(ids));
+  }
+}
@@ -0,0 +1,119 @@
+package com.abn.recipes.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.abn.recipes.domain.RecipeDTO;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+public class QueryShapeRecorderTest {
+
+  private QueryShapeRecorder recorder;
+
+  @BeforeEach
+  public void setup() {
+    MongoOperations mongoOperations = mock(MongoOperations.class);
+    IndexOperations indexOperations = mock(IndexOperations.class);
+    when(mongoOperations.indexOps(RecipeDTO.class)).thenReturn(indexOperations);
+    when(indexOperations.getIndexInfo()).thenReturn(Arrays.asList(
+      index("_id_", "_id"),
+      index("ingredients_category_servings", "ingredients", "category", "servings"),
+      index("category_servings", "category", "servings"),
+      new IndexInfo(Arrays.asList(IndexField.text("title", 2F), IndexField.text("instructions", 1F)),
+        "RecipeDTO_TextIndex", false, false, "english")));
+    recorder = new QueryShapeRecorder(mongoOperations);
+  }
+
+  @Test
+  public void shouldReportIndexStartingWithAllEqualityFields() {
+    recorder.record(QueryShape.of(filters("category", "VEGETARIAN", "servings", "4"), false));
+    recorder.record(QueryShape.of(filters("servings", "2", "category", "VEGETARIAN"), false));
+
+    List<QueryShapeReport> reports = recorder.report();
+
+    assertEquals(1, reports.size());
+    assertEquals("[category, servings]", reports.get(0).getShape());
+    assertEquals(2, reports.get(0).getCount());
+    assertEquals("category_servings", reports.get(0).getIndex());
+    assertEquals(QueryShapeReport.Support.INDEXED, reports.get(0).getSupport());
+  }
+
+  @Test
+  public void shouldReportPartialIndexAndCollectionScan() {
+    recorder.record(QueryShape.of(filters("includes", "egg", "servings", "2"), false));
+    recorder.record(QueryShape.of(filters("servings", "2", "title", "egg"), false));
+    recorder.record(QueryShape.of(filters("servings", "2", "title", "egg"), false));
+
+    List<QueryShapeReport> reports = recorder.report();
+
+    assertEquals("[servings] filter [title]", reports.get(0).getShape());
+    assertNull(reports.get(0).getIndex());
+    assertEquals(QueryShapeReport.Support.COLLECTION_SCAN, reports.get(0).getSupport());
+    assertEquals("[ingredients, servings]", reports.get(1).getShape());
+    assertEquals("ingredients_category_servings", reports.get(1).getIndex());
+    assertEquals(QueryShapeReport.Support.PARTIAL, reports.get(1).getSupport());
+  }
+
+  @Test
+  public void shouldReportResolvedIngredientsAndTextSearch() {
+    recorder.record(QueryShape.of(filters("excludes", "egg"), true));
+    recorder.record(QueryShape.of(filters("search", "grilled potatoes", "size", "10"), false));
+
+    List<QueryShapeReport> reports = recorder.report();
+
+    assertEquals("$text []", reports.get(0).getShape());
+    assertEquals("RecipeDTO_TextIndex", reports.get(0).getIndex());
+    assertEquals("[_id]", reports.get(1).getShape());
+    assertEquals("_id_", reports.get(1).getIndex());
+    assertEquals(QueryShapeReport.Support.INDEXED, reports.get(1).getSupport());
+  }
+
+  @Test
+  public void shouldReportRangeAfterEqualityFields() {
+    recorder.record(QueryShape.of(filters("category", "VEGETARIAN", "servings[gte]", "2"), false));
+    recorder.record(QueryShape.of(filters("includes", "egg", "servings[lte]", "4"), false));
+    recorder.record(QueryShape.of(filters("includes", "egg", "servings[lte]", "4"), false));
+
+    List<QueryShapeReport> reports = recorder.report();
+
+    assertEquals("[ingredients] range [servings]", reports.get(0).getShape());
+    assertEquals(QueryShapeReport.Support.PARTIAL, reports.get(0).getSupport());
+    assertEquals("[category] range [servings]", reports.get(1).getShape());
+    assertEquals("category_servings", reports.get(1).getIndex());
+    assertEquals(QueryShapeReport.Support.INDEXED, reports.get(1).getSupport());
+  }
+
+  @Test
+  public void shouldIgnoreQueriesWithoutFilters() {
+    recorder.record(QueryShape.of(filters("size", "10", "after", "1"), false));
+
+    assertTrue(recorder.report().isEmpty());
+  }
+
+  private static IndexInfo index(String name, String... keys) {
+    return new IndexInfo(Arrays.stream(keys).map(key -> IndexField.create(key, Direction.ASC))
+      .collect(Collectors.toList()), name, false, false, null);
+  }
+
+  private static MultiValueMap<String, String> filters(String... keyValues) {
+    MultiValueMap<String, String> filters = new LinkedMultiValueMap<>();
+    for (int i = 0; i < keyValues.length; i += 2) {
+      filters.add(keyValues[i], keyValues[i + 1]);
+    }
+    return filters;
+  }
+}
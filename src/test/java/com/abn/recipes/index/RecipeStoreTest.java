@@ -0,0 +1,226 @@
+package com.abn.recipes.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.abn.recipes.domain.Category;
+import com.abn.recipes.domain.Recipe;
+import com.abn.recipes.domain.RecipeDTO;
+import com.abn.recipes.events.RecipeChangedEvent;
+import com.abn.recipes.exception.InvalidFilterException;
+import com.abn.recipes.repositories.RecipeRepository;
+import com.abn.recipes.repositories.RecipeSearch;
+import com.abn.recipes.utils.TestUtil;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+public class RecipeStoreTest {
+
+  private RecipeRepository recipeRepository;
+
+  private RecipeStore recipeStore;
+
+  @BeforeEach
+  public void setup() {
+    recipeRepository = mock(RecipeRepository.class);
+    when(recipeRepository.streamAll(any(RecipeSearch.class))).thenReturn(Stream.of(
+      new RecipeDTO("0", "Fried egg with tomato", 2, TestUtil.getIngredients("egg", "tomato"),
+        "crack the egg on the pan with little oil.",
+        Category.NON_VEGETARIAN, 3L),
+      new RecipeDTO("1", "mixed veg", 2, TestUtil.getIngredients("bell pepper", "potato", "mushroom"),
+        "chop all the ingredients and stir it in kadai with oil and spices",
+        Category.VEGETARIAN, 0L),
+      new RecipeDTO("2", "salmon with potato", 4, TestUtil.getIngredients("salmon", "potato"),
+        "at 250 degree celcium grill the fish along with potato in the oven",
+        Category.NON_VEGETARIAN, 1L),
+      new RecipeDTO("3", "Plain rice", null, null, null, null, null)
+    ));
+    recipeStore = new RecipeStore(recipeRepository, new IngredientDictionary(), true);
+    recipeStore.load();
+  }
+
+  @Test
+  public void shouldMaterializeStoredRecipes() {
+    List<Recipe> recipes = search();
+
+    assertEquals(List.of("0", "1", "2", "3"), ids(recipes));
+    Recipe recipe = recipes.get(0);
+    assertEquals("Fried egg with tomato", recipe.getTitle());
+    assertEquals(2, recipe.getServings());
+    assertEquals(Set.of("egg", "tomato"), recipe.getIngredients());
+    assertEquals("crack the egg on the pan with little oil.", recipe.getInstructions());
+    assertEquals(Category.NON_VEGETARIAN, recipe.getCategory());
+    assertEquals(3L, recipe.getVersion());
+    Recipe empty = recipes.get(3);
+    assertNull(empty.getServings());
+    assertNull(empty.getIngredients());
+    assertNull(empty.getInstructions());
+    assertNull(empty.getCategory());
+    assertNull(empty.getVersion());
+  }
+
+  @Test
+  public void shouldFilterAsTheDatabase() {
+    assertEquals(List.of("1", "2"), ids(search("includes", "Potatoes")));
+    assertEquals(List.of("1"), ids(search("includes", "potato", "excludes", "salmon")));
+    assertEquals(List.of("0", "1", "3"), ids(search("excludes", "salmon")));
+    assertEquals(List.of(), ids(search("includes", "chicken")));
+    assertEquals(List.of("0", "1"), ids(search("servings", "2")));
+    assertEquals(List.of("2"), ids(search("servings[gte]", "3", "servings[lte]", "4")));
+    assertEquals(List.of("0", "2"), ids(search("category", "NON_VEGETARIAN")));
+    assertEquals(List.of("0", "1", "2"), ids(search("category", "VEGETARIAN,NON_VEGETARIAN")));
+    assertEquals(List.of("2"), ids(search("instructions", "OVEN")));
+    assertEquals(List.of("0", "1", "3"), ids(search("title", "i", "title", "E")));
+  }
+
+  @Test
+  public void shouldSortAndProjectAsTheDatabase() {
+    assertEquals(List.of("3", "1", "0", "2"), ids(search("sort", "servings", "sort", "title,desc")));
+    assertEquals(List.of("3", "0", "2", "1"), ids(search("sort", "category")));
+    assertEquals(List.of("0", "3", "1", "2"), ids(search("sort", "title")));
+
+    Recipe recipe = search("fields", "title", "includes", "salmon").get(0);
+    assertEquals("salmon with potato", recipe.getTitle());
+    assertNull(recipe.getServings());
+    assertNull(recipe.getIngredients());
+    assertNull(recipe.getVersion());
+  }
+
+  @Test
+  public void shouldRejectInvalidFilters() {
+    assertThrows(InvalidFilterException.class, () -> search("servings", "two"));
+    assertThrows(InvalidFilterException.class, () -> search("category", "VEGAN"));
+    assertThrows(InvalidFilterException.class, () -> search("sort", "instructions"));
+  }
+
+  @Test
+  public void shouldFollowSavesAndDeletes() {
+    recipeStore.onRecipeChanged(saved(
+      new Recipe("2", "grilled salmon", 8, TestUtil.getIngredients("salmon"),
+        "grill the fish",
+        Category.NON_VEGETARIAN), 2L));
+    recipeStore.onRecipeChanged(saved(
+      new Recipe("4", "baked potato", 1, TestUtil.getIngredients("potato"),
+        "bake the potato",
+        Category.VEGETARIAN), 0L));
+    recipeStore.onRecipeChanged(RecipeChangedEvent.deleted("1"));
+
+    assertEquals(List.of("4"), ids(search("includes", "potato")));
+    assertEquals(List.of("0", "2", "3", "4"), ids(search()));
+    Recipe updated = search("includes", "salmon").get(0);
+    assertEquals("grilled salmon", updated.getTitle());
+    assertEquals("grill the fish", updated.getInstructions());
+    assertEquals(8, updated.getServings());
+
+    recipeStore.onRecipeChanged(RecipeChangedEvent.cleared());
+    assertEquals(List.of(), ids(search()));
+  }
+
+  @Test
+  public void shouldReclaimReplacedAndDeletedRecipes() {
+    for (int version = 0; version < 5000; version++) {
+      recipeStore.onRecipeChanged(saved(
+        new Recipe("recipe " + (version % 10), "title " + version, version, TestUtil.getIngredients("ingredient " + version),
+          "instructions " + version,
+          Category.VEGETARIAN), (long) version));
+      if (version % 3 == 0) {
+        recipeStore.onRecipeChanged(RecipeChangedEvent.deleted("recipe " + (version % 10)));
+      }
+    }
+
+    List<Recipe> recipes = search("category", "VEGETARIAN", "sort", "id");
+    assertEquals(List.of("1", "recipe 0", "recipe 1", "recipe 3", "recipe 4", "recipe 6", "recipe 7", "recipe 9"),
+      ids(recipes));
+    Recipe last = recipes.get(recipes.size() - 1);
+    assertEquals("title 4999", last.getTitle());
+    assertEquals("instructions 4999", last.getInstructions());
+    assertEquals(Set.of("ingredient 4999"), last.getIngredients());
+    assertEquals(11, recipeStore.size());
+  }
+
+  @Test
+  public void shouldKeepOlderVersionsFromReplacingNewerOnes() {
+    recipeStore.onRecipeChanged(saved(
+      new Recipe("0", "stale egg", 2, TestUtil.getIngredients("egg"), null, Category.NON_VEGETARIAN), 2L));
+
+    assertEquals("Fried egg with tomato", search("includes", "egg").get(0).getTitle());
+  }
+
+  @Test
+  public void shouldReadBackRecipesSavedWithoutVersion() {
+    when(recipeRepository.findById("4")).thenReturn(Optional.of(
+      new RecipeDTO("4", "baked potato", 1, TestUtil.getIngredients("potato"), "bake the potato",
+        Category.VEGETARIAN, 0L)));
+
+    recipeStore.onRecipeChanged(RecipeChangedEvent.saved(
+      new Recipe("4", "baked potato", 1, TestUtil.getIngredients("potato"), "bake the potato", Category.VEGETARIAN)));
+    recipeStore.onRecipeChanged(RecipeChangedEvent.saved(
+      new Recipe("1", "mixed veg", 3, TestUtil.getIngredients("potato"), null, Category.VEGETARIAN)));
+
+    assertEquals(List.of("2", "4"), ids(search("includes", "potato")));
+    assertEquals(0L, search("includes", "potato").get(1).getVersion());
+  }
+
+  @Test
+  public void shouldKeepTheChangesMadeWhileReloading() {
+    when(recipeRepository.streamAll(any(RecipeSearch.class))).thenReturn(Stream.of(
+      new RecipeDTO("0", "Fried egg with tomato", 2, TestUtil.getIngredients("egg", "tomato"), null, null, 3L),
+      new RecipeDTO("1", "mixed veg", 2, TestUtil.getIngredients("potato"), null, null, 0L)
+    ).peek(recipe -> {
+      if ("0".equals(recipe.getId())) {
+        assertEquals(List.of("1", "2"), ids(search("includes", "potato")));
+        recipeStore.onRecipeChanged(saved(
+          new Recipe("3", "baked potato", 1, TestUtil.getIngredients("potato"), null, null), 0L));
+        recipeStore.onRecipeChanged(RecipeChangedEvent.deleted("1"));
+      }
+    }));
+
+    recipeStore.onRecipeChanged(RecipeChangedEvent.stale());
+
+    assertEquals(List.of("3"), ids(search("includes", "potato")));
+    assertEquals(List.of("0", "3"), ids(search()));
+  }
+
+  @Test
+  public void shouldNotAnswerFullTextSearchOrWhenDisabled() {
+    RecipeStore disabled = new RecipeStore(recipeRepository, new IngredientDictionary(), false);
+    disabled.load();
+
+    assertFalse(recipeStore.search(filters("search", "egg")).isPresent());
+    assertFalse(disabled.search(filters()).isPresent());
+  }
+
+  private static RecipeChangedEvent saved(Recipe recipe, Long version) {
+    recipe.setVersion(version);
+    return RecipeChangedEvent.saved(recipe);
+  }
+
+  private List<Recipe> search(String... filters) {
+    return recipeStore.search(filters(filters)).get();
+  }
+
+  private static MultiValueMap<String, String> filters(String... filters) {
+    MultiValueMap<String, String> map = new LinkedMultiValueMap<>();
+    for (int index = 0; index < filters.length; index += 2) {
+      map.add(filters[index], filters[index + 1]);
+    }
+    return map;
+  }
+
+  private static List<String> ids(List<Recipe> recipes) {
+    return recipes.stream().map(Recipe::getId).collect(Collectors.toCollection(ArrayList::new));
+  }
+}
@@ -0,0 +1,125 @@
+package com.abn.recipes.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.abn.recipes.domain.QRecipeDTO;
+import com.abn.recipes.repositories.RecipeRepository;
+import com.abn.recipes.repositories.RecipeSearch;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+public class SlowQueryLogTest {
+
+  private static final long SLOW = Duration.ofSeconds(1).toNanos();
+
+  private RecipeRepository recipeRepository;
+
+  private SlowQueryLog slowQueryLog;
+
+  private QueryShape shape;
+
+  private RecipeSearch search;
+
+  @BeforeEach
+  public void setup() {
+    recipeRepository = mock(RecipeRepository.class);
+    slowQueryLog = new SlowQueryLog(recipeRepository, Duration.ofMillis(500), 2, true, Duration.ZERO, Runnable::run);
+    MultiValueMap<String, String> filters = new LinkedMultiValueMap<>();
+    filters.add("category", "VEGETARIAN");
+    filters.add("title", "potato");
+    shape = QueryShape.of(filters, false);
+    search = RecipeSearch.of(QRecipeDTO.recipeDTO.title.containsIgnoreCase("potato"));
+  }
+
+  @Test
+  public void shouldKeepSlowQueriesWithTheirPlan() {
+    when(recipeRepository.explain(any(RecipeSearch.class))).thenReturn(new Document()
+      .append("queryPlanner", new Document("winningPlan", new Document("stage", "COLLSCAN")))
+      .append("executionStats", new Document("totalKeysExamined", 0)
+        .append("totalDocsExamined", 1200)
+        .append("nReturned", 3)));
+
+    slowQueryLog.record(shape, search, SLOW);
+
+    SlowQuery slowQuery = slowQueryLog.recent().get(0);
+    assertEquals("[category] filter [title]", slowQuery.getShape());
+    assertEquals(search.getPredicate().toString(), slowQuery.getPredicate());
+    assertEquals(1000, slowQuery.getDurationMillis());
+    assertEquals(0L, slowQuery.getKeysExamined());
+    assertEquals(1200L, slowQuery.getDocsExamined());
+    assertEquals(3L, slowQuery.getReturned());
+    assertEquals("COLLSCAN", slowQuery.getWinningPlan().getString("stage"));
+  }
+
+  @Test
+  public void shouldExplainEachShapeOncePerIntervalOffTheRequestThread() {
+    List<Runnable> explains = new ArrayList<>();
+    SlowQueryLog rateLimited = new SlowQueryLog(recipeRepository, Duration.ofMillis(500), 10, true,
+      Duration.ofMinutes(1), explains::add);
+
+    rateLimited.record(shape, search, SLOW);
+    rateLimited.record(shape, search, 2 * SLOW);
+
+    assertEquals(1, explains.size());
+    assertEquals(1, rateLimited.recent().size());
+    verify(recipeRepository, never()).explain(any(RecipeSearch.class));
+    explains.get(0).run();
+    verify(recipeRepository, times(1)).explain(any(RecipeSearch.class));
+    assertEquals(List.of(1000L, 2000L),
+      rateLimited.recent().stream().map(SlowQuery::getDurationMillis).collect(Collectors.toList()));
+  }
+
+  @Test
+  public void shouldRecordWithoutPlanWhenTheExplainsAreBacklogged() {
+    SlowQueryLog backlogged = new SlowQueryLog(recipeRepository, Duration.ofMillis(500), 10, true, Duration.ZERO,
+      explain -> {
+        throw new RejectedExecutionException();
+      });
+
+    backlogged.record(shape, search, SLOW);
+
+    assertNull(backlogged.recent().get(0).getWinningPlan());
+    verify(recipeRepository, never()).explain(any(RecipeSearch.class));
+  }
+
+  @Test
+  public void shouldIgnoreFastQueries() {
+    slowQueryLog.record(shape, search, Duration.ofMillis(100).toNanos());
+
+    assertTrue(slowQueryLog.recent().isEmpty());
+    verify(recipeRepository, never()).explain(any(RecipeSearch.class));
+  }
+
+  @Test
+  public void shouldKeepTheMostRecentQueriesUpToCapacity() {
+    when(recipeRepository.explain(any(RecipeSearch.class))).thenThrow(new DataAccessResourceFailureException("down"));
+
+    slowQueryLog.record(shape, search, SLOW);
+    slowQueryLog.record(shape, search, 2 * SLOW);
+    slowQueryLog.record(shape, search, 3 * SLOW);
+
+    List<SlowQuery> recent = slowQueryLog.recent();
+    assertEquals(2, recent.size());
+    assertEquals(3000, recent.get(0).getDurationMillis());
+    assertEquals(2000, recent.get(1).getDurationMillis());
+    assertNull(recent.get(0).getWinningPlan());
+    assertNull(recent.get(0).getDocsExamined());
+  }
+}
@@ -0,0 +1,79 @@
+package com.abn.recipes.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class TextSegmentsTest {
+
+  @Test
+  public void shouldReadAppendedTexts() {
+    TextSegments segments = new TextSegments();
+    long first = segments.append("crack the egg on the pan with little oil.");
+    long second = segments.append("bake at 180°C for 20 minutes");
+    long empty = segments.append("");
+
+    assertEquals("crack the egg on the pan with little oil.", segments.read(first));
+    assertEquals("bake at 180°C for 20 minutes", segments.read(second));
+    assertEquals("", segments.read(empty));
+    assertEquals(TextSegments.NONE, segments.append(null));
+    assertNull(segments.read(TextSegments.NONE));
+    assertEquals(Integer.BYTES + 29, segments.footprint(second));
+    assertEquals(0, segments.footprint(TextSegments.NONE));
+    assertEquals(3 * Integer.BYTES + 41 + 29, segments.size());
+  }
+
+  @Test
+  public void shouldStartNewChunksWhenFull() {
+    TextSegments segments = new TextSegments(16);
+    long first = segments.append("chop the onions");
+    long second = segments.append("fry");
+    long third = segments.append("stir");
+
+    assertEquals("chop the onions", segments.read(first));
+    assertEquals("fry", segments.read(second));
+    assertEquals("stir", segments.read(third));
+    assertEquals(19 + 16, segments.capacity());
+  }
+
+  @Test
+  public void shouldCopyWithoutDecoding() {
+    TextSegments from = new TextSegments();
+    from.append("discarded");
+    long kept = from.append("grill the fish");
+    TextSegments to = new TextSegments();
+    long copy = to.copy(kept, from);
+
+    assertEquals("grill the fish", to.read(copy));
+    assertEquals(Integer.BYTES + 14, to.size());
+    assertEquals(TextSegments.NONE, to.copy(TextSegments.NONE, from));
+  }
+
+  @Test
+  public void shouldFindNeedlesIgnoringCase() {
+    TextSegments segments = new TextSegments();
+    long text = segments.append("Grill the fish in the OVEN at 250°C, then serve with Crème fraîche");
+
+    assertTrue(segments.containsIgnoreCase(text, needle("oven")));
+    assertTrue(segments.containsIgnoreCase(text, needle("grill")));
+    assertTrue(segments.containsIgnoreCase(text, needle("fraîche")));
+    assertTrue(segments.containsIgnoreCase(text, needle("CRÈME")));
+    assertTrue(segments.containsIgnoreCase(text, needle("")));
+    assertFalse(segments.containsIgnoreCase(text, needle("potato")));
+    assertFalse(segments.containsIgnoreCase(text, needle("fraiche")));
+    assertFalse(segments.containsIgnoreCase(text, needle("fraîches")));
+    assertTrue(segments.containsIgnoreCase(segments.append("Ümit's 🍳 Ägg"), needle("🍳 äGG")));
+    assertFalse(segments.containsIgnoreCase(segments.append("Ümit's 🍳"), needle("🍳 ä")));
+  }
+
+  private static char[] needle(String text) {
+    char[] needle = text.toCharArray();
+    for (int index = 0; index < needle.length; index++) {
+      needle[index] = TextSegments.foldCase(needle[index]);
+    }
+    return needle;
+  }
+}
@@ -0,0 +1,67 @@
+package com.abn.recipes.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.abn.recipes.RecipesApplication;
+import com.abn.recipes.domain.Category;
+import com.abn.recipes.domain.Recipe;
+import com.abn.recipes.domain.RecipeDTO;
+import com.abn.recipes.utils.TestUtil;
+import java.util.Objects;
+import java.util.function.Supplier;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Writes to the database behind the back of the application, as another instance would, and expects the cached recipe
+ * to follow. Needs a replica set, e.g. a local single node one: {@code mongod --replSet rs0} and
+ * {@code mongosh --eval "rs.initiate()"}.
+ */
+@SpringBootTest(
+  classes = RecipesApplication.class,
+  webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+  properties = "recipes.change-stream.enabled=true"
+)
+public class RecipeChangeStreamIntegrationTest {
+
+  @Autowired
+  private TestRestTemplate restTemplate;
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @Test
+  public void shouldFollowWritesOfOtherInstances() {
+    Recipe recipe = new Recipe("cs-1", "Fried egg with tomato", 2, TestUtil.getIngredients("egg", "tomato"),
+      "crack the egg on the pan with little oil.",
+      Category.NON_VEGETARIAN);
+    restTemplate.postForEntity("/recipes", recipe, Recipe.class);
+    assertEquals(2, restTemplate.getForObject("/recipes/cs-1", Recipe.class).getServings());
+
+    mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is("cs-1")), Update.update("servings", 4),
+      RecipeDTO.class);
+    assertEquals(4, eventually(() -> restTemplate.getForObject("/recipes/cs-1", Recipe.class).getServings(), 4));
+
+    mongoTemplate.remove(Query.query(Criteria.where("_id").is("cs-1")), RecipeDTO.class);
+    assertEquals(HttpStatus.NOT_FOUND,
+      eventually(() -> restTemplate.getForEntity("/recipes/cs-1", String.class).getStatusCode(), HttpStatus.NOT_FOUND));
+  }
+
+  @SneakyThrows
+  private static <T> T eventually(Supplier<T> read, T expected) {
+    T value = read.get();
+    for (int attempt = 0; attempt < 50 && !Objects.equals(value, expected); attempt++) {
+      Thread.sleep(100);
+      value = read.get();
+    }
+    return value;
+  }
+}
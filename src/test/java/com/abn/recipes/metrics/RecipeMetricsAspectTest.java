@@ -0,0 +1,96 @@
+package com.abn.recipes.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.abn.recipes.domain.Recipe;
+import com.abn.recipes.exception.ResourceNotFoundException;
+import com.abn.recipes.services.ReactiveRecipeService;
+import com.abn.recipes.services.RecipeService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import reactor.core.publisher.Mono;
+
+public class RecipeMetricsAspectTest {
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private RecipeService recipeService;
+
+  private RecipeService timedRecipeService;
+
+  @BeforeEach
+  public void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    recipeService = mock(RecipeService.class);
+    AspectJProxyFactory proxyFactory = new AspectJProxyFactory(recipeService);
+    proxyFactory.addAspect(new RecipeMetricsAspect(meterRegistry));
+    timedRecipeService = proxyFactory.getProxy();
+  }
+
+  @Test
+  public void shouldTimeServiceCallsByFilterKeys() {
+    when(recipeService.getFilteredRecipe(any())).thenReturn(List.of());
+    MultiValueMap<String, String> filters = new LinkedMultiValueMap<>();
+    filters.add("title", "salmon");
+    filters.add("category", "VEGETARIAN");
+    filters.add("unknown", "value");
+
+    timedRecipeService.getFilteredRecipe(filters);
+    timedRecipeService.getFilteredRecipe(filters);
+
+    assertEquals(2, meterRegistry.get(RecipeMetrics.SERVICE_TIMER)
+      .tag(RecipeMetrics.METHOD_TAG, "getFilteredRecipe")
+      .tag(RecipeMetrics.FILTERS_TAG, RecipeMetrics.OTHER)
+      .tag(RecipeMetrics.OUTCOME_TAG, RecipeMetrics.SUCCESS)
+      .timer().count());
+  }
+
+  @Test
+  public void shouldTagFailuresWithTheException() throws ResourceNotFoundException {
+    when(recipeService.findRecipeById("1")).thenThrow(new ResourceNotFoundException("Recipe not found"));
+
+    assertThrows(ResourceNotFoundException.class, () -> timedRecipeService.findRecipeById("1"));
+
+    assertEquals(1, meterRegistry.get(RecipeMetrics.SERVICE_TIMER)
+      .tag(RecipeMetrics.METHOD_TAG, "findRecipeById")
+      .tag(RecipeMetrics.FILTERS_TAG, RecipeMetrics.NONE)
+      .tag(RecipeMetrics.OUTCOME_TAG, "ResourceNotFoundException")
+      .timer().count());
+  }
+
+  @Test
+  public void shouldTimeReactiveCallsUntilTheyComplete() {
+    ReactiveRecipeService reactiveRecipeService = mock(ReactiveRecipeService.class);
+    when(reactiveRecipeService.findRecipeById("1")).thenReturn(Mono.error(new ResourceNotFoundException("Recipe not found")));
+    AspectJProxyFactory proxyFactory = new AspectJProxyFactory(reactiveRecipeService);
+    proxyFactory.addAspect(new RecipeMetricsAspect(meterRegistry));
+    ReactiveRecipeService timedReactiveRecipeService = proxyFactory.getProxy();
+
+    Mono<Recipe> recipe = timedReactiveRecipeService.findRecipeById("1");
+    assertTrue(meterRegistry.find(RecipeMetrics.SERVICE_TIMER).timers().isEmpty());
+
+    assertThrows(RuntimeException.class, recipe::block);
+    assertEquals(1, meterRegistry.get(RecipeMetrics.SERVICE_TIMER)
+      .tag(RecipeMetrics.METHOD_TAG, "findRecipeById")
+      .tag(RecipeMetrics.OUTCOME_TAG, "ResourceNotFoundException")
+      .timer().count());
+  }
+
+  @Test
+  public void shouldTagAFewKindsOfFilters() {
+    assertEquals(RecipeMetrics.OTHER, RecipeMetrics.filters(List.of("servings[gte]", "includes", "callback")));
+    assertEquals(RecipeMetrics.INGREDIENTS, RecipeMetrics.filters(List.of("includes", "excludes", "sort")));
+    assertEquals(RecipeMetrics.TEXT, RecipeMetrics.filters(List.of("title", "search")));
+    assertEquals(RecipeMetrics.NONE, RecipeMetrics.filters(List.of("callback", "fields", "size")));
+  }
+}
@@ -0,0 +1,254 @@
+package com.abn.recipes.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.abn.recipes.domain.Category;
+import com.abn.recipes.domain.RecipeDTO;
+import com.abn.recipes.domain.RecipeFacets;
+import com.abn.recipes.utils.SearchCriteriaBuilder;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.json.Json;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.aggregation.TypeBasedAggregationOperationContext;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+/**
+ * Verifies the queries sent by {@link RecipeRepositoryCustomImpl} without a running database.
+ */
+public class RecipeRepositoryCustomImplTest {
+
+  private MongoClient mongoClient;
+
+  private MongoTemplate mongoTemplate;
+
+  private RecipeRepositoryCustomImpl recipeRepository;
+
+  @BeforeEach
+  public void setup() {
+    mongoClient = MongoClients.create("mongodb://localhost:1");
+    mongoTemplate = spy(new MongoTemplate(mongoClient, "recipe_app_db"));
+    doReturn(Collections.emptyList()).when(mongoTemplate).find(any(Query.class), eq(RecipeDTO.class));
+    recipeRepository = new RecipeRepositoryCustomImpl(mongoTemplate);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    mongoClient.close();
+  }
+
+  @Test
+  public void shouldSearchTextWithFiltersMostRelevantFirst() {
+    MultiValueMap<String, String> filters = new LinkedMultiValueMap<>();
+    filters.add("category", "VEGETARIAN");
+
+    recipeRepository.search(RecipeSearch.builder()
+      .predicate(SearchCriteriaBuilder.addCondition(filters))
+      .text("grilled potatoes")
+      .build());
+
+    Query query = capturedQuery();
+    assertEquals("VEGETARIAN", query.getQueryObject().get("category"));
+    assertEquals(new Document("$search", "grilled potatoes"), query.getQueryObject().get("$text"));
+    assertEquals(new Document("$meta", "textScore"), query.getSortObject().get("score"));
+  }
+
+  @Test
+  public void shouldPushRangeSortAndProjectionDown() {
+    MultiValueMap<String, String> filters = new LinkedMultiValueMap<>();
+    filters.add("servings[gte]", "2");
+    filters.add("servings[lte]", "6");
+    filters.add("category", "VEGETARIAN,NON_VEGETARIAN");
+    filters.add("sort", "servings,desc");
+    filters.add("fields", "title,servings");
+
+    recipeRepository.search(RecipeSearch.builder()
+      .predicate(SearchCriteriaBuilder.addCondition(filters))
+      .sort(SearchCriteriaBuilder.sort(filters))
+      .fields(SearchCriteriaBuilder.fields(filters))
+      .build());
+
+    Query query = capturedQuery();
+    assertEquals(Arrays.asList(
+      new Document("servings", new Document("$gte", 2))
+        .append("category", new Document("$in", Arrays.asList("VEGETARIAN", "NON_VEGETARIAN"))),
+      new Document("servings", new Document("$lte", 6))), query.getQueryObject().getList("$and", Document.class));
+    assertEquals(new Document("servings", -1), query.getSortObject());
+    assertEquals(new Document("title", 1).append("servings", 1), query.getFieldsObject());
+  }
+
+  @Test
+  public void shouldCountTextSearchWithoutReadingRecipes() {
+    MultiValueMap<String, String> filters = new LinkedMultiValueMap<>();
+    filters.add("category", "VEGETARIAN");
+    doReturn(3L).when(mongoTemplate).count(any(Query.class), eq(RecipeDTO.class));
+
+    assertEquals(3, recipeRepository.count(RecipeSearch.builder()
+      .predicate(SearchCriteriaBuilder.addCondition(filters))
+      .text("grilled potatoes")
+      .build()));
+
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    verify(mongoTemplate).count(query.capture(), eq(RecipeDTO.class));
+    assertEquals("VEGETARIAN", query.getValue().getQueryObject().get("category"));
+    assertEquals(new Document("$search", "grilled potatoes"), query.getValue().getQueryObject().get("$text"));
+  }
+
+  @Test
+  public void shouldExplainSearchWithExecutionStats() {
+    MultiValueMap<String, String> filters = new LinkedMultiValueMap<>();
+    filters.add("category", "VEGETARIAN");
+    filters.add("sort", "id,desc");
+    doReturn(new Document("ok", 1)).when(mongoTemplate).executeCommand(any(Document.class));
+
+    recipeRepository.explain(RecipeSearch.builder()
+      .predicate(SearchCriteriaBuilder.addCondition(filters))
+      .sort(SearchCriteriaBuilder.sort(filters))
+      .build());
+
+    ArgumentCaptor<Document> command = ArgumentCaptor.forClass(Document.class);
+    verify(mongoTemplate).executeCommand(command.capture());
+    assertEquals("executionStats", command.getValue().getString("verbosity"));
+    Document find = command.getValue().get("explain", Document.class);
+    assertEquals("Recipes", find.getString("find"));
+    assertEquals(new Document("category", "VEGETARIAN"), find.get("filter"));
+    assertEquals(new Document("_id", -1), find.get("sort"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldCountFacetsWithOneAggregation() {
+    Document result = new Document("total", List.of(new Document("count", 3)))
+      .append("categories", List.of(new Document("_id", "VEGETARIAN").append("count", 2),
+        new Document("_id", "NON_VEGETARIAN").append("count", 1)))
+      .append("servings", List.of(new Document("_id", 1).append("count", 2), new Document("_id", 7).append("count", 1)))
+      .append("ingredients", List.of(new Document("_id", "potato").append("count", 2)));
+    doReturn(new AggregationResults<>(List.of(result), new Document())).when(mongoTemplate)
+      .aggregate(any(TypedAggregation.class), eq(Document.class));
+    MultiValueMap<String, String> filters = new LinkedMultiValueMap<>();
+    filters.add("servings[lte]", "8");
+
+    RecipeFacets facets = recipeRepository.facets(RecipeSearch.builder()
+      .predicate(SearchCriteriaBuilder.addCondition(filters))
+      .text("potato")
+      .build(), 5);
+
+    assertEquals(3, facets.getTotal());
+    assertEquals(Map.of(Category.VEGETARIAN, 2L, Category.NON_VEGETARIAN, 1L), facets.getCategories());
+    assertEquals(List.of("1-2", "7+"), List.copyOf(facets.getServings().keySet()));
+    assertEquals(Map.of("potato", 2L), facets.getIngredients());
+
+    ArgumentCaptor<TypedAggregation<RecipeDTO>> aggregation = ArgumentCaptor.forClass(TypedAggregation.class);
+    verify(mongoTemplate).aggregate(aggregation.capture(), eq(Document.class));
+    List<Document> pipeline = aggregation.getValue().toPipeline(new TypeBasedAggregationOperationContext(
+      RecipeDTO.class, mongoTemplate.getConverter().getMappingContext(), new QueryMapper(mongoTemplate.getConverter())));
+    assertEquals(2, pipeline.size());
+    Document match = pipeline.get(0).get("$match", Document.class);
+    assertEquals(new Document("$lte", 8), match.get("servings"));
+    assertEquals(new Document("$search", "potato"), match.get("$text"));
+    Document facet = pipeline.get(1).get("$facet", Document.class);
+    assertEquals(List.of("total", "categories", "servings", "ingredients"), List.copyOf(facet.keySet()));
+    assertEquals(new Document("$limit", 5L), facet.getList("ingredients", Document.class).get(3));
+  }
+
+  @Test
+  public void shouldFindPageAfterIdOrderedById() {
+    recipeRepository.findPage(RecipeSearch.of(null), "62f151e322515f7318da0990", 51);
+
+    Query query = capturedQuery();
+    assertEquals(new Document("$gt", "62f151e322515f7318da0990"), query.getQueryObject().get("_id"));
+    assertEquals(1, query.getSortObject().get("id"));
+    assertEquals(51, query.getLimit());
+  }
+
+  @Test
+  public void shouldFindFirstPageWithoutIdCondition() {
+    recipeRepository.findPage(RecipeSearch.of(null), null, 10);
+
+    assertTrue(capturedQuery().getQueryObject().isEmpty());
+  }
+
+  @Test
+  public void shouldUpdateRecipeMatchingPatchCriteriaAtomically() {
+    doReturn(null).when(mongoTemplate)
+      .findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(RecipeDTO.class));
+    RecipeUpdate recipeUpdate = RecipeUpdate.of(Json.createPatchBuilder()
+      .test("/servings", 2)
+      .replace("/servings", 4)
+      .build()).orElseThrow();
+
+    assertTrue(recipeRepository.update("1", 3L, recipeUpdate).isEmpty());
+
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+    ArgumentCaptor<FindAndModifyOptions> options = ArgumentCaptor.forClass(FindAndModifyOptions.class);
+    verify(mongoTemplate).findAndModify(query.capture(), update.capture(), options.capture(), eq(RecipeDTO.class));
+    assertEquals("1", query.getValue().getQueryObject().get("id"));
+    assertEquals(3L, query.getValue().getQueryObject().get("version"));
+    assertEquals(2, query.getValue().getQueryObject().getList("$and", Document.class).size());
+    assertEquals(new Document("servings", 4), update.getValue().getUpdateObject().get("$set"));
+    assertEquals(new Document("version", 1), update.getValue().getUpdateObject().get("$inc"));
+    assertTrue(options.getValue().isReturnNew());
+  }
+
+  @Test
+  public void shouldReadBackVersionsOfBulkReplacedRecipesWithOneQuery() {
+    BulkOperations operations = mock(BulkOperations.class);
+    doReturn(operations).when(mongoTemplate).bulkOps(BulkMode.UNORDERED, RecipeDTO.class);
+    when(operations.execute()).thenReturn(mock(BulkWriteResult.class));
+    doReturn(Arrays.asList(
+      new RecipeDTO("1", null, null, null, null, null, 4L),
+      new RecipeDTO("2", null, null, null, null, null, 1L)
+    )).when(mongoTemplate).find(any(Query.class), eq(RecipeDTO.class));
+    List<RecipeDTO> recipes = Arrays.asList(
+      new RecipeDTO(null, "Fried egg with tomato", 2, null, null, Category.NON_VEGETARIAN),
+      new RecipeDTO("1", "mixed veg", 2, null, null, Category.VEGETARIAN),
+      new RecipeDTO("2", "salmon with potato", 4, null, null, Category.NON_VEGETARIAN));
+
+    recipeRepository.bulkSave(recipes);
+
+    assertEquals(Arrays.asList(0L, 4L, 1L),
+      recipes.stream().map(RecipeDTO::getVersion).collect(Collectors.toList()));
+    Query query = capturedQuery();
+    assertEquals(Set.of("1", "2"),
+      new HashSet<>((Collection<?>) ((Document) query.getQueryObject().get("id")).get("$in")));
+    assertEquals(new Document("version", 1), query.getFieldsObject());
+  }
+
+  private Query capturedQuery() {
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    verify(mongoTemplate).find(query.capture(), eq(RecipeDTO.class));
+    return query.getValue();
+  }
+}
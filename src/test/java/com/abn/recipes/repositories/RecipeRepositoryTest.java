@@ -5,6 +5,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import com.abn.recipes.domain.Category;
 import com.abn.recipes.domain.RecipeDTO;
 import com.abn.recipes.utils.TestUtil;
+import java.util.List;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,6 +13,9 @@ import org.junit.jupiter.api.TestInstance;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
 
 @DataMongoTest
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
@@ -23,6 +27,9 @@ public class RecipeRepositoryTest {
   @Autowired
   private RecipeRepository recipeRepository;
 
+  @Autowired
+  private MongoMappingContext mappingContext;
+
   @BeforeEach
   public void addDataBase() {
     recipeRepository.deleteAll();
@@ -144,4 +151,28 @@ public class RecipeRepositoryTest {
 
     assertThat(recipeRepository.findAll()).isEmpty();
   }
+
+  @Test
+  public void shouldFindRecipesByFullTextSearchMostRelevantFirst() {
+    IndexOperations indexOperations = mongoTemplate.indexOps(RecipeDTO.class);
+    new MongoPersistentEntityIndexResolver(mappingContext)
+      .resolveIndexFor(RecipeDTO.class)
+      .forEach(indexOperations::ensureIndex);
+    recipeRepository.save(
+      new RecipeDTO("1", "Fried egg with tomato", 2, TestUtil.getIngredients("potato", "egg"),
+        "crack the egg on the pan with little oil.",
+        Category.NON_VEGETARIAN));
+    recipeRepository.save(
+      new RecipeDTO("2", "Fried potatoes", 3, TestUtil.getIngredients("potato", "cauliflower"),
+        "Bake potatoes and cauliflower in oven.",
+        Category.VEGETARIAN));
+    recipeRepository.save(
+      new RecipeDTO("3", "Grilled fish", 3, TestUtil.getIngredients("salmon"),
+        "Add some spice to fish and grill with a potato in oven for 2 mins.",
+        Category.NON_VEGETARIAN));
+
+    List<RecipeDTO> recipes = recipeRepository.search(RecipeSearch.builder().text("potato").build());
+
+    assertThat(recipes).extracting(RecipeDTO::getId).containsExactly("2", "3");
+  }
 }
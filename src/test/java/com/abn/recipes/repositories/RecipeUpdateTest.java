@@ -0,0 +1,74 @@
+package com.abn.recipes.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.abn.recipes.domain.Category;
+import java.util.Arrays;
+import java.util.Optional;
+import javax.json.Json;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Update;
+
+public class RecipeUpdateTest {
+
+  @Test
+  public void shouldCompileJsonPatchIntoOneUpdate() {
+    Optional<RecipeUpdate> recipeUpdate = RecipeUpdate.of(Json.createPatchBuilder()
+      .test("/servings", 2)
+      .replace("/title", "Grilled chicken potato")
+      .remove("/instructions")
+      .add("/category", "NON_VEGETARIAN")
+      .add("/ingredients/-", "Chicken")
+      .add("/ingredients/-", "salt")
+      .build());
+
+    assertTrue(recipeUpdate.isPresent());
+    Document update = recipeUpdate.get().getUpdate().getUpdateObject();
+    assertEquals(new Document("title", "Grilled chicken potato").append("category", Category.NON_VEGETARIAN),
+      update.get("$set"));
+    assertEquals(new Document("instructions", 1), update.get("$unset"));
+    assertEquals(new Update().addToSet("ingredients").each("chicken", "salt").getUpdateObject().get("$addToSet"),
+      update.get("$addToSet"));
+    assertEquals(Arrays.asList(
+      Criteria.where("servings").is(2),
+      Criteria.where("title").exists(true),
+      Criteria.where("instructions").exists(true),
+      Criteria.where("ingredients").exists(true)), recipeUpdate.get().getCriteria());
+  }
+
+  @Test
+  public void shouldCompileMergePatchIntoOneUpdate() {
+    Optional<RecipeUpdate> recipeUpdate = RecipeUpdate.of(Json.createMergePatch(Json.createObjectBuilder()
+      .add("servings", 4)
+      .addNull("instructions")
+      .add("unknown", "ignored")
+      .build()));
+
+    assertTrue(recipeUpdate.isPresent());
+    Document update = recipeUpdate.get().getUpdate().getUpdateObject();
+    assertEquals(new Document("servings", 4), update.get("$set"));
+    assertEquals(new Document("instructions", 1), update.get("$unset"));
+    assertTrue(recipeUpdate.get().getCriteria().isEmpty());
+  }
+
+  @Test
+  public void shouldNotCompileOperationsItCannotTranslate() {
+    assertFalse(RecipeUpdate.of(Json.createPatchBuilder().remove("/ingredients/0").build()).isPresent());
+    assertFalse(RecipeUpdate.of(Json.createPatchBuilder().move("/title", "/instructions").build()).isPresent());
+    assertFalse(RecipeUpdate.of(Json.createPatchBuilder().replace("/servings", "four").build()).isPresent());
+    assertFalse(RecipeUpdate.of(Json.createPatchBuilder().replace("/category", "VEGAN").build()).isPresent());
+    assertFalse(RecipeUpdate.of(Json.createPatchBuilder()
+      .add("/ingredients/-", "chicken")
+      .replace("/ingredients", Json.createArrayBuilder().add("salt").build())
+      .build()).isPresent());
+    assertFalse(RecipeUpdate.of(Json.createPatchBuilder()
+      .replace("/servings", 4)
+      .test("/servings", 4)
+      .build()).isPresent());
+    assertFalse(RecipeUpdate.of(Json.createMergePatch(Json.createObjectBuilder().add("id", "2").build())).isPresent());
+  }
+}
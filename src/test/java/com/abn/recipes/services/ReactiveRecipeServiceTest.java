@@ -0,0 +1,61 @@
+package com.abn.recipes.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+import com.abn.recipes.domain.Category;
+import com.abn.recipes.domain.Recipe;
+import com.abn.recipes.domain.RecipeDTO;
+import com.abn.recipes.events.RecipeChangedEvent;
+import com.abn.recipes.repositories.ReactiveRecipeRepository;
+import com.abn.recipes.utils.RecipeMapper;
+import com.abn.recipes.utils.RecipeMapperImpl;
+import com.abn.recipes.utils.TestUtil;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import reactor.core.publisher.Mono;
+
+@ExtendWith(MockitoExtension.class)
+public class ReactiveRecipeServiceTest {
+
+  @Mock
+  private ReactiveRecipeRepository recipeRepository;
+
+  @Spy
+  private RecipeMapper mapper = new RecipeMapperImpl();
+
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
+  @InjectMocks
+  private ReactiveRecipeServiceImpl recipeService;
+
+  @Test
+  public void shouldPublishChangesOffTheCallingThreadBeforeCompleting() {
+    RecipeDTO recipeDTO = new RecipeDTO("1", "Fried egg with tomato", 2, TestUtil.getIngredients("egg"),
+      "crack the egg on the pan with little oil.",
+      Category.NON_VEGETARIAN, 0L);
+    when(recipeRepository.save(any(RecipeDTO.class))).thenReturn(Mono.just(recipeDTO));
+    when(recipeRepository.deleteById("1")).thenReturn(Mono.empty());
+    List<String> publishers = new ArrayList<>();
+    doAnswer(invocation -> publishers.add(Thread.currentThread().getName()))
+      .when(eventPublisher).publishEvent(any(RecipeChangedEvent.class));
+
+    Recipe saved = recipeService.save(mapper.asRecipe(recipeDTO)).block();
+    recipeService.deleteRecipeById("1").block();
+
+    assertEquals("1", saved.getId());
+    assertEquals(2, publishers.size());
+    assertTrue(publishers.stream().allMatch(thread -> thread.startsWith("boundedElastic")), publishers.toString());
+  }
+}
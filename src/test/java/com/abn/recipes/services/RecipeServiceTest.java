@@ -1,22 +1,49 @@
 package com.abn.recipes.services;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import com.abn.recipes.cache.RecipeCache;
+import com.abn.recipes.domain.BulkItemResult;
+import com.abn.recipes.domain.BulkResult;
 import com.abn.recipes.domain.Category;
 import com.abn.recipes.domain.Recipe;
 import com.abn.recipes.domain.RecipeDTO;
+import com.abn.recipes.domain.RecipeFacets;
+import com.abn.recipes.domain.RecipePage;
+import com.abn.recipes.events.RecipeChangedEvent;
+import com.abn.recipes.exception.InvalidFilterException;
+import com.abn.recipes.exception.PreconditionFailedException;
 import com.abn.recipes.exception.ResourceNotFoundException;
+import com.abn.recipes.index.FacetCounter;
+import com.abn.recipes.index.IngredientDictionary;
+import com.abn.recipes.index.IngredientIndex;
+import com.abn.recipes.index.QueryShape;
+import com.abn.recipes.index.QueryShapeRecorder;
+import com.abn.recipes.index.RecipeStore;
+import com.abn.recipes.index.SlowQueryLog;
 import com.abn.recipes.repositories.RecipeRepository;
+import com.abn.recipes.repositories.RecipeSearch;
+import com.abn.recipes.repositories.RecipeUpdate;
 import com.abn.recipes.utils.PatchHelper;
 import com.abn.recipes.utils.RecipeMapper;
+import com.abn.recipes.utils.SearchCriteriaBuilder;
 import com.abn.recipes.utils.TestUtil;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
 import com.querydsl.core.types.Predicate;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -25,13 +52,19 @@ import javax.json.Json;
 import javax.json.JsonMergePatch;
 import javax.json.JsonPatch;
 import javax.json.JsonPatchBuilder;
+import javax.validation.ConstraintViolation;
+import javax.validation.Path;
+import javax.validation.Validator;
+import javax.validation.metadata.BeanDescriptor;
 
 import org.junit.Test;
 import org.junit.jupiter.api.Assertions;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 
@@ -50,6 +83,51 @@ public class RecipeServiceTest {
   @Mock
   private PatchHelper patchHelper;
 
+  @Spy
+  private RecipeCache recipeCache = new RecipeCache(100, Duration.ofMinutes(1));
+
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
+  @Mock
+  private IngredientIndex ingredientIndex;
+
+  @Mock
+  private Validator validator;
+
+  @Mock
+  private BeanDescriptor beanDescriptor;
+
+  @Mock
+  private QueryShapeRecorder queryShapeRecorder;
+
+  @Mock
+  private FacetCounter facetCounter;
+
+  @Mock
+  private SlowQueryLog slowQueryLog;
+
+  @Mock
+  private RecipeStore recipeStore;
+
+  @Spy
+  private IngredientDictionary dictionary = new IngredientDictionary();
+
+  @Test
+  public void shouldAnswerFilteredRecipesFromStore() {
+    List<Recipe> recipes = Collections.singletonList(
+      new Recipe("2", "mixed veg", 2, TestUtil.getIngredients("bell pepper", "potato", "mushroom"),
+        "chop all the ingredients and stir it in kadai with oil and spices",
+        Category.VEGETARIAN));
+    MultiValueMap<String, String> paramsMap = new LinkedMultiValueMap<>();
+    paramsMap.add("includes", "potato");
+    when(recipeStore.search(paramsMap)).thenReturn(Optional.of(recipes));
+
+    Assertions.assertSame(recipes, recipeService.getFilteredRecipe(paramsMap));
+    verify(recipeRepository, never()).findAll(any(Predicate.class));
+    verify(ingredientIndex, never()).match(any(), any());
+  }
+
   @Test
   public void shouldReturnRecipe() throws Exception {
     String id = "1";
@@ -66,6 +144,23 @@ public class RecipeServiceTest {
     Assertions.assertEquals(2, foundedRecipe.getServings());
   }
 
+  @Test
+  public void shouldReturnCachedRecipe() throws Exception {
+    String id = "1";
+    RecipeDTO recipeDTO = new RecipeDTO(id, "Fried egg with tomato", 2, TestUtil.getIngredients("potato", "cauliflower"),
+      "crack the egg on the pan with little oil.",
+      Category.NON_VEGETARIAN);
+    Recipe recipe = new Recipe(id, "Fried egg with tomato", 2, TestUtil.getIngredients("potato", "cauliflower"),
+      "crack the egg on the pan with little oil.",
+      Category.NON_VEGETARIAN);
+    when(recipeRepository.findById(id)).thenReturn(Optional.of(recipeDTO));
+    when(mapper.asRecipe(recipeDTO)).thenReturn(recipe);
+    recipeService.findRecipeById(id).setServings(8);
+    Recipe foundedRecipe = recipeService.findRecipeById(id);
+    Assertions.assertEquals(2, foundedRecipe.getServings());
+    verify(recipeRepository, times(1)).findById(id);
+  }
+
   @Test(expected = ResourceNotFoundException.class)
   public void shouldThrowExceptionWhenEmptyRecipe() throws Exception {
     String id = "1";
@@ -233,6 +328,218 @@ public class RecipeServiceTest {
     verify(mapper, times(1)).map(recipeDTOs);
   }
 
+  @Test
+  public void shouldResolveIngredientFiltersThroughIndex() {
+    MultiValueMap<String, String> paramsMap = new LinkedMultiValueMap<>();
+    paramsMap.add("servings", "4");
+    paramsMap.add("includes", "potato");
+    paramsMap.add("excludes", "salmon");
+    List<RecipeDTO> recipeDTOs = new ArrayList<>(
+      Arrays.asList(
+        new RecipeDTO("4", "grilled with potato", 4, TestUtil.getIngredients("potato"),
+          "at 250 degree celcium grill the potato in the oven",
+          Category.VEGETARIAN)));
+    List<Recipe> recipes = new ArrayList<>(
+      Arrays.asList(
+        new Recipe("4", "grilled with potato", 4, TestUtil.getIngredients("potato"),
+          "at 250 degree celcium grill the potato in the oven",
+          Category.VEGETARIAN)));
+    when(ingredientIndex.match(paramsMap.get("includes"), paramsMap.get("excludes")))
+      .thenReturn(Optional.of(Arrays.asList("4", "7")));
+    when(recipeRepository.findAll(any(Predicate.class))).thenReturn(recipeDTOs);
+    when(mapper.map(recipeDTOs)).thenReturn(recipes);
+    List<Recipe> foundedRecipes = recipeService.getFilteredRecipe(paramsMap);
+    Assertions.assertEquals(1, foundedRecipes.size());
+    verify(recipeRepository).findAll(SearchCriteriaBuilder.addCondition(paramsMap, Arrays.asList("4", "7")));
+    verify(queryShapeRecorder).record(QueryShape.of(paramsMap, true));
+    verify(slowQueryLog).record(eq(QueryShape.of(paramsMap, true)),
+      argThat(search -> search.getPredicate().equals(SearchCriteriaBuilder.addCondition(paramsMap, Arrays.asList("4", "7")))),
+      anyLong());
+  }
+
+  @Test
+  public void shouldReturnRecipesMatchingFullTextSearch() {
+    MultiValueMap<String, String> paramsMap = new LinkedMultiValueMap<>();
+    paramsMap.add("search", "grilled potatoes");
+    paramsMap.add("category", "VEGETARIAN");
+    List<RecipeDTO> recipeDTOs = new ArrayList<>(
+      Arrays.asList(
+        new RecipeDTO("4", "grilled with potato", 4, TestUtil.getIngredients("potato"),
+          "at 250 degree celcium grill the potato in the oven",
+          Category.VEGETARIAN)));
+    List<Recipe> recipes = new ArrayList<>(
+      Arrays.asList(
+        new Recipe("4", "grilled with potato", 4, TestUtil.getIngredients("potato"),
+          "at 250 degree celcium grill the potato in the oven",
+          Category.VEGETARIAN)));
+    when(recipeRepository.search(any(RecipeSearch.class))).thenReturn(recipeDTOs);
+    when(mapper.map(recipeDTOs)).thenReturn(recipes);
+    List<Recipe> foundedRecipes = recipeService.getFilteredRecipe(paramsMap);
+    Assertions.assertEquals(1, foundedRecipes.size());
+    verify(recipeRepository).search(argThat(search -> "grilled potatoes".equals(search.getText())
+      && SearchCriteriaBuilder.addCondition(paramsMap).equals(search.getPredicate())));
+  }
+
+  @Test
+  public void shouldPushSortAndProjectionIntoSearch() {
+    MultiValueMap<String, String> paramsMap = new LinkedMultiValueMap<>();
+    paramsMap.add("servings[gte]", "2");
+    paramsMap.add("sort", "title,desc");
+    paramsMap.add("fields", "title");
+    List<RecipeDTO> recipeDTOs = Collections.singletonList(RecipeDTO.builder().id("4").title("grilled with potato").build());
+    List<Recipe> recipes = Collections.singletonList(Recipe.builder().id("4").title("grilled with potato").build());
+    when(recipeRepository.search(any(RecipeSearch.class))).thenReturn(recipeDTOs);
+    when(mapper.map(recipeDTOs)).thenReturn(recipes);
+    List<Recipe> foundedRecipes = recipeService.getFilteredRecipe(paramsMap);
+    Assertions.assertEquals(1, foundedRecipes.size());
+    verify(recipeRepository).search(argThat(search -> search.getText() == null
+      && SearchCriteriaBuilder.addCondition(paramsMap).equals(search.getPredicate())
+      && SearchCriteriaBuilder.sort(paramsMap).equals(search.getSort())
+      && Collections.singleton("title").equals(search.getFields())));
+  }
+
+  @Test
+  public void shouldAnswerUnfilteredFacetsFromCounters() {
+    RecipeFacets facets = new RecipeFacets(1, Collections.singletonMap(Category.VEGETARIAN, 1L),
+      Collections.singletonMap("1-2", 1L), Collections.singletonMap("potato", 1L));
+    when(facetCounter.facets()).thenReturn(Optional.of(facets));
+    MultiValueMap<String, String> paramsMap = new LinkedMultiValueMap<>();
+    paramsMap.add("sort", "title");
+
+    Assertions.assertSame(facets, recipeService.getFacets(paramsMap));
+    verify(recipeRepository, times(0)).facets(any(RecipeSearch.class), any(Integer.class));
+  }
+
+  @Test
+  public void shouldAggregateFilteredFacets() {
+    MultiValueMap<String, String> paramsMap = new LinkedMultiValueMap<>();
+    paramsMap.add("category", "VEGETARIAN");
+    paramsMap.add("search", "potato");
+    when(recipeRepository.facets(any(RecipeSearch.class), eq(10))).thenReturn(RecipeFacets.empty());
+
+    Assertions.assertEquals(0, recipeService.getFacets(paramsMap).getTotal());
+    verify(recipeRepository).facets(argThat(search -> "potato".equals(search.getText())
+      && SearchCriteriaBuilder.addCondition(paramsMap).equals(search.getPredicate())), eq(10));
+    verify(queryShapeRecorder).record(QueryShape.of(paramsMap, false));
+  }
+
+  @Test
+  public void shouldCountFilteredRecipesWithoutReadingThem() {
+    MultiValueMap<String, String> paramsMap = new LinkedMultiValueMap<>();
+    paramsMap.add("category", "VEGETARIAN");
+    paramsMap.add("servings[gte]", "2");
+    when(recipeRepository.count(SearchCriteriaBuilder.addCondition(paramsMap))).thenReturn(12L);
+
+    Assertions.assertEquals(12, recipeService.countRecipes(paramsMap));
+    verify(queryShapeRecorder).record(QueryShape.of(paramsMap, false));
+    verify(recipeRepository, times(0)).findAll(any(Predicate.class));
+  }
+
+  @Test
+  public void shouldCountFullTextSearchWithRenderedQuery() {
+    MultiValueMap<String, String> paramsMap = new LinkedMultiValueMap<>();
+    paramsMap.add("search", "potato");
+    when(recipeRepository.exists(any(RecipeSearch.class))).thenReturn(true);
+
+    Assertions.assertTrue(recipeService.existsRecipes(paramsMap));
+    verify(recipeRepository).exists(argThat((RecipeSearch search) -> "potato".equals(search.getText())
+      && search.getPredicate() == null));
+  }
+
+  @Test
+  public void shouldCountIngredientFiltersFromIndex() {
+    MultiValueMap<String, String> paramsMap = new LinkedMultiValueMap<>();
+    paramsMap.add("includes", "potato");
+    when(ingredientIndex.match(paramsMap.get("includes"), Collections.emptyList()))
+      .thenReturn(Optional.of(Arrays.asList("4", "7")));
+
+    Assertions.assertEquals(2, recipeService.countRecipes(paramsMap));
+    Assertions.assertTrue(recipeService.existsRecipes(paramsMap));
+    verify(recipeRepository, times(0)).count(any(Predicate.class));
+    verify(recipeRepository, times(0)).exists(any(Predicate.class));
+  }
+
+  @Test
+  public void shouldCountAllRecipesFromCounters() {
+    MultiValueMap<String, String> paramsMap = new LinkedMultiValueMap<>();
+    paramsMap.add("size", "10");
+    when(facetCounter.facets()).thenReturn(Optional.of(new RecipeFacets(3, Collections.emptyMap(),
+      Collections.emptyMap(), Collections.emptyMap())));
+
+    Assertions.assertEquals(3, recipeService.countRecipes(paramsMap));
+    verify(recipeRepository, times(0)).count();
+  }
+
+  @Test(expected = InvalidFilterException.class)
+  public void shouldRejectSortedPage() {
+    MultiValueMap<String, String> paramsMap = new LinkedMultiValueMap<>();
+    paramsMap.add("sort", "title");
+    recipeService.getRecipePage(paramsMap, null, 2);
+  }
+
+  @Test
+  public void shouldReadPageWithProjection() {
+    MultiValueMap<String, String> paramsMap = new LinkedMultiValueMap<>();
+    paramsMap.add("fields", "title,category");
+    List<RecipeDTO> recipeDTOs = Collections.singletonList(RecipeDTO.builder().id("1").title("Kadai paneer").build());
+    when(recipeRepository.findPage(any(RecipeSearch.class), isNull(), eq(3))).thenReturn(recipeDTOs);
+    when(mapper.map(recipeDTOs)).thenReturn(Collections.singletonList(Recipe.builder().id("1").title("Kadai paneer").build()));
+    RecipePage page = recipeService.getRecipePage(paramsMap, null, 2);
+    Assertions.assertNull(page.getNext());
+    verify(recipeRepository).findPage(argThat(search -> new HashSet<>(Arrays.asList("title", "category")).equals(search.getFields())),
+      isNull(), eq(3));
+  }
+
+  @Test
+  public void shouldReturnPageOfRecipesWithNextCursor() {
+    List<RecipeDTO> recipeDTOs = new ArrayList<>(
+      Arrays.asList(
+        new RecipeDTO("1", "Kadai paneer", 3, TestUtil.getIngredients("paneer", "bell pepper"),
+          "firstly, in a large kadai, heat 1 tbsp butter and saute 1 bay leaf, 1 green chilli, 1 tsp kasuri methi till they aromatic.",
+          Category.VEGETARIAN),
+        new RecipeDTO("2", "mixed veg", 2, TestUtil.getIngredients("bell pepper", "potato", "mushroom"),
+          "chop all the ingredients and stir it in kadai with oil and spices",
+          Category.VEGETARIAN),
+        new RecipeDTO("3", "salmon with potato", 4, TestUtil.getIngredients("salmon", "potato"),
+          "at 250 degree celcium grill the fish along with potato in the oven",
+          Category.NON_VEGETARIAN)));
+    List<Recipe> recipes = new ArrayList<>(
+      Arrays.asList(
+        new Recipe("1", "Kadai paneer", 3, TestUtil.getIngredients("paneer", "bell pepper"),
+          "firstly, in a large kadai, heat 1 tbsp butter and saute 1 bay leaf, 1 green chilli, 1 tsp kasuri methi till they aromatic.",
+          Category.VEGETARIAN),
+        new Recipe("2", "mixed veg", 2, TestUtil.getIngredients("bell pepper", "potato", "mushroom"),
+          "chop all the ingredients and stir it in kadai with oil and spices",
+          Category.VEGETARIAN)));
+    MultiValueMap<String, String> paramsMap = new LinkedMultiValueMap<>();
+    paramsMap.add("category", "VEGETARIAN");
+    when(recipeRepository.findPage(any(RecipeSearch.class), isNull(), eq(3))).thenReturn(recipeDTOs);
+    when(mapper.map(recipeDTOs.subList(0, 2))).thenReturn(recipes);
+    RecipePage page = recipeService.getRecipePage(paramsMap, null, 2);
+    Assertions.assertEquals(2, page.getRecipes().size());
+    Assertions.assertEquals("2", page.getNext());
+  }
+
+  @Test
+  public void shouldReturnLastPageOfRecipesWithoutNextCursor() {
+    List<RecipeDTO> recipeDTOs = new ArrayList<>(
+      Arrays.asList(
+        new RecipeDTO("3", "salmon with potato", 4, TestUtil.getIngredients("salmon", "potato"),
+          "at 250 degree celcium grill the fish along with potato in the oven",
+          Category.NON_VEGETARIAN)));
+    List<Recipe> recipes = new ArrayList<>(
+      Arrays.asList(
+        new Recipe("3", "salmon with potato", 4, TestUtil.getIngredients("salmon", "potato"),
+          "at 250 degree celcium grill the fish along with potato in the oven",
+          Category.NON_VEGETARIAN)));
+    MultiValueMap<String, String> paramsMap = new LinkedMultiValueMap<>();
+    when(recipeRepository.findPage(any(RecipeSearch.class), eq("2"), eq(3))).thenReturn(recipeDTOs);
+    when(mapper.map(recipeDTOs)).thenReturn(recipes);
+    RecipePage page = recipeService.getRecipePage(paramsMap, "2", 2);
+    Assertions.assertEquals(1, page.getRecipes().size());
+    Assertions.assertNull(page.getNext());
+  }
+
   @Test
   public void shouldUpdateRecipe() {
     String id = "1";
@@ -276,13 +583,14 @@ public class RecipeServiceTest {
     when(mapper.asRecipe(updatedRecipeDTO)).thenReturn(updatedRecipe);
 
     JsonMergePatch jsonMergePatch = Json.createMergePatch(Json.createValue(TestUtil.fromFile("merge-patch.json")));
+    when(patchHelper.mergePatch(eq(jsonMergePatch), any(Recipe.class), eq(Recipe.class))).thenReturn(updatedRecipe);
     try {
-      Recipe foundedRecipe = recipeService.saveMergePatch(id, jsonMergePatch);
+      Recipe foundedRecipe = recipeService.saveMergePatch(id, jsonMergePatch, null);
       Assertions.assertEquals(id, foundedRecipe.getId());
       Assertions.assertEquals(4, foundedRecipe.getServings());
       Assertions.assertEquals(true, foundedRecipe.getIngredients().contains("egg"));
       verify(recipeRepository, times(1)).save(any(RecipeDTO.class));
-      verify(mapper).asInput(currentRecipe);
+      verify(patchHelper).mergePatch(eq(jsonMergePatch), any(Recipe.class), eq(Recipe.class));
     } catch (ResourceNotFoundException e) {
       e.printStackTrace();
     }
@@ -311,28 +619,148 @@ public class RecipeServiceTest {
 
     JsonPatchBuilder builder = Json.createPatchBuilder();
     JsonPatch jsonPatch = builder.replace("/servings", 10).build();
+    when(validator.getConstraintsForClass(Recipe.class)).thenReturn(beanDescriptor);
+    when(patchHelper.patch(eq(jsonPatch), any(Recipe.class), eq(Recipe.class))).thenReturn(updatedRecipe);
     try {
-      Recipe foundedRecipe = recipeService.saveJsonPatch(id, jsonPatch);
+      Recipe foundedRecipe = recipeService.saveJsonPatch(id, jsonPatch, null);
       Assertions.assertEquals(id, foundedRecipe.getId());
       Assertions.assertEquals(10, foundedRecipe.getServings());
       Assertions.assertEquals(true, foundedRecipe.getIngredients().contains("egg"));
       verify(recipeRepository, times(1)).save(any(RecipeDTO.class));
-      verify(mapper).asInput(currentRecipe);
+      verify(patchHelper).patch(eq(jsonPatch), any(Recipe.class), eq(Recipe.class));
     } catch (ResourceNotFoundException e) {
       e.printStackTrace();
     }
   }
 
+  @Test
+  public void shouldUpdateRecipeInDatabaseForTranslatablePatch() throws Exception {
+    String id = "1";
+    RecipeDTO updatedRecipeDTO = new RecipeDTO(id, "Fried egg with tomato", 10, TestUtil.getIngredients("egg", "tomato"),
+      "crack the egg on the pan with little oil.",
+      Category.NON_VEGETARIAN);
+    Recipe updatedRecipe = new Recipe(id, "Fried egg with tomato", 10, TestUtil.getIngredients("egg", "tomato"),
+      "crack the egg on the pan with little oil.",
+      Category.NON_VEGETARIAN);
+    when(validator.getConstraintsForClass(Recipe.class)).thenReturn(beanDescriptor);
+    when(recipeRepository.update(eq(id), isNull(), any(RecipeUpdate.class))).thenReturn(Optional.of(updatedRecipeDTO));
+    when(mapper.asRecipe(updatedRecipeDTO)).thenReturn(updatedRecipe);
+
+    JsonPatch jsonPatch = Json.createPatchBuilder().replace("/servings", 10).add("/ingredients/-", "tomato").build();
+    Recipe foundedRecipe = recipeService.saveJsonPatch(id, jsonPatch, null);
+    Assertions.assertEquals(10, foundedRecipe.getServings());
+    verify(recipeRepository, times(0)).findById(id);
+    verify(recipeRepository, times(0)).save(any(RecipeDTO.class));
+    verify(eventPublisher, times(1)).publishEvent(any(RecipeChangedEvent.class));
+  }
+
+  @Test(expected = PreconditionFailedException.class)
+  public void shouldRejectUpdateOfAnotherVersion() throws Exception {
+    String id = "1";
+    RecipeDTO currentRecipeDTO = new RecipeDTO(id, "Fried egg with tomato", 8, TestUtil.getIngredients("egg", "beans"),
+      "crack the egg on the pan with little oil.",
+      Category.NON_VEGETARIAN, 3L);
+    Recipe currentRecipe = new Recipe(id, "Fried egg with tomato", 8, TestUtil.getIngredients("egg", "beans"),
+      "crack the egg on the pan with little oil.",
+      Category.NON_VEGETARIAN, 3L);
+    when(recipeRepository.findById(id)).thenReturn(Optional.of(currentRecipeDTO));
+    when(mapper.asRecipe(currentRecipeDTO)).thenReturn(currentRecipe);
+
+    recipeService.updateRecipe(id, currentRecipe, 2L);
+  }
+
   @Test
   public void shouldDeleteRecipe() {
     String id = "1";
     recipeService.deleteRecipeById(id);
     verify(recipeRepository, times(1)).deleteById(eq(id));
+    verify(eventPublisher, times(1)).publishEvent(any(RecipeChangedEvent.class));
   }
 
   @Test
   public void shouldDeleteAllRecipes() {
     recipeService.deleteAllRecipes();
     verify(recipeRepository, times(1)).deleteAll();
+    verify(eventPublisher, times(1)).publishEvent(any(RecipeChangedEvent.class));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldReportOutcomeOfEveryBulkItem() {
+    Recipe created = new Recipe(null, "Fried egg with tomato", 2, TestUtil.getIngredients("egg", "tomato"),
+      "crack the egg on the pan with little oil.",
+      Category.NON_VEGETARIAN);
+    Recipe invalid = new Recipe(null, "mixed veg", 2, TestUtil.getIngredients("bell pepper"),
+      "chop all the ingredients and stir it in kadai with oil and spices",
+      Category.VEGETARIAN);
+    Recipe updated = new Recipe("3", "salmon with potato", 4, TestUtil.getIngredients("salmon", "potato"),
+      "at 250 degree celcium grill the fish along with potato in the oven",
+      Category.NON_VEGETARIAN);
+    RecipeDTO createdDTO = new RecipeDTO("1", created.getTitle(), 2, created.getIngredients(), created.getInstructions(),
+      Category.NON_VEGETARIAN);
+    RecipeDTO updatedDTO = new RecipeDTO("3", updated.getTitle(), 4, updated.getIngredients(), updated.getInstructions(),
+      Category.NON_VEGETARIAN);
+    ConstraintViolation<Recipe> violation = mock(ConstraintViolation.class);
+    Path path = mock(Path.class);
+    when(path.toString()).thenReturn("title");
+    when(violation.getPropertyPath()).thenReturn(path);
+    when(violation.getMessage()).thenReturn("must not be blank");
+    when(validator.validate(invalid)).thenReturn(Collections.singleton(violation));
+    when(mapper.asRecipeDTO(created)).thenReturn(createdDTO);
+    when(mapper.asRecipeDTO(updated)).thenReturn(updatedDTO);
+    when(mapper.asRecipe(createdDTO)).thenReturn(created);
+    when(mapper.asRecipe(updatedDTO)).thenReturn(updated);
+    when(recipeRepository.bulkSave(Arrays.asList(createdDTO, updatedDTO))).thenReturn(Arrays.asList(
+      new BulkItemResult(0, "1", BulkItemResult.Status.CREATED, null),
+      new BulkItemResult(1, "3", BulkItemResult.Status.UPDATED, null)));
+
+    Iterator<Object> items = Arrays.<Object>asList(created, new RuntimeJsonMappingException("bad servings"), invalid, updated)
+      .iterator();
+    BulkResult result = recipeService.saveAll(new Iterator<Recipe>() {
+      @Override
+      public boolean hasNext() {
+        return items.hasNext();
+      }
+
+      @Override
+      public Recipe next() {
+        Object item = items.next();
+        if (item instanceof RuntimeException) {
+          throw (RuntimeException) item;
+        }
+        return (Recipe) item;
+      }
+    });
+
+    Assertions.assertEquals(1, result.getCreated());
+    Assertions.assertEquals(1, result.getUpdated());
+    Assertions.assertEquals(2, result.getFailed());
+    Assertions.assertEquals(BulkItemResult.Status.CREATED, result.getItems().get(0).getStatus());
+    Assertions.assertEquals("bad servings", result.getItems().get(1).getError());
+    Assertions.assertEquals("title must not be blank", result.getItems().get(2).getError());
+    Assertions.assertEquals("3", result.getItems().get(3).getId());
+    Assertions.assertEquals(BulkItemResult.Status.UPDATED, result.getItems().get(3).getStatus());
+    verify(eventPublisher, times(2)).publishEvent(any(RecipeChangedEvent.class));
+  }
+
+  @Test
+  public void shouldSaveCanonicalIngredientsInBulk() {
+    Recipe recipe = new Recipe(null, "Fried egg with tomato", 2, TestUtil.getIngredients(" Tomatoes", "Egg"),
+      "crack the egg on the pan with little oil.",
+      Category.NON_VEGETARIAN);
+    RecipeDTO recipeDTO = new RecipeDTO(null, recipe.getTitle(), 2, recipe.getIngredients(), recipe.getInstructions(),
+      Category.NON_VEGETARIAN);
+    when(mapper.asRecipeDTO(recipe)).thenReturn(recipeDTO);
+    when(mapper.asRecipe(recipeDTO)).thenReturn(recipe);
+    List<Set<String>> saved = new ArrayList<>();
+    when(recipeRepository.bulkSave(any())).thenAnswer(invocation -> {
+      List<RecipeDTO> batch = invocation.getArgument(0);
+      saved.add(batch.get(0).getIngredients());
+      return Collections.singletonList(new BulkItemResult(0, "1", BulkItemResult.Status.CREATED, null));
+    });
+
+    recipeService.saveAll(Collections.singletonList(recipe).iterator());
+
+    Assertions.assertEquals(Collections.singletonList(Set.of("tomato", "egg")), saved);
   }
 }
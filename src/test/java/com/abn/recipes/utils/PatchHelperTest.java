@@ -1,5 +1,7 @@
 package com.abn.recipes.utils;
 
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
@@ -9,6 +11,8 @@ import static org.mockito.Mockito.when;
 import com.abn.recipes.config.JacksonConfig;
 import com.abn.recipes.domain.Category;
 import com.abn.recipes.domain.Recipe;
+import com.abn.recipes.exception.UnprocessableEntityException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import javax.json.*;
 import javax.validation.Validator;
 import org.assertj.core.util.Lists;
@@ -21,7 +25,7 @@ import org.springframework.context.annotation.Import;
 import org.springframework.test.context.junit4.SpringRunner;
 
 @RunWith(SpringRunner.class)
-@Import({ JacksonConfig.class, PatchHelper.class })
+@Import({ JacksonConfig.class, PatchHelper.class, SimpleMeterRegistry.class })
 public class PatchHelperTest {
 
   @MockBean
@@ -103,4 +107,82 @@ public class PatchHelperTest {
     assertTrue(result.getIngredients().contains("chicken"));
     verify(validator).validate(any());
   }
+
+  @Test
+  public void patch_shouldAppendIngredientWithoutChangingTarget() {
+    when(validator.validate(any())).thenReturn(Sets.newHashSet());
+    Recipe target = Recipe
+      .builder()
+      .id("1")
+      .title("Grilled potato")
+      .servings(5)
+      .ingredients(Sets.newHashSet(Lists.newArrayList("potatoes", "beans")))
+      .category(Category.VEGETARIAN)
+      .build();
+    JsonPatch patch = Json
+      .createPatchBuilder()
+      .test("/servings", 5)
+      .add("/ingredients/-", "chicken")
+      .remove("/category")
+      .build();
+
+    Recipe result = patchHelper.patch(patch, target, Recipe.class);
+    assertTrue(result.getIngredients().contains("chicken"));
+    assertNull(result.getCategory());
+    assertFalse(target.getIngredients().contains("chicken"));
+    assertEquals(Category.VEGETARIAN, target.getCategory());
+  }
+
+  @Test(expected = UnprocessableEntityException.class)
+  public void patch_shouldRejectFailedTestOperation() {
+    Recipe target = Recipe.builder().id("1").title("Grilled potato").servings(5).build();
+    JsonPatch patch = Json
+      .createPatchBuilder()
+      .test("/servings", 4)
+      .replace("/title", "Grilled chicken potato")
+      .build();
+
+    patchHelper.patch(patch, target, Recipe.class);
+  }
+
+  @Test
+  public void patch_shouldFallBackForOperationsOnOtherPaths() {
+    when(validator.validate(any())).thenReturn(Sets.newHashSet());
+    Recipe target = Recipe
+      .builder()
+      .id("1")
+      .title("Grilled potato")
+      .instructions("Bake the potatoes in the oven at 250 degree celcius")
+      .build();
+    JsonPatch patch = Json
+      .createPatchBuilder()
+      .move("/title", "/instructions")
+      .build();
+
+    Recipe result = patchHelper.patch(patch, target, Recipe.class);
+    assertEquals("Bake the potatoes in the oven at 250 degree celcius", result.getTitle());
+    assertNull(result.getInstructions());
+  }
+
+  @Test
+  public void mergePatch_shouldRemoveNullMembers() {
+    when(validator.validate(any())).thenReturn(Sets.newHashSet());
+    Recipe target = Recipe
+      .builder()
+      .id("1")
+      .title("Grilled potato")
+      .instructions("Bake the potatoes in the oven at 250 degree celcius")
+      .build();
+    JsonMergePatch mergePatch = Json.createMergePatch(
+      Json
+        .createObjectBuilder()
+        .addNull("instructions")
+        .add("unknown", "ignored")
+        .build()
+    );
+
+    Recipe result = patchHelper.mergePatch(mergePatch, target, Recipe.class);
+    assertEquals("Grilled potato", result.getTitle());
+    assertNull(result.getInstructions());
+  }
 }
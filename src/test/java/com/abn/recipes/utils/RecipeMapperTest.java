@@ -0,0 +1,95 @@
+package com.abn.recipes.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.abn.recipes.domain.Category;
+import com.abn.recipes.domain.Recipe;
+import com.abn.recipes.domain.RecipeDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+import org.junit.jupiter.api.Test;
+
+public class RecipeMapperTest {
+
+  private final RecipeMapper mapper = new RecipeMapperImpl();
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  public void shouldConvertRecipesWhenRead() {
+    List<RecipeDTO> recipeDTOs = recipeDTOs(3);
+    List<Recipe> recipes = mapper.map(recipeDTOs);
+
+    assertEquals(3, recipes.size());
+    assertEquals(List.of("0", "1", "2"), recipes.stream().map(Recipe::getId).collect(Collectors.toList()));
+    assertEquals("mixed veg 1", recipes.get(1).getTitle());
+    assertEquals(recipeDTOs.get(1).getIngredients(), recipes.get(1).getIngredients());
+    assertNotSame(recipes.get(1), recipes.get(1));
+    assertThrows(UnsupportedOperationException.class, () -> recipes.add(new Recipe()));
+    assertNull(mapper.map(null));
+  }
+
+  @Test
+  public void shouldNotAllocatePerRecipeUntilRead() {
+    List<RecipeDTO> recipeDTOs = recipeDTOs(10_000);
+    mapper.map(recipeDTOs);
+
+    long start = allocatedBytes();
+    List<Recipe> recipes = mapper.map(recipeDTOs);
+    long allocated = allocatedBytes() - start;
+
+    assertEquals(10_000, recipes.size());
+    assertTrue(allocated < 1024, allocated + " bytes allocated");
+  }
+
+  /**
+   * Compares the bytes allocated to list recipes as JSON with the copies the listing used to make: the Querydsl
+   * iterable collected to a list, the list of mapped recipes, and the controller copy.
+   */
+  @Test
+  public void shouldAllocateLessPerListedRecipeThanCopies() throws IOException {
+    List<RecipeDTO> recipeDTOs = recipeDTOs(10_000);
+    Iterable<RecipeDTO> found = recipeDTOs;
+    long copied = Long.MAX_VALUE;
+    long viewed = Long.MAX_VALUE;
+    for (int run = 0; run < 10; run++) {
+      long start = allocatedBytes();
+      List<RecipeDTO> collected = StreamSupport.stream(found.spliterator(), false).collect(Collectors.toList());
+      List<Recipe> mapped = collected.stream().map(mapper::asRecipe).collect(Collectors.toList());
+      List<Recipe> recipes = new ArrayList<>();
+      recipes.addAll(mapped);
+      objectMapper.writeValue(OutputStream.nullOutputStream(), recipes);
+      copied = Math.min(copied, allocatedBytes() - start);
+
+      start = allocatedBytes();
+      objectMapper.writeValue(OutputStream.nullOutputStream(), mapper.map(recipeDTOs));
+      viewed = Math.min(viewed, allocatedBytes() - start);
+    }
+
+    assertTrue(viewed / recipeDTOs.size() < copied / recipeDTOs.size(),
+      viewed / recipeDTOs.size() + " bytes per viewed recipe, " + copied / recipeDTOs.size() + " per copied one");
+  }
+
+  private static List<RecipeDTO> recipeDTOs(int size) {
+    return IntStream.range(0, size)
+      .mapToObj(id -> new RecipeDTO(String.valueOf(id), "mixed veg " + id, 2, TestUtil.getIngredients("potato", "mushroom"),
+        "chop all the ingredients and stir it in kadai with oil and spices",
+        Category.VEGETARIAN, (long) id))
+      .collect(Collectors.toList());
+  }
+
+  private static long allocatedBytes() {
+    return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+  }
+}
@@ -0,0 +1,100 @@
+package com.abn.recipes.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.abn.recipes.domain.Category;
+import com.abn.recipes.domain.QRecipeDTO;
+import com.abn.recipes.exception.InvalidFilterException;
+import com.querydsl.core.BooleanBuilder;
+import java.util.Arrays;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+public class SearchCriteriaBuilderTest {
+
+  private static final QRecipeDTO Q_RECIPE = new QRecipeDTO("recipe");
+
+  @Test
+  public void shouldBuildServingsRange() {
+    MultiValueMap<String, String> filters = new LinkedMultiValueMap<>();
+    filters.add("servings[gte]", "2");
+    filters.add("servings[lte]", "6");
+
+    assertEquals(new BooleanBuilder(Q_RECIPE.servings.goe(2)).and(Q_RECIPE.servings.loe(6)).getValue(),
+      SearchCriteriaBuilder.addCondition(filters));
+  }
+
+  @Test
+  public void shouldMatchAnyOfManyCategories() {
+    MultiValueMap<String, String> filters = new LinkedMultiValueMap<>();
+    filters.add("category", "VEGETARIAN");
+    filters.add("category", "NON_VEGETARIAN");
+
+    assertEquals(Q_RECIPE.category.in(Arrays.asList(Category.VEGETARIAN, Category.NON_VEGETARIAN)),
+      SearchCriteriaBuilder.addCondition(filters));
+  }
+
+  @Test
+  public void shouldMatchCanonicalIngredients() {
+    MultiValueMap<String, String> filters = new LinkedMultiValueMap<>();
+    filters.add("includes", " Cherry  Tomatoes");
+    filters.add("excludes", "Eggs");
+
+    assertEquals(new BooleanBuilder(Q_RECIPE.ingredients.contains("cherry tomato"))
+        .andNot(Q_RECIPE.ingredients.contains("egg")).getValue(),
+      SearchCriteriaBuilder.addCondition(filters));
+  }
+
+  @Test
+  public void shouldRejectInvalidFilterValues() {
+    MultiValueMap<String, String> servings = new LinkedMultiValueMap<>();
+    servings.add("servings[gte]", "two");
+    MultiValueMap<String, String> category = new LinkedMultiValueMap<>();
+    category.add("category", "VEGETARIAN,VEGAN");
+
+    assertThrows(InvalidFilterException.class, () -> SearchCriteriaBuilder.addCondition(servings));
+    assertThrows(InvalidFilterException.class, () -> SearchCriteriaBuilder.addCondition(category));
+  }
+
+  @Test
+  public void shouldBuildSortInGivenOrder() {
+    MultiValueMap<String, String> filters = new LinkedMultiValueMap<>();
+    filters.add("sort", "category");
+    filters.add("sort", "servings,desc");
+
+    assertEquals(Sort.by(Sort.Order.asc("category"), Sort.Order.desc("servings")), SearchCriteriaBuilder.sort(filters));
+    assertTrue(SearchCriteriaBuilder.sort(new LinkedMultiValueMap<>()).isUnsorted());
+  }
+
+  @Test
+  public void shouldRejectInvalidSort() {
+    MultiValueMap<String, String> field = new LinkedMultiValueMap<>();
+    field.add("sort", "ingredients");
+    MultiValueMap<String, String> direction = new LinkedMultiValueMap<>();
+    direction.add("sort", "servings,down");
+
+    assertThrows(InvalidFilterException.class, () -> SearchCriteriaBuilder.sort(field));
+    assertThrows(InvalidFilterException.class, () -> SearchCriteriaBuilder.sort(direction));
+  }
+
+  @Test
+  public void shouldBuildProjectionWithoutId() {
+    MultiValueMap<String, String> filters = new LinkedMultiValueMap<>();
+    filters.add("fields", "id,title, servings");
+
+    assertEquals(Set.of("title", "servings"), SearchCriteriaBuilder.fields(filters));
+  }
+
+  @Test
+  public void shouldRejectUnknownProjectionField() {
+    MultiValueMap<String, String> filters = new LinkedMultiValueMap<>();
+    filters.add("fields", "title,calories");
+
+    assertThrows(InvalidFilterException.class, () -> SearchCriteriaBuilder.fields(filters));
+  }
+}